@@ -0,0 +1,113 @@
+package benchmark;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+
+import aohara.tinkertime.TinkerConfig;
+
+/**
+ * TinkerConfig for benchmarks, with all of its folders in a temp directory
+ * and no options window.
+ * 
+ * The options are loaded from a properties file in the folder, which is
+ * written with the defaults when the folder is created, so that loading the
+ * config reads a file as it does in the application.
+ * 
+ * @author Andrew O'Hara
+ */
+public class BenchmarkConfig extends TinkerConfig {
+	
+	private static final String
+		CONFIG_FILE = "TinkerTime.properties",
+		AUTO_CHECK_FOR_MOD_UPDATES = "autoCheckForModUpdates",
+		NUM_CONCURRENT_DOWNLOADS = "numConcurrentDownloads",
+		JOURNAL_MOD_STATE = "journalModState",
+		IMAGE_CACHE_SIZE_MB = "imageCacheSizeMb";
+	
+	private final Path root;
+	private final Properties options;
+	
+	private BenchmarkConfig(Path root, Properties options) throws IOException {
+		super(null);
+		this.root = root;
+		this.options = options;
+		for (Path folder : new Path[]{getGameDataPath(), getModsZipPath(), getImageCachePath(), getReadmeCachePath()}){
+			Files.createDirectories(folder);
+		}
+	}
+	
+	/**
+	 * Creates a temp folder, with a config file holding the default options.
+	 */
+	public static BenchmarkConfig createTemp() throws IOException {
+		Path root = Files.createTempDirectory("tinkertime-bench");
+		Properties options = new Properties();
+		options.setProperty(AUTO_CHECK_FOR_MOD_UPDATES, "false");
+		options.setProperty(NUM_CONCURRENT_DOWNLOADS, "4");
+		options.setProperty(JOURNAL_MOD_STATE, "false");
+		options.setProperty(IMAGE_CACHE_SIZE_MB, "256");
+		try(OutputStream os = Files.newOutputStream(root.resolve(CONFIG_FILE))){
+			options.store(os, "TinkerTime benchmark config");
+		}
+		return load(root);
+	}
+	
+	/**
+	 * Loads the config from the file in the given folder.
+	 */
+	public static BenchmarkConfig load(Path root) throws IOException {
+		Properties options = new Properties();
+		try(InputStream is = Files.newInputStream(root.resolve(CONFIG_FILE))){
+			options.load(is);
+		}
+		return new BenchmarkConfig(root, options);
+	}
+	
+	public Path getRoot(){
+		return root;
+	}
+	
+	@Override
+	public Path getGameDataPath(){
+		return root.resolve("GameData");
+	}
+	
+	@Override
+	public Path getModsZipPath(){
+		return root.resolve("mods");
+	}
+	
+	@Override
+	public Path getImageCachePath(){
+		return root.resolve("imageCache");
+	}
+	
+	@Override
+	public Path getReadmeCachePath(){
+		return root.resolve("readmeCache");
+	}
+	
+	@Override
+	public boolean autoCheckForModUpdates(){
+		return Boolean.parseBoolean(options.getProperty(AUTO_CHECK_FOR_MOD_UPDATES));
+	}
+	
+	@Override
+	public int numConcurrentDownloads(){
+		return Integer.parseInt(options.getProperty(NUM_CONCURRENT_DOWNLOADS));
+	}
+	
+	@Override
+	public boolean journalModState(){
+		return Boolean.parseBoolean(options.getProperty(JOURNAL_MOD_STATE));
+	}
+	
+	@Override
+	public long getImageCacheBudgetBytes(){
+		return Long.parseLong(options.getProperty(IMAGE_CACHE_SIZE_MB)) * 1024 * 1024;
+	}
+}
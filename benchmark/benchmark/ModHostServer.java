@@ -0,0 +1,219 @@
+package benchmark;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import aohara.tinkertime.models.ResourceKey;
+import aohara.tinkertime.net.ConnectionFactory;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Local HTTP server which stands in for the mod hosts.
+ * 
+ * Resources are registered under the URL they have on the real host.  The
+ * {@link ConnectionFactory} returned by {@link #createConnectionFactory()}
+ * rewrites every URL to this server, as /scheme/host/path, so the crawlers
+ * and downloads work unchanged, and entirely offline.
+ * 
+ * Every response is delayed by the configured latency, and sent no faster
+ * than the configured bandwidth.  A configurable fraction of the requests
+ * fail with 503.  Single byte ranges are supported.
+ * 
+ * @author Andrew O'Hara
+ */
+public class ModHostServer {
+	
+	private static final Pattern RANGE = Pattern.compile("bytes=(\\d+)-(\\d*)");
+	private static final int CHUNK_SIZE = 8192;
+	
+	private final Map<ResourceKey, Resource> resources = new ConcurrentHashMap<>();
+	private final int latencyMs;
+	private final long bytesPerSecond;
+	private final double errorRate;
+	private final Random random = new Random(0);
+	private final AtomicLong numRequests = new AtomicLong(), numErrors = new AtomicLong(), bytesSent = new AtomicLong();
+	private HttpServer server;
+	private ExecutorService executor;
+	
+	/**
+	 * @param latencyMs delay before each response
+	 * @param bytesPerSecond bandwidth of each response, or 0 for unlimited
+	 * @param errorRate fraction of requests which fail, from 0 to 1
+	 */
+	public ModHostServer(int latencyMs, long bytesPerSecond, double errorRate){
+		this.latencyMs = latencyMs;
+		this.bytesPerSecond = bytesPerSecond;
+		this.errorRate = errorRate;
+	}
+	
+	public void addResource(URL url, String contentType, byte[] body){
+		resources.put(ResourceKey.of(url), new Resource(contentType, body));
+	}
+	
+	public void start() throws IOException {
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		executor = Executors.newCachedThreadPool();
+		server.setExecutor(executor);
+		server.createContext("/", new HttpHandler(){
+			@Override
+			public void handle(HttpExchange exchange) throws IOException {
+				try {
+					serve(exchange);
+				} catch (InterruptedException e){
+					Thread.currentThread().interrupt();
+				} finally {
+					exchange.close();
+				}
+			}
+		});
+		server.start();
+	}
+	
+	public void stop(){
+		server.stop(0);
+		executor.shutdownNow();
+	}
+	
+	public int getPort(){
+		return server.getAddress().getPort();
+	}
+	
+	/**
+	 * Returns a factory which directs every connection to this server.
+	 */
+	public ConnectionFactory createConnectionFactory(){
+		return new ConnectionFactory(){
+			@Override
+			public URLConnection openConnection(URL url) throws IOException {
+				return super.openConnection(toLocalUrl(url));
+			}
+		};
+	}
+	
+	private URL toLocalUrl(URL url) throws MalformedURLException {
+		return new URL("http", "127.0.0.1", getPort(), "/" + url.getProtocol() + "/" + url.getAuthority() + url.getFile());
+	}
+	
+	// -- Serving ---------------------------------------------------------
+	
+	private void serve(HttpExchange exchange) throws IOException, InterruptedException {
+		numRequests.incrementAndGet();
+		Thread.sleep(latencyMs);
+		
+		Resource resource = resources.get(ResourceKey.of(toOriginalUrl(exchange)));
+		if (resource == null){
+			sendError(exchange, 404);
+			return;
+		}
+		
+		boolean failed;
+		synchronized(random){
+			failed = random.nextDouble() < errorRate;
+		}
+		if (failed){
+			numErrors.incrementAndGet();
+			sendError(exchange, 503);
+			return;
+		}
+		
+		// Only a single byte range is supported
+		int start = 0, end = resource.body.length - 1, status = 200;
+		String range = exchange.getRequestHeaders().getFirst("Range");
+		if (range != null){
+			Matcher m = RANGE.matcher(range);
+			if (!m.matches() || Integer.parseInt(m.group(1)) >= resource.body.length){
+				exchange.getResponseHeaders().set("Content-Range", "bytes */" + resource.body.length);
+				sendError(exchange, 416);
+				return;
+			}
+			start = Integer.parseInt(m.group(1));
+			if (!m.group(2).isEmpty()){
+				end = Math.min(end, Integer.parseInt(m.group(2)));
+			}
+			status = 206;
+			exchange.getResponseHeaders().set("Content-Range", String.format("bytes %d-%d/%d", start, end, resource.body.length));
+		}
+		
+		int length = end - start + 1;
+		exchange.getResponseHeaders().set("Content-Type", resource.contentType);
+		exchange.getResponseHeaders().set("Accept-Ranges", "bytes");
+		if (exchange.getRequestMethod().equals("HEAD")){
+			exchange.getResponseHeaders().set("Content-Length", Integer.toString(length));
+			exchange.sendResponseHeaders(status, -1);
+			return;
+		}
+		
+		exchange.sendResponseHeaders(status, length);
+		try(OutputStream os = exchange.getResponseBody()){
+			long startNanos = System.nanoTime();
+			for (int sent = 0; sent < length; ){
+				int chunk = Math.min(CHUNK_SIZE, length - sent);
+				os.write(resource.body, start + sent, chunk);
+				sent += chunk;
+				bytesSent.addAndGet(chunk);
+				throttle(startNanos, sent);
+			}
+		}
+	}
+	
+	private void throttle(long startNanos, long sent) throws InterruptedException {
+		if (bytesPerSecond > 0){
+			long dueMs = sent * 1000 / bytesPerSecond;
+			long elapsedMs = (System.nanoTime() - startNanos) / 1000000;
+			if (dueMs > elapsedMs){
+				Thread.sleep(dueMs - elapsedMs);
+			}
+		}
+	}
+	
+	private static void sendError(HttpExchange exchange, int status) throws IOException {
+		exchange.sendResponseHeaders(status, -1);
+	}
+	
+	private static URL toOriginalUrl(HttpExchange exchange) throws MalformedURLException {
+		// /scheme/authority/path?query
+		String[] parts = exchange.getRequestURI().getRawPath().split("/", 4);
+		String query = exchange.getRequestURI().getRawQuery();
+		return new URL(parts[1] + "://" + parts[2] + "/" + (parts.length > 3 ? parts[3] : "") + (query != null ? "?" + query : ""));
+	}
+	
+	// -- Statistics ------------------------------------------------------
+	
+	public long getNumRequests(){
+		return numRequests.get();
+	}
+	
+	public long getNumErrors(){
+		return numErrors.get();
+	}
+	
+	public long getBytesSent(){
+		return bytesSent.get();
+	}
+	
+	private static class Resource {
+		
+		private final String contentType;
+		private final byte[] body;
+		
+		private Resource(String contentType, byte[] body){
+			this.contentType = contentType;
+			this.body = body;
+		}
+	}
+}
@@ -0,0 +1,191 @@
+package benchmark;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.swing.DefaultListModel;
+import javax.swing.JList;
+import javax.swing.SwingUtilities;
+
+import org.apache.commons.io.FileUtils;
+
+import aohara.common.selectorPanel.SelectorInterface;
+import aohara.tinkertime.StartupTimings;
+import aohara.tinkertime.controllers.ModStateManager;
+import aohara.tinkertime.models.Mod;
+import aohara.tinkertime.models.ModComparator;
+import aohara.tinkertime.views.ModFilterPanel;
+import aohara.tinkertime.views.ModListCellRenderer;
+
+/**
+ * Headless benchmark of the startup path, from loading the config to the
+ * first render of the mod list.
+ * 
+ * A synthetic mod state file with the given number of mods, and a cached zip
+ * for each of them, is generated once.  Each iteration then loads the
+ * config from its file and starts a fresh state manager, with the
+ * SelectorPanel replaced by a selector which only collects its elements.  The first render paints the
+ * visible rows of a list using the real cell renderer into an offscreen
+ * image, so no display is needed.
+ * 
+ * Usage: StartupBenchmark [numMods] [iterations]
+ * 
+ * @author Andrew O'Hara
+ */
+public class StartupBenchmark {
+	
+	private static final int WIDTH = 500, HEIGHT = 600;
+	
+	public static void main(String[] args) throws Exception {
+		int numMods = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+		int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+		
+		BenchmarkConfig dataset = BenchmarkConfig.createTemp();
+		try {
+			List<Mod> mods = SyntheticMods.createMods(numMods);
+			SyntheticMods.writeModsList(dataset, mods);
+			SyntheticMods.writeZips(dataset, mods);
+			System.out.println(String.format("Generated %d mods in %s", numMods, dataset.getRoot()));
+			
+			Map<String, List<Long>> results = new LinkedHashMap<>();
+			for (int i=0; i<iterations; i++){
+				StartupTimings timings = runOnce(dataset.getRoot(), numMods);
+				System.out.println(String.format("Iteration %d: %s", i + 1, timings));
+				
+				// Time since JVM start only means anything for the first iteration
+				for (Map.Entry<String, Long> entry : timings.getTimings().entrySet()){
+					if (entry.getKey().equals(StartupTimings.JVM_START)){
+						continue;
+					} else if (!results.containsKey(entry.getKey())){
+						results.put(entry.getKey(), new ArrayList<Long>());
+					}
+					results.get(entry.getKey()).add(entry.getValue());
+				}
+			}
+			printSummary(numMods, results);
+		} finally {
+			FileUtils.deleteDirectory(dataset.getRoot().toFile());
+		}
+		System.exit(0);
+	}
+	
+	/**
+	 * Runs the startup phases once, in the same order as the application.
+	 */
+	private static StartupTimings runOnce(Path root, int numMods) throws IOException, InterruptedException, InvocationTargetException {
+		final StartupTimings timings = new StartupTimings();
+		BenchmarkConfig config = BenchmarkConfig.load(root);
+		timings.phaseComplete("Load Config");
+		
+		final ModStateManager sm = new ModStateManager(config);
+		timings.phaseComplete("Create Controllers");
+		
+		final CollectingSelector selector = new CollectingSelector();
+		final ModListCellRenderer[] renderer = new ModListCellRenderer[1];
+		SwingUtilities.invokeAndWait(new Runnable(){
+			@Override
+			public void run() {
+				renderer[0] = new ModListCellRenderer(sm);
+				sm.getChangeBus().addListener(renderer[0]);
+				sm.getChangeBus().addListener(new ModFilterPanel(selector));
+			}
+		});
+		timings.phaseComplete("Create Views");
+		
+		sm.getMods();
+		timings.phaseComplete("getMods");
+		
+		SwingUtilities.invokeAndWait(new Runnable(){
+			@Override
+			public void run() {
+				sm.getChangeBus().flush();
+			}
+		});
+		timings.phaseComplete("Populate Listeners");
+		
+		SwingUtilities.invokeAndWait(new Runnable(){
+			@Override
+			public void run() {
+				renderFirstFrame(selector.getSortedElements(), renderer[0]);
+			}
+		});
+		timings.phaseComplete("First Render");
+		
+		// Every mod, plus the defaults, must have reached the selector
+		if (selector.elements.size() < numMods){
+			throw new IllegalStateException(String.format("Only %d of %d mods were listed", selector.elements.size(), numMods));
+		}
+		return timings;
+	}
+	
+	private static void renderFirstFrame(List<Mod> mods, ModListCellRenderer renderer){
+		DefaultListModel<Mod> model = new DefaultListModel<>();
+		for (Mod mod : mods){
+			model.addElement(mod);
+		}
+		JList<Mod> list = new JList<>(model);
+		list.setCellRenderer(renderer);
+		list.setSize(WIDTH, HEIGHT);
+		list.doLayout();
+		
+		BufferedImage image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_ARGB);
+		Graphics2D g = image.createGraphics();
+		try {
+			g.setClip(0, 0, WIDTH, HEIGHT);
+			list.paint(g);
+		} finally {
+			g.dispose();
+		}
+	}
+	
+	private static void printSummary(int numMods, Map<String, List<Long>> results){
+		System.out.println(String.format("%nStartup with %d mods, over %d iterations:", numMods, results.values().iterator().next().size()));
+		System.out.println(String.format("  %-24s %8s %8s %8s", "Phase", "first", "median", "max"));
+		for (Map.Entry<String, List<Long>> entry : results.entrySet()){
+			List<Long> values = entry.getValue();
+			long first = values.get(0);
+			Collections.sort(values);
+			System.out.println(String.format(
+				"  %-24s %5d ms %5d ms %5d ms", entry.getKey(), first,
+				values.get(values.size() / 2), values.get(values.size() - 1)
+			));
+		}
+	}
+	
+	/**
+	 * Stands in for the SelectorPanel, collecting the elements it is given.
+	 */
+	private static class CollectingSelector implements SelectorInterface<Mod> {
+		
+		private final List<Mod> elements = new ArrayList<>();
+		
+		@Override
+		public void clear() {
+			elements.clear();
+		}
+		
+		@Override
+		public void addElement(Mod element) {
+			elements.add(element);
+		}
+		
+		@Override
+		public void removeElement(Mod element) {
+			elements.remove(element);
+		}
+		
+		private List<Mod> getSortedElements(){
+			List<Mod> sorted = new ArrayList<>(elements);
+			Collections.sort(sorted, new ModComparator());
+			return sorted;
+		}
+	}
+}
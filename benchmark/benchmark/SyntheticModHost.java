@@ -0,0 +1,129 @@
+package benchmark;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+
+import javax.imageio.ImageIO;
+
+import org.apache.commons.io.IOUtils;
+
+import aohara.tinkertime.crawlers.Constants;
+import aohara.tinkertime.models.DefaultMods;
+import aohara.tinkertime.models.Mod;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+/**
+ * Serves the pages, downloads, and images of synthetic mods from a
+ * {@link ModHostServer}.
+ * 
+ * The pages are the Curse, GitHub, KerbalStuff, and Jenkins fixtures in
+ * testRes, with the identifying parts replaced by those of each mod, so that
+ * every mod has its own page and artifact.
+ * 
+ * @author Andrew O'Hara
+ */
+public class SyntheticModHost {
+	
+	private static final String HTML = "text/html; charset=UTF-8", JSON = "application/json", ZIP = "application/zip", PNG = "image/png";
+	
+	private final ModHostServer server;
+	private final byte[] artifact, image;
+	
+	/**
+	 * @param artifactEntries number of entries in each mod's zip
+	 */
+	public SyntheticModHost(ModHostServer server, int artifactEntries) throws IOException {
+		this.server = server;
+		
+		Path zip = Files.createTempFile("artifact", ".zip");
+		try {
+			SyntheticMods.writeZip(zip, "Synthetic", artifactEntries, 2048);
+			artifact = Files.readAllBytes(zip);
+		} finally {
+			Files.delete(zip);
+		}
+		
+		ByteArrayOutputStream png = new ByteArrayOutputStream();
+		ImageIO.write(new BufferedImage(64, 64, BufferedImage.TYPE_INT_RGB), "png", png);
+		image = png.toByteArray();
+	}
+	
+	public int getArtifactSize(){
+		return artifact.length;
+	}
+	
+	/**
+	 * Serves the mods, and the Module Manager build which is always listed.
+	 */
+	public void addMods(Collection<Mod> mods) throws IOException {
+		for (Mod mod : mods){
+			String host = mod.getPageKey().getHost();
+			if (mod.getPageKey().isOnHost("curse.com")){
+				addCurseMod(mod);
+			} else if (mod.getPageKey().isOnHost("github.com")){
+				addGithubMod(mod);
+			} else if (mod.getPageKey().isOnHost("kerbalstuff.com")){
+				addKerbalStuffMod(mod);
+			} else {
+				throw new IllegalArgumentException("No fixture for " + host);
+			}
+		}
+		
+		for (Mod mod : DefaultMods.getDefaults()){
+			server.addResource(mod.getPageUrl(), JSON, readFixture("json/moduleManagerPage1.json"));
+		}
+		server.addResource(new URL(Constants.MODULE_MANAGER_ARTIFACT_DL_URL + "ModuleManager.2.2.0.dll"), ZIP, artifact);
+	}
+	
+	private void addCurseMod(Mod mod) throws IOException {
+		String page = new String(readFixture("html/220221-mechjeb.html"), "UTF-8")
+			.replace("220221-mechjeb", mod.id)
+			.replace("MechJeb2-2.2.1.0", mod.id + "-2")
+			.replace("18b6dda728d709420f4b8959464e32ba", mod.id);
+		server.addResource(mod.getPageUrl(), HTML, page.getBytes("UTF-8"));
+		
+		URL artifactUrl = new URL(String.format("http://addons.curse.cursecdn.com/files/%s/%s-2.zip", mod.id, mod.id));
+		String downloadPage = String.format("<html><body><a class=\"download-link\" data-href=\"%s\">Download</a></body></html>", artifactUrl);
+		server.addResource(new URL(mod.getPageUrl() + "/download"), HTML, downloadPage.getBytes("UTF-8"));
+		server.addResource(artifactUrl, ZIP, artifact);
+		server.addResource(new URL("http://media-curse.cursecdn.com/attachments/thumbnails/110/952/190/130/" + mod.id + ".png"), PNG, image);
+	}
+	
+	private void addGithubMod(Mod mod) throws IOException {
+		String page = new String(readFixture("html/ProceduralFairings.html"), "UTF-8")
+			.replace("e-dog/ProceduralFairings", "synthetic/" + mod.id)
+			.replace("ProcFairings_3.09", mod.id + "-2");
+		server.addResource(new URL(mod.getPageUrl() + "/releases"), HTML, page.getBytes("UTF-8"));
+		server.addResource(new URL(String.format("%s/releases/download/v3.09/%s-2.zip", mod.getPageUrl(), mod.id)), ZIP, artifact);
+	}
+	
+	private void addKerbalStuffMod(Mod mod) throws IOException {
+		String downloadPath = String.format("/mod/%s/Synthetic/download/2", mod.id);
+		JsonObject json = new JsonParser().parse(new String(readFixture("json/153.json"), "UTF-8")).getAsJsonObject();
+		json.addProperty("id", Integer.parseInt(mod.id));
+		json.addProperty("name", mod.getName());
+		json.addProperty("background", "/" + mod.id + ".png");
+		json.get("versions").getAsJsonArray().get(0).getAsJsonObject().addProperty("download_path", downloadPath);
+		
+		server.addResource(new URL("https://kerbalstuff.com/api/mod/" + mod.id), JSON, json.toString().getBytes("UTF-8"));
+		server.addResource(new URL("https://kerbalstuff.com" + downloadPath), ZIP, artifact);
+		server.addResource(new URL("https://cdn.mediacru.sh/" + mod.id + ".png"), PNG, image);
+	}
+	
+	private static byte[] readFixture(String resourceName) throws IOException {
+		try(InputStream is = SyntheticModHost.class.getClassLoader().getResourceAsStream(resourceName)){
+			if (is == null){
+				throw new IOException("Missing fixture " + resourceName);
+			}
+			return IOUtils.toByteArray(is);
+		}
+	}
+}
@@ -0,0 +1,100 @@
+package benchmark;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.net.URL;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import aohara.tinkertime.TinkerConfig;
+import aohara.tinkertime.models.Mod;
+import aohara.tinkertime.models.ModTypeAdapter;
+
+import com.google.gson.reflect.TypeToken;
+
+/**
+ * Generates synthetic mods, their mod state file, and their cached zips.
+ * 
+ * The mods are deterministic for a given count, so that results are
+ * comparable between runs.  They were all last updated before the fixture
+ * pages in testRes, so updates are available for every one of them.
+ * 
+ * @author Andrew O'Hara
+ */
+public class SyntheticMods {
+	
+	public static List<Mod> createMods(int numMods) throws IOException {
+		List<Mod> mods = new ArrayList<>(numMods);
+		for (int i=0; i<numMods; i++){
+			Mod mod = new Mod(
+				getId(i), "Synthetic Mod " + i, getId(i) + ".zip", "Creator " + (i % 50),
+				null, getPageUrl(i), new Date(1262304000000L + i * 60000L), "0.90"
+			);
+			mod.setEnabled(i % 3 == 0);
+			mods.add(mod);
+		}
+		return mods;
+	}
+	
+	/**
+	 * The mods are spread over Curse, GitHub, and KerbalStuff, with ids which
+	 * match the ones their crawlers generate.
+	 */
+	private static String getId(int i){
+		return i % 3 == 2 ? Integer.toString(i) : String.format("mod-%05d", i);
+	}
+	
+	private static URL getPageUrl(int i) throws IOException {
+		switch (i % 3){
+		case 0: return new URL("http://www.curse.com/ksp-mods/kerbal/" + getId(i));
+		case 1: return new URL("https://github.com/synthetic/" + getId(i));
+		default: return new URL("https://kerbalstuff.com/mod/" + getId(i) + "/Synthetic-Mod-" + i);
+		}
+	}
+	
+	/**
+	 * Writes the mods to the mod state file of the config.
+	 */
+	public static void writeModsList(TinkerConfig config, List<Mod> mods) throws IOException {
+		try(Writer writer = Files.newBufferedWriter(config.getModsListPath(), Charset.defaultCharset())){
+			ModTypeAdapter.gsonBuilder().create().toJson(mods, new TypeToken<Set<Mod>>() {}.getType(), writer);
+		}
+	}
+	
+	/**
+	 * Writes a small zip for each mod to the mods folder of the config, with
+	 * a single module and a readme.
+	 */
+	public static void writeZips(TinkerConfig config, List<Mod> mods) throws IOException {
+		for (Mod mod : mods){
+			writeZip(mod.getCachedZipPath(config), mod.id, 1, 64);
+		}
+	}
+	
+	/**
+	 * Writes a zip with the given number of entries in one module, in
+	 * folders of 100 entries.  The entries are filled with random data, so
+	 * they compress about as poorly as real mod assets.
+	 */
+	public static void writeZip(Path zipPath, String moduleName, int numEntries, int entryBytes) throws IOException {
+		Random random = new Random(numEntries);
+		byte[] data = new byte[entryBytes];
+		try(ZipOutputStream zos = new ZipOutputStream(Files.newOutputStream(zipPath))){
+			for (int i=0; i<numEntries; i++){
+				zos.putNextEntry(new ZipEntry(String.format("GameData/%s/Parts/%d/part%d.cfg", moduleName, i / 100, i)));
+				random.nextBytes(data);
+				zos.write(data);
+			}
+			zos.putNextEntry(new ZipEntry(moduleName + "-README.txt"));
+			zos.write(("Readme for " + moduleName).getBytes("UTF-8"));
+		}
+	}
+}
@@ -0,0 +1,258 @@
+package benchmark;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.commons.io.FileUtils;
+
+import aohara.common.workflows.ConflictResolver;
+import aohara.common.workflows.ProgressPanel;
+import aohara.tinkertime.content.ThumbnailCache;
+import aohara.tinkertime.controllers.ModManager;
+import aohara.tinkertime.controllers.ModStateManager;
+import aohara.tinkertime.models.Mod;
+import aohara.tinkertime.net.ConnectionFactory;
+import aohara.tinkertime.net.Histogram;
+import aohara.tinkertime.net.HostStats;
+import aohara.tinkertime.net.HostStats.Phase;
+import aohara.tinkertime.workflows.WorkflowMetrics;
+import aohara.tinkertime.workflows.WorkflowMetrics.TaskTotals;
+
+/**
+ * Offline load test of update sweeps against a local {@link ModHostServer}.
+ * 
+ * N synthetic mods are served from the fixture pages, with the configured
+ * latency, bandwidth, and error rate.  The harness then runs
+ * checkForModUpdates and updateMods through a real ModManager, and reports
+ * the mods per second, the bytes served, and the latency distribution of
+ * the workflows.
+ * 
+ * The time and bytes of each type of task are reported from the
+ * {@link WorkflowMetrics}, which are exported for each sweep as
+ * <sweep>-metrics.json if a metrics directory is given.  The HTTP requests
+ * are broken down by host into DNS, connect, TLS, first byte, and transfer
+ * times.  The requests keep the host of the real mod page, although they are
+ * all served by the local server.
+ * 
+ * Usage: UpdateSweepHarness [numMods] [latencyMs] [bandwidthKBps] [errorRate] [metricsDir]
+ * A bandwidth of 0 is unlimited.
+ * 
+ * @author Andrew O'Hara
+ */
+public class UpdateSweepHarness {
+	
+	private static final ConflictResolver OVERWRITE = new ConflictResolver(){
+		@Override
+		public Resolution getResolution(Path conflictPath) {
+			return Resolution.Overwrite;
+		}
+	};
+	
+	public static void main(String[] args) throws Exception {
+		int numMods = args.length > 0 ? Integer.parseInt(args[0]) : 300;
+		int latencyMs = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+		long bytesPerSecond = args.length > 2 ? Long.parseLong(args[2]) * 1024 : 0;
+		double errorRate = args.length > 3 ? Double.parseDouble(args[3]) : 0;
+		Path metricsDir = args.length > 4 ? Paths.get(args[4]) : null;
+		
+		BenchmarkConfig config = BenchmarkConfig.createTemp();
+		ModHostServer server = new ModHostServer(latencyMs, bytesPerSecond, errorRate);
+		try {
+			List<Mod> mods = SyntheticMods.createMods(numMods);
+			for (Mod mod : mods){
+				mod.setEnabled(false);
+			}
+			SyntheticMods.writeModsList(config, mods);
+			
+			SyntheticModHost host = new SyntheticModHost(server, 50);
+			host.addMods(mods);
+			server.start();
+			ConnectionFactory.setDefault(server.createConnectionFactory());
+			System.out.println(String.format(
+				"Serving %d mods (%d KB each) on port %d, latency %d ms, bandwidth %s, error rate %.2f",
+				numMods, host.getArtifactSize() / 1024, server.getPort(), latencyMs,
+				bytesPerSecond > 0 ? bytesPerSecond / 1024 + " KB/s" : "unlimited", errorRate
+			));
+			
+			ModStateManager sm = new ModStateManager(config);
+			TimingExecutor downloads = new TimingExecutor(config.numConcurrentDownloads());
+			ExecutorService enablers = Executors.newFixedThreadPool(2);
+			ModManager mm = new ModManager(
+				sm, config, new ThumbnailCache(config.getImageCachePath(), config.getImageCacheBudgetBytes()),
+				new ProgressPanel(), OVERWRITE, downloads, enablers
+			);
+			
+			// Check for updates
+			Sweep check = new Sweep("checkForModUpdates", server, downloads);
+			try {
+				mm.checkForModUpdates();
+			} catch (Exception e){
+				System.out.println("Some checks could not be queued: " + e);
+			}
+			downloads.awaitIdle();
+			int numUpdateable = 0;
+			for (Mod mod : sm.getMods()){
+				if (mod.isUpdateAvailable()){
+					numUpdateable++;
+				}
+			}
+			check.report(sm.getMods().size(), numUpdateable, metricsDir);
+			
+			// Download every mod
+			Sweep update = new Sweep("updateMods", server, downloads);
+			mm.updateMods();
+			downloads.awaitIdle();
+			sm.flush();
+			int numDownloaded = 0;
+			for (Mod mod : sm.getMods()){
+				if (sm.isDownloaded(mod)){
+					numDownloaded++;
+				}
+			}
+			update.report(sm.getMods().size(), numDownloaded, metricsDir);
+			
+			downloads.shutdown();
+			enablers.shutdown();
+		} finally {
+			server.stop();
+			FileUtils.deleteDirectory(config.getRoot().toFile());
+		}
+		System.exit(0);
+	}
+	
+	/**
+	 * Measures one sweep, from its creation until it is reported.
+	 */
+	private static class Sweep {
+		
+		private final String name;
+		private final ModHostServer server;
+		private final TimingExecutor executor;
+		private final long startNanos, startRequests, startErrors, startBytes;
+		
+		private Sweep(String name, ModHostServer server, TimingExecutor executor){
+			this.name = name;
+			this.server = server;
+			this.executor = executor;
+			executor.reset();
+			WorkflowMetrics.getSession().clear();
+			ConnectionFactory.STATS.reset();
+			startRequests = server.getNumRequests();
+			startErrors = server.getNumErrors();
+			startBytes = server.getBytesSent();
+			startNanos = System.nanoTime();
+		}
+		
+		private void report(int numMods, int numSucceeded, Path metricsDir) throws IOException {
+			double elapsedSec = (System.nanoTime() - startNanos) / 1e9;
+			List<Long> latencies = executor.getLatenciesMs();
+			Collections.sort(latencies);
+			
+			System.out.println(String.format("%n%s: %d mods in %.2f s, %.1f mods/s, %d succeeded",
+				name, numMods, elapsedSec, numMods / elapsedSec, numSucceeded));
+			System.out.println(String.format("  requests %d, injected errors %d, served %.1f MB",
+				server.getNumRequests() - startRequests, server.getNumErrors() - startErrors,
+				(server.getBytesSent() - startBytes) / (1024.0 * 1024)));
+			System.out.println(String.format("  workflow latency (queued to done): p50 %d ms, p95 %d ms, p99 %d ms, max %d ms",
+				percentile(latencies, 0.5), percentile(latencies, 0.95), percentile(latencies, 0.99), percentile(latencies, 1)));
+			
+			System.out.println(String.format("  %-30s %6s %6s %10s %10s %10s", "task", "count", "failed", "total ms", "max ms", "KB"));
+			for (Map.Entry<String, TaskTotals> entry : WorkflowMetrics.getSession().getTaskTotals().entrySet()){
+				TaskTotals totals = entry.getValue();
+				System.out.println(String.format("  %-30s %6d %6d %10d %10d %10d",
+					entry.getKey(), totals.count, totals.failures, totals.runMs, totals.maxRunMs, totals.bytes / 1024));
+			}
+			
+			System.out.print(String.format("  %-30s %6s %6s", "host", "reqs", "failed"));
+			for (Phase phase : Phase.values()){
+				System.out.print(String.format(" %16s", phase + " p50/95"));
+			}
+			System.out.println();
+			for (HostStats host : ConnectionFactory.STATS.getHosts()){
+				System.out.print(String.format("  %-30s %6d %6d", host.host, host.getNumRequests(), host.getNumFailed()));
+				for (Phase phase : Phase.values()){
+					Histogram histogram = host.getHistogram(phase);
+					System.out.print(String.format(" %16s", histogram.getPercentileMs(0.5) + "/" + histogram.getPercentileMs(0.95)));
+				}
+				System.out.println("  " + host.getStatuses());
+			}
+			
+			if (metricsDir != null){
+				WorkflowMetrics.getSession().exportJson(metricsDir.resolve(name + "-metrics.json"));
+			}
+		}
+		
+		private static long percentile(List<Long> sorted, double p){
+			if (sorted.isEmpty()){
+				return 0;
+			}
+			return sorted.get((int) Math.min(sorted.size() - 1, Math.ceil(p * sorted.size()) - 1));
+		}
+	}
+	
+	/**
+	 * Executor which records how long each task took from submission to
+	 * completion, and can wait for all of its tasks to finish.
+	 */
+	private static class TimingExecutor implements Executor {
+		
+		private final ExecutorService executor;
+		private final List<Long> latenciesMs = new ArrayList<>();
+		private int numPending = 0;
+		
+		private TimingExecutor(int numThreads){
+			executor = Executors.newFixedThreadPool(numThreads);
+		}
+		
+		@Override
+		public void execute(final Runnable task) {
+			final long submitted = System.nanoTime();
+			synchronized(this){
+				numPending++;
+			}
+			executor.execute(new Runnable(){
+				@Override
+				public void run() {
+					try {
+						task.run();
+					} finally {
+						complete((System.nanoTime() - submitted) / 1000000);
+					}
+				}
+			});
+		}
+		
+		private synchronized void complete(long latencyMs){
+			latenciesMs.add(latencyMs);
+			if (--numPending == 0){
+				notifyAll();
+			}
+		}
+		
+		private synchronized void awaitIdle() throws InterruptedException {
+			while (numPending > 0){
+				wait();
+			}
+		}
+		
+		private synchronized void reset(){
+			latenciesMs.clear();
+		}
+		
+		private synchronized List<Long> getLatenciesMs(){
+			return new ArrayList<>(latenciesMs);
+		}
+		
+		private void shutdown(){
+			executor.shutdown();
+		}
+	}
+}
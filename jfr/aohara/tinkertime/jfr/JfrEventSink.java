@@ -0,0 +1,95 @@
+package aohara.tinkertime.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import aohara.tinkertime.management.FlightEvents;
+
+/**
+ * Sink which emits the {@link FlightEvents} as Java Flight Recorder events.
+ * 
+ * Loaded reflectively by FlightEvents, so it is only used on a JVM which
+ * supports the jdk.jfr API.
+ * 
+ * @author Andrew O'Hara
+ */
+public class JfrEventSink implements FlightEvents.Sink {
+	
+	@Override
+	public FlightEvents.Event begin(FlightEvents.Type type) {
+		ModEvent event;
+		switch(type){
+		case PageFetch: event = new PageFetch(); break;
+		case CrawlExtraction: event = new CrawlExtraction(); break;
+		case ArtifactDownload: event = new ArtifactDownload(); break;
+		case ArchiveInspection: event = new ArchiveInspection(); break;
+		case Extraction: event = new Extraction(); break;
+		case StateSave: event = new StateSave(); break;
+		case UiUpdate: event = new UiUpdate(); break;
+		default: throw new IllegalArgumentException(type.toString());
+		}
+		event.begin();
+		return event;
+	}
+	
+	@Category("TinkerTime")
+	@StackTrace(false)
+	public static abstract class ModEvent extends jdk.jfr.Event implements FlightEvents.Event {
+		
+		@Label("Mod Id")
+		String modId;
+		
+		@Label("Host")
+		String host;
+		
+		@Label("Bytes")
+		@DataAmount
+		long bytes;
+		
+		@Override
+		public void commit(String modId, String host, long bytes) {
+			this.modId = modId;
+			this.host = host;
+			this.bytes = bytes;
+			commit();
+		}
+	}
+	
+	@Name("aohara.tinkertime.PageFetch")
+	@Label("Page Fetch")
+	@Description("A mod page was downloaded and parsed")
+	public static class PageFetch extends ModEvent {}
+	
+	@Name("aohara.tinkertime.CrawlExtraction")
+	@Label("Crawl Extraction")
+	@Description("The mod's details were extracted from its page")
+	public static class CrawlExtraction extends ModEvent {}
+	
+	@Name("aohara.tinkertime.ArtifactDownload")
+	@Label("Artifact Download")
+	@Description("A mod's file or image was downloaded")
+	public static class ArtifactDownload extends ModEvent {}
+	
+	@Name("aohara.tinkertime.ArchiveInspection")
+	@Label("Archive Inspection")
+	@Description("The modules of a mod's archive were listed")
+	public static class ArchiveInspection extends ModEvent {}
+	
+	@Name("aohara.tinkertime.Extraction")
+	@Label("Extraction")
+	@Description("A mod's modules were extracted to GameData")
+	public static class Extraction extends ModEvent {}
+	
+	@Name("aohara.tinkertime.StateSave")
+	@Label("State Save")
+	@Description("The mod state was saved")
+	public static class StateSave extends ModEvent {}
+	
+	@Name("aohara.tinkertime.UiUpdate")
+	@Label("UI Update")
+	@Description("A batch of mod changes was delivered on the Event Dispatch Thread")
+	public static class UiUpdate extends ModEvent {}
+}
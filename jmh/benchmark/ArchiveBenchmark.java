@@ -0,0 +1,181 @@
+package benchmark;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import aohara.common.workflows.ConflictResolver;
+import aohara.common.workflows.Workflow;
+import aohara.tinkertime.controllers.ModStateManager;
+import aohara.tinkertime.models.Mod;
+import aohara.tinkertime.models.ModStructure;
+import aohara.tinkertime.workflows.ModWorkflowBuilder;
+
+/**
+ * Measures the archive work done when mods are enabled and disabled:
+ * inspecting the structure of an archive, finding its readme, scanning the
+ * enabled mods for shared modules, and extracting the modules into GameData.
+ * 
+ * The archives are the fixtures in testRes/zips, and generated archives of
+ * 10 to 50,000 entries.
+ * 
+ * @author Andrew O'Hara
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ArchiveBenchmark {
+	
+	private static final String GENERATED = "generated-";
+	
+	private static final ConflictResolver OVERWRITE = new ConflictResolver(){
+		@Override
+		public Resolution getResolution(Path conflictPath) {
+			return Resolution.Overwrite;
+		}
+	};
+	
+	@State(Scope.Benchmark)
+	public static class ArchiveState {
+		
+		@Param({
+			"Kerbal Alarm Clock", "Kerbal Engineer Redux", "HotRockets! Particle FX Replacement", "NEAR",
+			GENERATED + "10", GENERATED + "1000", GENERATED + "10000", GENERATED + "50000"
+		})
+		public String archive;
+		
+		private BenchmarkConfig config;
+		private ModStateManager sm;
+		private Mod mod;
+		private Path zipPath;
+		
+		@Setup
+		public void setup() throws IOException, URISyntaxException {
+			config = BenchmarkConfig.createTemp();
+			sm = new ModStateManager(config);
+			mod = new Mod("archive", archive, "archive.zip", "Creator", null, null, new Date(), "0.90");
+			zipPath = mod.getCachedZipPath(config);
+			
+			if (archive.startsWith(GENERATED)){
+				int numEntries = Integer.parseInt(archive.substring(GENERATED.length()));
+				SyntheticMods.writeZip(zipPath, "Generated", numEntries, 512);
+			} else {
+				Path fixture = Paths.get(getClass().getClassLoader().getResource("zips/" + archive + ".zip").toURI());
+				Files.copy(fixture, zipPath);
+			}
+		}
+		
+		@TearDown
+		public void tearDown() throws IOException {
+			sm.flush();
+			FileUtils.deleteDirectory(config.getRoot().toFile());
+		}
+	}
+	
+	/**
+	 * Empties GameData before each extraction.  Extraction is measured with
+	 * single shots, so this runs before every one of them.
+	 */
+	@State(Scope.Benchmark)
+	public static class GameDataState {
+		
+		@Setup(Level.Iteration)
+		public void cleanGameData(ArchiveState state) throws IOException {
+			FileUtils.cleanDirectory(state.config.getGameDataPath().toFile());
+		}
+	}
+	
+	/**
+	 * A mod list where every mod is enabled, and has an archive.
+	 */
+	@State(Scope.Benchmark)
+	public static class EnabledModsState {
+		
+		@Param({"10", "100", "500"})
+		public int numEnabledMods;
+		
+		private BenchmarkConfig config;
+		private ModStateManager sm;
+		private Mod target;
+		
+		@Setup
+		public void setup() throws IOException {
+			config = BenchmarkConfig.createTemp();
+			List<Mod> mods = SyntheticMods.createMods(numEnabledMods);
+			for (Mod mod : mods){
+				mod.setEnabled(true);
+			}
+			SyntheticMods.writeModsList(config, mods);
+			SyntheticMods.writeZips(config, mods);
+			
+			sm = new ModStateManager(config);
+			target = sm.getRegistry().getById(mods.get(0).id);
+		}
+		
+		@TearDown
+		public void tearDown() throws IOException {
+			FileUtils.deleteDirectory(config.getRoot().toFile());
+		}
+	}
+	
+	@Benchmark
+	public ModStructure inspectArchive(ArchiveState state) throws IOException {
+		return ModStructure.inspectArchive(state.zipPath);
+	}
+	
+	@Benchmark
+	public String getReadmeText(ArchiveState state){
+		return ModStructure.getReadmeText(state.config, state.mod);
+	}
+	
+	/**
+	 * Plans disabling a mod, which inspects the archive of every enabled mod
+	 * to find out whether its modules are dependencies of another mod.
+	 */
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	public ModWorkflowBuilder dependencyScan(EnabledModsState state) throws IOException {
+		ModWorkflowBuilder builder = new ModWorkflowBuilder("Disabling");
+		builder.disableMod(state.target, state.config, state.sm);
+		return builder;
+	}
+	
+	/**
+	 * Enables the mod with the same workflow the ModManager runs, extracting
+	 * every module with an UnzipTask.
+	 */
+	@Benchmark
+	@BenchmarkMode(Mode.SingleShotTime)
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	@Warmup(iterations = 5)
+	@Measurement(iterations = 20)
+	public Workflow extract(ArchiveState state, GameDataState gameData) throws IOException {
+		ModWorkflowBuilder builder = new ModWorkflowBuilder("Enabling");
+		builder.enableMod(state.mod, state.config, state.sm, OVERWRITE);
+		Workflow workflow = builder.buildWorkflow();
+		workflow.run();
+		return workflow;
+	}
+}
@@ -0,0 +1,110 @@
+package benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.IOUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import aohara.tinkertime.crawlers.Crawler;
+import aohara.tinkertime.crawlers.CrawlerFactory.UnsupportedHostException;
+
+/**
+ * Measures the throughput of crawling each fixture page end to end, the same
+ * way a mod is crawled when it is added or updated, and of only parsing the
+ * page.  The pages are held in memory, so no I/O is measured.
+ * 
+ * Run with the gc profiler (as the jmh Gradle task does) to report the bytes
+ * allocated per crawl, as gc.alloc.rate.norm.
+ * 
+ * @author Andrew O'Hara
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CrawlerBenchmark {
+	
+	public static enum Fixture {
+		CURSE_MECHJEB("http://www.curse.com/ksp-mods/kerbal/220221-mechjeb", "html/220221-mechjeb.html", false),
+		CURSE_ENGINEER("http://www.curse.com/ksp-mods/kerbal/220285-kerbal-engineer-redux", "html/220285-kerbal-engineer-redux.html", false),
+		CURSE_HOTROCKETS("http://www.curse.com/ksp-mods/kerbal/220207-hotrockets-particle-fx-replacement", "html/220207-hotrockets-particle-fx-replacement.html", false),
+		GITHUB_ALARM_CLOCK("https://github.com/TriggerAu/KerbalAlarmClock", "html/KerbalAlarmClock.html", false),
+		GITHUB_FAIRINGS("https://github.com/e-dog/ProceduralFairings", "html/ProceduralFairings.html", false),
+		KERBALSTUFF_RADIAL_ENGINES("https://kerbalstuff.com/api/mod/153", "json/153.json", true),
+		KERBALSTUFF_TIME_CONTROL("https://kerbalstuff.com/api/mod/21", "json/21.json", true),
+		JENKINS_MODULE_MANAGER("https://ksp.sarbian.com/jenkins/job/ModuleManager/lastSuccessfulBuild/api/json", "json/moduleManagerPage1.json", true);
+		
+		private final String url, resourceName;
+		private final boolean json;
+		
+		private Fixture(String url, String resourceName, boolean json){
+			this.url = url;
+			this.resourceName = resourceName;
+			this.json = json;
+		}
+	}
+	
+	@Param
+	public Fixture fixture;
+	
+	private FixtureCrawlerFactory factory;
+	private URL url;
+	
+	@Setup
+	public void setup() throws IOException, UnsupportedHostException {
+		try(InputStream is = getClass().getClassLoader().getResourceAsStream(fixture.resourceName)){
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			IOUtils.copy(is, bytes);
+			factory = new FixtureCrawlerFactory(bytes.toByteArray());
+		}
+		url = new URL(fixture.url);
+		
+		// Fail fast if the fixture can no longer be crawled
+		Crawler<?> crawler = factory.getCrawler(url);
+		if (crawler.getNewestFileName() == null){
+			throw new IllegalStateException("Could not crawl " + fixture);
+		}
+	}
+	
+	/**
+	 * Crawls the page for everything needed to create the mod.  The download
+	 * link is not crawled, since it is on a separate page for Curse mods.
+	 */
+	@Benchmark
+	public void crawl(Blackhole bh) throws IOException, UnsupportedHostException {
+		Crawler<?> crawler = factory.getCrawler(url);
+		bh.consume(crawler.isSuccesful());
+		bh.consume(crawler.generateId());
+		bh.consume(crawler.getName());
+		bh.consume(crawler.getNewestFileName());
+		bh.consume(crawler.getCreator());
+		bh.consume(crawler.getImageUrl());
+		bh.consume(crawler.getUpdatedOn());
+		bh.consume(crawler.getSupportedVersion());
+	}
+	
+	/**
+	 * Only parses the page, to separate the parsing cost from the extraction cost.
+	 */
+	@Benchmark
+	public Object parse() throws IOException {
+		return fixture.json ? factory.parseJson() : factory.parseHtml(url);
+	}
+}
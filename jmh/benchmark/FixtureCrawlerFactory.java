@@ -0,0 +1,80 @@
+package benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.net.URL;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+
+import aohara.tinkertime.crawlers.Crawler;
+import aohara.tinkertime.crawlers.CrawlerFactory;
+import aohara.tinkertime.crawlers.pageLoaders.PageLoader;
+import aohara.tinkertime.models.ResourceKey;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+/**
+ * CrawlerFactory whose loaders parse a fixture held in memory, instead of
+ * fetching the page.  Like the real loaders, each loader caches the pages it
+ * has parsed, so a crawl parses its page once.
+ * 
+ * @author Andrew O'Hara
+ */
+public class FixtureCrawlerFactory extends CrawlerFactory {
+	
+	private final byte[] fixture;
+	
+	public FixtureCrawlerFactory(byte[] fixture){
+		this.fixture = fixture;
+	}
+	
+	@Override
+	protected PageLoader<Document> createHtmlLoader(){
+		return new PageLoader<Document>(){
+			
+			private final Map<ResourceKey, Document> cache = new HashMap<>();
+			
+			@Override
+			public Document getPage(Crawler<Document> crawler, URL url) throws IOException {
+				ResourceKey key = ResourceKey.of(url);
+				if (!cache.containsKey(key)){
+					cache.put(key, parseHtml(url));
+				}
+				return cache.get(key);
+			}
+		};
+	}
+	
+	@Override
+	protected PageLoader<JsonObject> createJsonLoader(){
+		return new PageLoader<JsonObject>(){
+			
+			private final Map<ResourceKey, JsonObject> cache = new HashMap<>();
+			
+			@Override
+			public JsonObject getPage(Crawler<JsonObject> crawler, URL url) throws IOException {
+				ResourceKey key = ResourceKey.of(url);
+				if (!cache.containsKey(key)){
+					cache.put(key, parseJson());
+				}
+				return cache.get(key);
+			}
+		};
+	}
+	
+	public Document parseHtml(URL url) throws IOException {
+		return Jsoup.parse(new ByteArrayInputStream(fixture), null, url.toString());
+	}
+	
+	public JsonObject parseJson() throws IOException {
+		try(Reader r = new InputStreamReader(new ByteArrayInputStream(fixture), "UTF-8")){
+			return new JsonParser().parse(r).getAsJsonObject();
+		}
+	}
+}
@@ -0,0 +1,196 @@
+package benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import aohara.tinkertime.controllers.ModStateManager;
+import aohara.tinkertime.controllers.ModStatePersister;
+import aohara.tinkertime.models.Mod;
+
+/**
+ * Measures how the ModStateManager scales with the number of mods, for
+ * single and concurrent writers.
+ * 
+ * Both the throughput and the latency distribution (including p0.99) are
+ * reported.  Saving happens in the background, so the single threaded
+ * benchmarks also report the saves made and bytes written to the mod state
+ * file (or journal) in each iteration, as the saves and bytesWritten counters.
+ * 
+ * @author Andrew O'Hara
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ModStateBenchmark {
+	
+	@State(Scope.Benchmark)
+	public static class StateManagerState {
+		
+		@Param({"100", "1000", "10000", "50000"})
+		public int numMods;
+		
+		@Param({"false", "true"})
+		public boolean journal;
+		
+		private BenchmarkConfig config;
+		private ModStateManager sm;
+		private Mod[] mods;
+		private Path exportPath;
+		
+		@Setup
+		public void setup() throws IOException {
+			config = new BenchmarkConfig(Files.createTempDirectory("tinkertime-bench")){
+				@Override
+				public boolean journalModState(){
+					return journal;
+				}
+			};
+			List<Mod> generated = SyntheticMods.createMods(numMods);
+			SyntheticMods.writeModsList(config, generated);
+			exportPath = config.getRoot().resolve("export.json");
+			
+			sm = new ModStateManager(config);
+			mods = sm.getMods().toArray(new Mod[0]);
+		}
+		
+		@TearDown
+		public void tearDown() throws IOException {
+			sm.flush();
+			FileUtils.deleteDirectory(config.getRoot().toFile());
+		}
+	}
+	
+	@State(Scope.Thread)
+	public static class ThreadState {
+		
+		private final Random random = new Random();
+		
+		private Mod nextMod(StateManagerState state){
+			return state.mods[random.nextInt(state.mods.length)];
+		}
+	}
+	
+	/**
+	 * Saves and bytes written to the mod state file during the iteration.
+	 */
+	@AuxCounters(AuxCounters.Type.EVENTS)
+	@State(Scope.Thread)
+	public static class PersisterCounters {
+		
+		public long saves, bytesWritten;
+		private long startSaves, startBytesWritten;
+		
+		@Setup(Level.Iteration)
+		public void start(StateManagerState state){
+			ModStatePersister persister = state.sm.getPersister();
+			startSaves = persister.getNumSaves();
+			startBytesWritten = persister.getBytesWritten();
+			saves = bytesWritten = 0;
+		}
+		
+		private void update(StateManagerState state){
+			ModStatePersister persister = state.sm.getPersister();
+			saves = persister.getNumSaves() - startSaves;
+			bytesWritten = persister.getBytesWritten() - startBytesWritten;
+		}
+	}
+	
+	// -- Single writer ---------------------------------------------------
+	
+	@Benchmark
+	public int getMods(StateManagerState state){
+		return state.sm.getMods().size();
+	}
+	
+	@Benchmark
+	public void modUpdated(StateManagerState state, ThreadState thread, PersisterCounters counters){
+		state.sm.modUpdated(thread.nextMod(state));
+		counters.update(state);
+	}
+	
+	/**
+	 * Deletes a mod and adds it back, so that the number of mods is constant.
+	 */
+	@Benchmark
+	public void modDeleted(StateManagerState state, ThreadState thread, PersisterCounters counters){
+		Mod mod = thread.nextMod(state);
+		state.sm.modDeleted(mod);
+		state.sm.modUpdated(mod);
+		counters.update(state);
+	}
+	
+	@Benchmark
+	public void setUpdateAvailable(StateManagerState state, ThreadState thread){
+		Mod mod = thread.nextMod(state);
+		state.sm.setUpdateAvailable(mod.getPageUrl(), null, mod.getNewestFileName());
+	}
+	
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	public void exportEnabledMods(StateManagerState state){
+		state.sm.exportEnabledMods(state.exportPath);
+	}
+	
+	// -- Concurrent writers ----------------------------------------------
+	
+	@Benchmark
+	@Threads(4)
+	public void modUpdatedConcurrently(StateManagerState state, ThreadState thread){
+		state.sm.modUpdated(thread.nextMod(state));
+	}
+	
+	@Benchmark
+	@Threads(4)
+	public void setUpdateAvailableConcurrently(StateManagerState state, ThreadState thread){
+		Mod mod = thread.nextMod(state);
+		state.sm.setUpdateAvailable(mod.getPageUrl(), null, mod.getNewestFileName());
+	}
+	
+	/**
+	 * Readers listing the mods while a writer updates them.
+	 */
+	@Benchmark
+	@Group("readWhileWriting")
+	@GroupThreads(3)
+	public int reader(StateManagerState state){
+		int numEnabled = 0;
+		for (Mod mod : state.sm.getMods()){
+			if (mod.isEnabled()){
+				numEnabled++;
+			}
+		}
+		return numEnabled;
+	}
+	
+	@Benchmark
+	@Group("readWhileWriting")
+	@GroupThreads(1)
+	public void writer(StateManagerState state, ThreadState thread){
+		state.sm.modUpdated(thread.nextMod(state));
+	}
+}
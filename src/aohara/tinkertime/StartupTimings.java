@@ -0,0 +1,86 @@
+package aohara.tinkertime;
+
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Records how long each phase of the application startup took.
+ * 
+ * Each call to {@link #phaseComplete(String)} records the time since the
+ * previous phase completed, or since the timings were created for the
+ * first phase.  The time from JVM start to creation is recorded as well, so
+ * that regressions in class loading are visible too.
+ * 
+ * The timings are only printed when the {@link #REPORT_PROPERTY} system
+ * property is true.
+ * 
+ * @author Andrew O'Hara
+ */
+public class StartupTimings {
+	
+	public static final String JVM_START = "JVM Start", REPORT_PROPERTY = "tinkertime.startupTimings";
+	
+	private final Map<String, Long> timings = new LinkedHashMap<>();
+	private final long startNanos;
+	private long lastNanos;
+	
+	public StartupTimings(){
+		startNanos = lastNanos = System.nanoTime();
+		long sinceJvmStart = System.currentTimeMillis() - ManagementFactory.getRuntimeMXBean().getStartTime();
+		timings.put(JVM_START, sinceJvmStart);
+	}
+	
+	/**
+	 * Records the named phase as complete.
+	 * @return the duration of the phase in milliseconds
+	 */
+	public synchronized long phaseComplete(String phase){
+		long now = System.nanoTime();
+		long elapsedMs = (now - lastNanos) / 1000000;
+		timings.put(phase, elapsedMs);
+		lastNanos = now;
+		return elapsedMs;
+	}
+	
+	/**
+	 * Records the duration of a phase which ran alongside the others.
+	 */
+	public synchronized void record(String phase, long elapsedMs){
+		timings.put(phase, elapsedMs);
+	}
+	
+	/**
+	 * Returns the duration of each phase in milliseconds, in order.
+	 */
+	public synchronized Map<String, Long> getTimings(){
+		return Collections.unmodifiableMap(new LinkedHashMap<>(timings));
+	}
+	
+	public synchronized long getTotalMs(){
+		return (lastNanos - startNanos) / 1000000;
+	}
+	
+	private static boolean isReporting(){
+		return Boolean.getBoolean(REPORT_PROPERTY);
+	}
+	
+	/**
+	 * Prints the message to the standard output if timings are reported.
+	 */
+	public static void report(Object message){
+		if (isReporting()){
+			System.out.println(message);
+		}
+	}
+	
+	@Override
+	public synchronized String toString(){
+		StringBuilder builder = new StringBuilder("Startup took " + getTotalMs() + " ms:");
+		for (Map.Entry<String, Long> entry : timings.entrySet()){
+			builder.append(String.format("%n  %-24s %6d ms", entry.getKey(), entry.getValue()));
+		}
+		return builder.toString();
+	}
+}
@@ -18,9 +18,12 @@ public class TinkerConfig {
 	private static final String
 		GAMEDATA_PATH = "GamaData Path",
 		AUTO_CHECK_FOR_MOD_UPDATES = "Check for Mod Updates on Startup",
-		NUM_CONCURRENT_DOWNLOADS = "Number of Concurrent Downloads";
+		NUM_CONCURRENT_DOWNLOADS = "Number of Concurrent Downloads",
+		JOURNAL_MOD_STATE = "Journal Mod State Changes",
+		IMAGE_CACHE_SIZE_MB = "Image Cache Size (MB)";
 		
 	private final GuiConfig config;
+	private volatile Path modsZipPath, imageCachePath, readmeCachePath;
 	
 	protected TinkerConfig(GuiConfig config){
 		this.config = config;
@@ -31,6 +34,8 @@ public class TinkerConfig {
 		builder.addTrueFalseProperty(AUTO_CHECK_FOR_MOD_UPDATES, true, false);
 		builder.addPathProperty(GAMEDATA_PATH, JFileChooser.DIRECTORIES_ONLY, null, false);
 		builder.addIntProperty(NUM_CONCURRENT_DOWNLOADS, 4, 1, null, false);
+		builder.addTrueFalseProperty(JOURNAL_MOD_STATE, false, false);
+		builder.addIntProperty(IMAGE_CACHE_SIZE_MB, 50, 1, null, false);
 		
 		GuiConfig config = builder.createGuiConfigInDocuments("TinkerTime Config", TinkerTime.NAME, "TinkerTime.json");
 		if (!config.isValid()){
@@ -47,13 +52,29 @@ public class TinkerConfig {
 	}
 	
 	public Path getModsZipPath(){
-		Path path = config.getFolder().resolve("mods");
-		path.toFile().mkdirs();
-		return path;
+		// Only create the folders on first use, since these are called frequently
+		if (modsZipPath == null){
+			modsZipPath = createFolder("mods");
+		}
+		return modsZipPath;
 	}
 	
 	public Path getImageCachePath(){
-		Path path = config.getFolder().resolve("imageCache");
+		if (imageCachePath == null){
+			imageCachePath = createFolder("imageCache");
+		}
+		return imageCachePath;
+	}
+	
+	public Path getReadmeCachePath(){
+		if (readmeCachePath == null){
+			readmeCachePath = createFolder("readmeCache");
+		}
+		return readmeCachePath;
+	}
+	
+	private Path createFolder(String name){
+		Path path = config.getFolder().resolve(name);
 		path.toFile().mkdirs();
 		return path;
 	}
@@ -70,6 +91,14 @@ public class TinkerConfig {
 		return Integer.parseInt(config.getProperty(NUM_CONCURRENT_DOWNLOADS));
 	}
 	
+	public boolean journalModState(){
+		return Boolean.parseBoolean(config.getProperty(JOURNAL_MOD_STATE));
+	}
+	
+	public long getImageCacheBudgetBytes(){
+		return Long.parseLong(config.getProperty(IMAGE_CACHE_SIZE_MB)) * 1024 * 1024;
+	}
+	
 	// -- Verification ----------------------------------------------------
 	
 	public void updateConfig(boolean restartOnSuccess, boolean exitOnCancel){
@@ -1,16 +1,32 @@
 package aohara.tinkertime;
 
 import java.awt.BorderLayout;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import javax.swing.JFrame;
+import javax.swing.JPanel;
+import javax.swing.SwingUtilities;
 
 import aohara.common.selectorPanel.SelectorPanel;
 import aohara.common.workflows.ProgressPanel;
+import aohara.tinkertime.content.ArchiveSearchIndex;
+import aohara.tinkertime.content.ReadmeCache;
+import aohara.tinkertime.content.ThumbnailCache;
+import aohara.tinkertime.controllers.FileWatchIndex;
 import aohara.tinkertime.controllers.ModManager;
 import aohara.tinkertime.controllers.ModStateManager;
+import aohara.tinkertime.management.Management;
 import aohara.tinkertime.models.Mod;
 import aohara.tinkertime.models.ModComparator;
 import aohara.tinkertime.views.TinkerFrame;
+import aohara.tinkertime.views.ModFilterPanel;
 import aohara.tinkertime.views.ModImageView;
 import aohara.tinkertime.views.ModListCellRenderer;
 import aohara.tinkertime.views.ModView;
@@ -19,6 +35,14 @@ import aohara.tinkertime.views.menus.MenuFactory;
 /**
  * Main Class for Tinker Time
  * 
+ * Startup is split into phases, so that the frame is shown as soon as
+ * possible: the frame is built on the Event Dispatch Thread, and then
+ * populated from the persisted mod list.  The caches are warmed in the
+ * background, and update checks are only queued once the frame is
+ * interactive.  The duration of each phase is recorded, and is printed once
+ * startup is done if the tinkertime.startupTimings system property is true
+ * (-Dtinkertime.startupTimings=true).
+ * 
  * @author Andrew O'Hara
  */
 public class TinkerTime {
@@ -28,47 +52,179 @@ public class TinkerTime {
 		VERSION = "1.0",
 		AUTHOR = "Andrew O'Hara";
 	
-	public static void main(String[] args) {
+	private final TinkerConfig config;
+	private final FileWatchIndex fileIndex;
+	private final ThumbnailCache thumbnails;
+	private final ModStateManager sm;
+	private ModManager mm;
+	
+	private TinkerTime(TinkerConfig config, FileWatchIndex fileIndex, ThumbnailCache thumbnails, ModStateManager sm){
+		this.config = config;
+		this.fileIndex = fileIndex;
+		this.thumbnails = thumbnails;
+		this.sm = sm;
+	}
+	
+	public static void main(String[] args) throws InterruptedException, InvocationTargetException {
+		final StartupTimings timings = new StartupTimings();
 		TinkerConfig config = TinkerConfig.create();
+		timings.phaseComplete("Load Config");
 		
-		ProgressPanel pp = new ProgressPanel();
+		// Initialize Controllers; the thumbnail cache is shared by everything
+		// which uses the image cache, so that they agree on what was recently used
+		FileWatchIndex fileIndex = new FileWatchIndex();
+		ThumbnailCache thumbnails = new ThumbnailCache(config.getImageCachePath(), config.getImageCacheBudgetBytes());
+		final ModStateManager sm = new ModStateManager(config, fileIndex);
 		
-		// Initialize Controllers
-		ModStateManager sm = new ModStateManager(config);
-		ModManager mm = ModManager.createDefaultModManager(config, sm, pp);
+		// Save any pending mod state on exit
+		Runtime.getRuntime().addShutdownHook(new Thread(){
+			@Override
+			public void run(){
+				sm.flush();
+			}
+		});
 		
 		// Set HTTP User-agent
 		System.setProperty("http.agent", "TinkerTime Bot");
+		timings.phaseComplete("Create Controllers");
 		
-		// Initialize GUI
-		SelectorPanel<Mod> sp = new SelectorPanel<Mod>(new ModView(config), new ModComparator(), new java.awt.Dimension(500, 600), 0.4f);
-		sp.addControlPanel(true, new ModImageView(config));
-		sp.addPopupMenu(MenuFactory.createPopupMenu(mm));
-		sp.setListCellRenderer(new ModListCellRenderer(config));
+		// Show the frame, and then list the persisted mods on the next frame
+		final TinkerTime app = new TinkerTime(config, fileIndex, thumbnails, sm);
+		SwingUtilities.invokeAndWait(new Runnable(){
+			@Override
+			public void run() {
+				app.createGui();
+			}
+		});
+		timings.phaseComplete("Show Frame");
 		
-		// Add Listeners
-		sp.addListener(mm);
-		sm.addListener(sp);
-
-		// Start Application
 		sm.getMods();  // Load mods (will notify selector panel)
+		timings.phaseComplete("Load Mods");
+		
+		app.warmCaches(timings);
+		
+		// Wait until the mods have been listed before doing any network work
+		SwingUtilities.invokeAndWait(new Runnable(){
+			@Override
+			public void run() {
+				sm.getChangeBus().flush();
+			}
+		});
+		timings.phaseComplete("List Mods");
+		
 		try {			
 			// Check for Mod Updates
 			if (config.autoCheckForModUpdates()){
-				mm.checkForModUpdates();
+				app.mm.checkForModUpdates();
 			}
 		} catch (Exception e) {
 			throw new RuntimeException(e);
 		}
+		timings.phaseComplete("Queue Update Checks");
+		StartupTimings.report(timings);
+	}
+	
+	/**
+	 * Builds and shows the frame.  Must be called on the Event Dispatch Thread.
+	 */
+	private void createGui(){
+		ProgressPanel pp = new ProgressPanel();
+		mm = ModManager.createDefaultModManager(config, sm, thumbnails, pp);
+		
+		// Initialize GUI; the readmes are shared by the view and the search index
+		ReadmeCache readmes = new ReadmeCache(config.getReadmeCachePath());
+		SelectorPanel<Mod> sp = new SelectorPanel<Mod>(new ModView(config, fileIndex, readmes), new ModComparator(), new java.awt.Dimension(500, 600), 0.4f);
+		ModFilterPanel filterPanel = new ModFilterPanel(sp);
+		ModImageView imageView = new ModImageView(config, filterPanel, thumbnails, fileIndex);
+		sp.addControlPanel(true, imageView);
+		sp.addPopupMenu(MenuFactory.createPopupMenu(mm));
+		ModListCellRenderer renderer = new ModListCellRenderer(sm);
+		sp.setListCellRenderer(renderer);
+		ArchiveSearchIndex archiveIndex = new ArchiveSearchIndex(config, fileIndex, readmes);
+		
+		// Add Listeners; the selector panel is fed through the filter
+		sp.addListener(mm);
+		sm.getChangeBus().addListener(renderer);
+		sm.getChangeBus().addListener(filterPanel);
+		sm.getChangeBus().addListener(archiveIndex);
+		
+		// Expose the executors, caches, and workflows over JMX
+		Management.registerAll(mm, sm, imageView.getImageCache());
 		
 		// Initialize Frame
 		JFrame frame = new TinkerFrame();
-		frame.setJMenuBar(MenuFactory.creatMenuBar(mm));
+		frame.setJMenuBar(MenuFactory.creatMenuBar(mm, archiveIndex));
 		frame.add(MenuFactory.createToolBar(mm), BorderLayout.NORTH);
-		frame.add(sp.getComponent(), BorderLayout.CENTER);
+		JPanel modsPanel = new JPanel(new BorderLayout());
+		modsPanel.add(filterPanel.getComponent(), BorderLayout.NORTH);
+		modsPanel.add(sp.getComponent(), BorderLayout.CENTER);
+		frame.add(modsPanel, BorderLayout.CENTER);
 		frame.add(pp.getComponent(), BorderLayout.SOUTH);
 		frame.pack();
 		frame.setLocationRelativeTo(null);
 		frame.setVisible(true);
 	}
+	
+	/**
+	 * Watches the mod folders and GameData, and generates any missing
+	 * thumbnails in parallel, on background threads.  Once both the mods and
+	 * GameData are indexed, the enabled flag of each mod is corrected for any
+	 * modules which were added or removed while the application was closed.
+	 */
+	private void warmCaches(final StartupTimings timings){
+		fileIndex.addListener(sm);
+		
+		final List<Callable<Void>> tasks = new ArrayList<>();
+		tasks.add(watchTask(fileIndex, config.getModsZipPath(), false));
+		tasks.add(watchTask(fileIndex, config.getImageCachePath(), false));
+		tasks.add(watchTask(fileIndex, config.getGameDataPath(), true));
+		tasks.add(new Callable<Void>(){
+			@Override
+			public Void call() throws IOException {
+				for (Mod mod : sm.getMods()){
+					Path imagePath = mod.getCachedImagePath(config);
+					if (imagePath.toFile().exists() && thumbnails.getNearestThumbnail(imagePath, 0) == null){
+						thumbnails.generate(imagePath);
+					}
+				}
+				return null;
+			}
+		});
+		
+		Thread warmer = new Thread(new Runnable(){
+			@Override
+			public void run() {
+				long start = System.currentTimeMillis();
+				ExecutorService executor = Executors.newFixedThreadPool(tasks.size());
+				try {
+					executor.invokeAll(tasks);
+				} catch (InterruptedException e) {
+					return;
+				} finally {
+					executor.shutdown();
+				}
+				sm.reconcileEnabled();
+				long elapsedMs = System.currentTimeMillis() - start;
+				timings.record("Warm Caches (background)", elapsedMs);
+				StartupTimings.report("Caches warmed in " + elapsedMs + " ms");
+			}
+		}, "Cache Warmer");
+		warmer.setDaemon(true);
+		warmer.start();
+	}
+	
+	private static Callable<Void> watchTask(final FileWatchIndex fileIndex, final Path folder, final boolean recursive){
+		return new Callable<Void>(){
+			@Override
+			public Void call() {
+				// Watch the mod folders for changes made outside of the application
+				try {
+					fileIndex.watch(folder, recursive);
+				} catch (IOException e) {
+					e.printStackTrace();
+				}
+				return null;
+			}
+		};
+	}
 }
@@ -0,0 +1,369 @@
+package aohara.tinkertime.content;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import aohara.tinkertime.TinkerConfig;
+import aohara.tinkertime.controllers.FileWatchIndex;
+import aohara.tinkertime.controllers.FileWatchIndex.FileInfo;
+import aohara.tinkertime.controllers.ModChangeBatch;
+import aohara.tinkertime.controllers.ModChangeListener;
+import aohara.tinkertime.models.Mod;
+import aohara.tinkertime.models.ModStructure;
+
+/**
+ * Full-text inverted index over the readmes and entry paths of the cached
+ * mod archives.
+ * 
+ * Archives are read in parallel on a background pool, through the same
+ * readme extraction used for display.  The index is kept current from the
+ * ModChangeBus: updated mods are indexed again if their archive's path,
+ * size, or modification time has changed, and deleted mods are dropped.  Query terms match the start of indexed words, and every term
+ * must match for a mod to be returned.
+ * 
+ * @author Andrew O'Hara
+ */
+public class ArchiveSearchIndex implements ModChangeListener {
+	
+	private static final int MIN_WORD_LENGTH = 2;
+	
+	private final TinkerConfig config;
+	private final FileWatchIndex fileIndex;
+	private final ReadmeCache readmeCache;
+	private final ExecutorService indexers;
+	
+	// Guarded by this
+	private final TreeMap<String, Set<String>> postings = new TreeMap<>();
+	private final Map<String, Document> documents = new HashMap<>();
+	private final Map<String, Long> generations = new HashMap<>();
+	private long generation = 0;
+	
+	/**
+	 * @param readmeCache the cache shared with the views, so that each
+	 * 	readme is only extracted once
+	 */
+	public ArchiveSearchIndex(TinkerConfig config, FileWatchIndex fileIndex, ReadmeCache readmeCache){
+		this(config, fileIndex, readmeCache, Runtime.getRuntime().availableProcessors());
+	}
+	
+	public ArchiveSearchIndex(TinkerConfig config, FileWatchIndex fileIndex, ReadmeCache readmeCache, int numThreads){
+		this.config = config;
+		this.fileIndex = fileIndex;
+		this.readmeCache = readmeCache;
+		indexers = Executors.newFixedThreadPool(numThreads, new ThreadFactory(){
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread thread = new Thread(r, "Archive Indexer");
+				thread.setDaemon(true);
+				thread.setPriority(Thread.MIN_PRIORITY);
+				return thread;
+			}
+		});
+	}
+	
+	// -- Updating ----------------------------------------------------------
+	
+	@Override
+	public void modsChanged(ModChangeBatch batch) {
+		if (batch.isReset()){
+			clear();
+			indexAll(batch.getResetMods());
+		}
+		for (Mod mod : batch.getRemoved()){
+			remove(mod);
+		}
+		indexChanged(batch.getUpdated());
+	}
+	
+	/**
+	 * Indexes the archives of the given mods in the background, unless they
+	 * are unchanged since they were indexed.
+	 */
+	public void indexChanged(Collection<Mod> mods){
+		List<Mod> changed = new ArrayList<>();
+		for (Mod mod : mods){
+			String archiveKey = getArchiveKey(mod);
+			synchronized(this){
+				Document doc = documents.get(mod.id);
+				boolean pending = generations.containsKey(mod.id);
+				if (!pending && doc != null && doc.archiveKey.equals(archiveKey)){
+					doc.mod = mod;  // Only the mod's metadata has changed
+				} else if (pending || doc != null || archiveKey != null){
+					changed.add(mod);
+				}
+			}
+		}
+		indexAll(changed);
+	}
+	
+	/**
+	 * Indexes the archives of the given mods in the background.
+	 */
+	public void indexAll(Collection<Mod> mods){
+		for (final Mod mod : mods){
+			final long modGeneration;
+			synchronized(this){
+				modGeneration = ++generation;
+				generations.put(mod.id, modGeneration);
+			}
+			indexers.execute(new Runnable(){
+				@Override
+				public void run() {
+					index(mod, modGeneration);
+				}
+			});
+		}
+	}
+	
+	/**
+	 * Waits for all of the pending indexing to complete.  The index can no
+	 * longer be updated afterwards.
+	 */
+	public boolean shutdownAndWait(long timeout, TimeUnit unit) throws InterruptedException {
+		indexers.shutdown();
+		return indexers.awaitTermination(timeout, unit);
+	}
+	
+	private void index(Mod mod, long modGeneration){
+		String archiveKey = getArchiveKey(mod);
+		if (archiveKey == null){
+			// The archive is gone, so any older document of the mod is stale
+			synchronized(this){
+				if (isLatest(mod, modGeneration)){
+					unindex(mod.id);
+				}
+			}
+			return;
+		}
+		
+		Path zipPath = mod.getCachedZipPath(config);
+		Document doc = new Document(mod, archiveKey);
+		try {
+			doc.paths.addAll(ModStructure.getEntryNames(zipPath));
+			for (String path : doc.paths){
+				addWords(doc.words, path);
+			}
+			
+			Path readme = readmeCache.getReadme(mod.id, zipPath);
+			if (readme != null){
+				// Very large readmes are tokenized as they are read
+				try(Reader reader = new InputStreamReader(Files.newInputStream(readme), Charset.defaultCharset())){
+					addWords(doc.readmeWords, reader);
+				}
+				doc.words.addAll(doc.readmeWords);
+			}
+		} catch (IOException e) {
+			e.printStackTrace();
+			return;
+		}
+		
+		synchronized(this){
+			if (!isLatest(mod, modGeneration)){
+				return;
+			}
+			
+			unindex(mod.id);
+			documents.put(mod.id, doc);
+			for (String word : doc.words){
+				Set<String> ids = postings.get(word);
+				if (ids == null){
+					postings.put(word, ids = new HashSet<>());
+				}
+				ids.add(mod.id);
+			}
+		}
+	}
+	
+	/**
+	 * Returns whether this is the latest indexing of the mod, which is the
+	 * only one to be kept, and if so, marks the mod as no longer pending.
+	 */
+	private boolean isLatest(Mod mod, long modGeneration){
+		Long latest = generations.get(mod.id);
+		if (latest == null || latest != modGeneration){
+			return false;
+		}
+		generations.remove(mod.id);
+		return true;
+	}
+	
+	/**
+	 * Returns the path, size, and modification time of the mod's archive, or
+	 * null if it has none.
+	 */
+	private String getArchiveKey(Mod mod){
+		Path zipPath = mod.getCachedZipPath(config);
+		FileInfo info = zipPath != null ? fileIndex.getInfo(zipPath) : null;
+		return info != null ? zipPath.toAbsolutePath() + "|" + info.size + "|" + info.lastModified : null;
+	}
+	
+	public synchronized void remove(Mod mod){
+		generations.remove(mod.id);
+		unindex(mod.id);
+	}
+	
+	public synchronized void clear(){
+		generations.clear();
+		postings.clear();
+		documents.clear();
+	}
+	
+	private void unindex(String id){
+		Document doc = documents.remove(id);
+		if (doc != null){
+			for (String word : doc.words){
+				Set<String> ids = postings.get(word);
+				ids.remove(id);
+				if (ids.isEmpty()){
+					postings.remove(word);
+				}
+			}
+		}
+	}
+	
+	// -- Querying ----------------------------------------------------------
+	
+	/**
+	 * Returns the mods whose archives contain words starting with every term
+	 * of the query, along with the entry paths which matched.
+	 */
+	public synchronized List<Result> search(String query){
+		Set<String> words = new HashSet<>();
+		addWords(words, query);
+		if (words.isEmpty()){
+			return Collections.emptyList();
+		}
+		
+		Set<String> ids = null;
+		for (String term : words){
+			Set<String> termIds = new HashSet<>();
+			for (Set<String> posting : postings.subMap(term, term + Character.MAX_VALUE).values()){
+				termIds.addAll(posting);
+			}
+			if (ids == null){
+				ids = termIds;
+			} else {
+				ids.retainAll(termIds);
+			}
+		}
+		
+		List<Result> results = new ArrayList<>();
+		for (String id : ids){
+			Document doc = documents.get(id);
+			results.add(new Result(doc.mod, doc.getMatchingPaths(words), doc.readmeMatches(words)));
+		}
+		return results;
+	}
+	
+	public synchronized int size(){
+		return documents.size();
+	}
+	
+	// -- Helpers -----------------------------------------------------------
+	
+	private static void addWords(Set<String> words, String text){
+		try {
+			addWords(words, new StringReader(text));
+		} catch (IOException e){
+			throw new IllegalStateException(e);  // Not thrown by a StringReader
+		}
+	}
+	
+	private static void addWords(Set<String> words, Reader reader) throws IOException {
+		StringBuilder word = new StringBuilder();
+		char[] buf = new char[8192];
+		int n;
+		while ((n = reader.read(buf)) != -1){
+			for (int i=0; i<n; i++){
+				if (Character.isLetterOrDigit(buf[i]) || buf[i] == '_'){
+					word.append(buf[i]);
+				} else {
+					addWord(words, word);
+				}
+			}
+		}
+		addWord(words, word);
+	}
+	
+	private static void addWord(Set<String> words, StringBuilder word){
+		if (word.length() >= MIN_WORD_LENGTH){
+			words.add(word.toString().toLowerCase(Locale.ENGLISH));
+		}
+		word.setLength(0);
+	}
+	
+	private static boolean matchesAny(Set<String> words, Set<String> terms){
+		for (String term : terms){
+			for (String word : words){
+				if (word.startsWith(term)){
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+	
+	private static class Document {
+		
+		private final String archiveKey;
+		private final List<String> paths = new ArrayList<>();
+		private final Set<String> words = new HashSet<>(), readmeWords = new HashSet<>();
+		private Mod mod;
+		
+		private Document(Mod mod, String archiveKey){
+			this.mod = mod;
+			this.archiveKey = archiveKey;
+		}
+		
+		private List<String> getMatchingPaths(Set<String> terms){
+			List<String> matching = new ArrayList<>();
+			for (String path : paths){
+				Set<String> pathWords = new HashSet<>();
+				addWords(pathWords, path);
+				if (matchesAny(pathWords, terms)){
+					matching.add(path);
+				}
+			}
+			return matching;
+		}
+		
+		private boolean readmeMatches(Set<String> terms){
+			return matchesAny(readmeWords, terms);
+		}
+	}
+	
+	/**
+	 * A mod which matched a query.
+	 */
+	public static class Result {
+		
+		public final Mod mod;
+		public final List<String> matchingPaths;
+		public final boolean readmeMatches;
+		
+		private Result(Mod mod, List<String> matchingPaths, boolean readmeMatches){
+			this.mod = mod;
+			this.matchingPaths = Collections.unmodifiableList(matchingPaths);
+			this.readmeMatches = readmeMatches;
+		}
+	}
+}
@@ -0,0 +1,267 @@
+package aohara.tinkertime.content;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+
+import javax.imageio.ImageIO;
+import javax.swing.SwingUtilities;
+
+import aohara.tinkertime.controllers.FileWatchIndex;
+import aohara.tinkertime.controllers.FileWatchIndex.FileInfo;
+import aohara.tinkertime.management.CacheStats;
+
+/**
+ * In-memory cache of decoded images, limited by the size of their pixels.
+ * 
+ * Images are decoded on a background pool, and the callbacks are invoked on
+ * the Event Dispatch Thread.  Other work on the images, such as finding and
+ * scaling them, can be run on the same pool with {@link #execute}, and get
+ * the images there with {@link #get}.  An image is only decoded once at a
+ * time, whether it was requested by {@link #load} or {@link #get}.  When
+ * the budget is exceeded, the
+ * least recently used images are evicted.  Images are keyed by their path
+ * and modification time, so a replaced image is decoded again.
+ * 
+ * @author Andrew O'Hara
+ */
+public class DecodedImageCache {
+	
+	public static final long DEFAULT_BUDGET_BYTES = 32 * 1024 * 1024;
+	private static final int NUM_DECODERS = 2;
+	
+	public static interface ImageCallback {
+		/**
+		 * @param image the decoded image, or null if it could not be decoded
+		 */
+		public void imageLoaded(Path path, BufferedImage image);
+	}
+	
+	private final FileWatchIndex fileIndex;
+	private final long budgetBytes;
+	private final LinkedHashMap<String, BufferedImage> images = new LinkedHashMap<>(16, 0.75f, true);
+	private final Map<String, DecodeTask> pending = new HashMap<>();
+	private final ExecutorService decoders;
+	private final CacheStats stats = new CacheStats();
+	private long usedBytes = 0;
+	
+	public DecodedImageCache(FileWatchIndex fileIndex){
+		this(fileIndex, DEFAULT_BUDGET_BYTES);
+	}
+	
+	public DecodedImageCache(FileWatchIndex fileIndex, long budgetBytes){
+		this.fileIndex = fileIndex;
+		this.budgetBytes = budgetBytes;
+		decoders = Executors.newFixedThreadPool(NUM_DECODERS, new ThreadFactory(){
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread thread = new Thread(r, "Image Decoder");
+				thread.setDaemon(true);
+				thread.setPriority(Thread.MIN_PRIORITY);
+				return thread;
+			}
+		});
+	}
+	
+	/**
+	 * Returns the decoded image if it is cached, without blocking.
+	 */
+	public synchronized BufferedImage getIfPresent(Path path){
+		String key = getKey(path);
+		return key != null ? images.get(key) : null;
+	}
+	
+	/**
+	 * Invokes the callback with the decoded image.  If the image is cached,
+	 * the callback is invoked immediately; otherwise it is invoked on the
+	 * Event Dispatch Thread once the image is decoded in the background.
+	 */
+	public void load(Path path, ImageCallback callback){
+		BufferedImage image;
+		synchronized(this){
+			String key = getKey(path);
+			if (key == null){
+				image = null;
+				stats.miss();
+			} else if ((image = images.get(key)) == null){
+				stats.miss();
+				DecodeTask task = pending.get(key);
+				if (task == null){
+					pending.put(key, task = new DecodeTask(key, path));
+					decoders.execute(task);
+				}
+				if (callback != null){
+					task.callbacks.add(callback);
+				}
+				return;
+			} else {
+				stats.hit();
+			}
+		}
+		
+		if (callback != null){
+			callback.imageLoaded(path, image);
+		}
+	}
+	
+	/**
+	 * Returns the decoded image, decoding it on the calling thread if it is
+	 * not cached.  If the image is already being decoded, it waits for that
+	 * decode instead; a decode which is still queued is run on the calling
+	 * thread, so that tasks on the pool never wait on the tasks behind them.
+	 * 
+	 * @return the image, or null if it could not be decoded
+	 */
+	public BufferedImage get(Path path){
+		DecodeTask task;
+		synchronized(this){
+			String key = getKey(path);
+			if (key == null){
+				stats.miss();
+				return null;
+			}
+			
+			BufferedImage image = images.get(key);
+			if (image != null){
+				stats.hit();
+				return image;
+			}
+			stats.miss();
+			
+			task = pending.get(key);
+			if (task == null){
+				pending.put(key, task = new DecodeTask(key, path));
+			}
+		}
+		
+		task.run();  // Does nothing if the task has already started
+		try {
+			return task.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return null;
+		} catch (ExecutionException e) {
+			return null;  // Image is not displayed
+		}
+	}
+	
+	/**
+	 * Runs the task on the decoder pool.
+	 */
+	public void execute(Runnable task){
+		decoders.execute(task);
+	}
+	
+	/**
+	 * Decodes the image in the background, if it is not already cached.
+	 */
+	public void prefetch(Path path){
+		load(path, null);
+	}
+	
+	private String getKey(Path path){
+		FileInfo info = fileIndex.getInfo(path);
+		return info != null ? path.toAbsolutePath() + "@" + info.lastModified : null;
+	}
+	
+	private synchronized void put(String key, BufferedImage image){
+		long bytes = getBytes(image);
+		if (bytes > budgetBytes){
+			return;
+		}
+		
+		BufferedImage old = images.put(key, image);
+		usedBytes += bytes - (old != null ? getBytes(old) : 0);
+		
+		Iterator<BufferedImage> it = images.values().iterator();
+		while (usedBytes > budgetBytes && it.hasNext()){
+			usedBytes -= getBytes(it.next());
+			it.remove();
+			stats.evicted();
+		}
+	}
+	
+	public synchronized long getUsedBytes(){
+		return usedBytes;
+	}
+	
+	/**
+	 * Returns the hits and misses of {@link #load}, and the evictions.
+	 */
+	public CacheStats getStats(){
+		return stats;
+	}
+	
+	private static BufferedImage decode(Path path){
+		try {
+			return ImageIO.read(path.toFile());
+		} catch (IOException e) {
+			return null;  // Image is not displayed
+		}
+	}
+	
+	private static long getBytes(BufferedImage image){
+		return (long) image.getWidth() * image.getHeight() * 4;
+	}
+	
+	private class DecodeTask extends FutureTask<BufferedImage> {
+		
+		private final String key;
+		private final Path path;
+		private final List<ImageCallback> callbacks = new ArrayList<>();
+		
+		private DecodeTask(String key, final Path path){
+			super(new Callable<BufferedImage>(){
+				@Override
+				public BufferedImage call() {
+					return decode(path);
+				}
+			});
+			this.key = key;
+			this.path = path;
+		}
+
+		@Override
+		protected void done() {
+			BufferedImage image;
+			try {
+				image = get();
+			} catch (InterruptedException | ExecutionException e) {
+				image = null;
+			}
+			
+			final BufferedImage result = image;
+			final List<ImageCallback> toNotify;
+			synchronized(DecodedImageCache.this){
+				if (result != null){
+					put(key, result);
+				}
+				pending.remove(key);
+				toNotify = new ArrayList<>(callbacks);
+			}
+			
+			if (!toNotify.isEmpty()){
+				SwingUtilities.invokeLater(new Runnable(){
+					@Override
+					public void run() {
+						for (ImageCallback callback : toNotify){
+							callback.imageLoaded(path, result);
+						}
+					}
+				});
+			}
+		}
+	}
+}
@@ -0,0 +1,215 @@
+package aohara.tinkertime.content;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+import aohara.tinkertime.models.ModStructure;
+
+/**
+ * Disk cache of the readmes extracted from mod archives.
+ * 
+ * Each mod has a folder of entries, keyed by a digest of its archive's path,
+ * size, and modification time, so a new version of the archive is extracted
+ * again, and replaces the entry of the previous version.  Deleting a mod's
+ * folder removes all of its entries.  Archives without a readme are
+ * remembered as well.  Extracted readmes can be read a page at a time, so
+ * that very large readmes do not need to be held in memory at once.
+ * 
+ * The cache is shared by every reader of the readmes.  Callers asking for
+ * an archive which is already being extracted wait for that extraction,
+ * and entries are written to a temp file and then moved into place, so an
+ * archive is extracted once however many callers ask for it at once.
+ * 
+ * @author Andrew O'Hara
+ */
+public class ReadmeCache {
+	
+	public static final int PAGE_CHARS = 64 * 1024;
+	private static final String README_EXT = ".txt", NONE_EXT = ".none";
+	
+	private final Path cacheFolder;
+	private final ConcurrentMap<Path, FutureTask<Path>> extractions = new ConcurrentHashMap<>();
+	
+	public ReadmeCache(Path cacheFolder){
+		this.cacheFolder = cacheFolder;
+	}
+	
+	/**
+	 * Returns the folder holding the entries of the mod.
+	 */
+	public static Path getModFolder(Path cacheFolder, String modId){
+		return cacheFolder.resolve(digest(modId));
+	}
+	
+	/**
+	 * Returns the path to the extracted readme of the mod's archive,
+	 * extracting it if necessary.
+	 * 
+	 * @return the readme path, or null if the archive has no readme
+	 */
+	public Path getReadme(String modId, final Path zipPath) throws IOException {
+		BasicFileAttributes attrs = Files.readAttributes(zipPath, BasicFileAttributes.class);
+		final String digest = digest(zipPath.toAbsolutePath() + "|" + attrs.size() + "|" + attrs.lastModifiedTime().toMillis());
+		final Path modFolder = getModFolder(cacheFolder, modId);
+		final Path readme = modFolder.resolve(digest + README_EXT), none = modFolder.resolve(digest + NONE_EXT);
+		
+		while (true){
+			if (Files.exists(readme)){
+				return readme;
+			} else if (Files.exists(none)){
+				return null;
+			}
+			
+			FutureTask<Path> task = new FutureTask<>(new Callable<Path>(){
+				@Override
+				public Path call() throws IOException {
+					return extract(zipPath, modFolder, digest, readme, none);
+				}
+			});
+			FutureTask<Path> extraction = extractions.putIfAbsent(readme, task);
+			if (extraction == null){
+				extraction = task;
+				try {
+					task.run();
+				} finally {
+					extractions.remove(readme, task);
+				}
+			}
+			
+			try {
+				return extraction.get();
+			} catch (InterruptedException e){
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException("Interrupted waiting for the readme");
+			} catch (ExecutionException e){
+				// Extract again if another caller's extraction was cancelled
+				if (extraction != task && e.getCause() instanceof InterruptedIOException && !Thread.currentThread().isInterrupted()){
+					continue;
+				} else if (e.getCause() instanceof IOException){
+					throw (IOException) e.getCause();
+				}
+				throw new IOException(e.getCause());
+			}
+		}
+	}
+		
+	private static Path extract(Path zipPath, Path modFolder, String digest, Path readme, Path none) throws IOException {
+		// Extract to a temp file first, so that an interrupted extraction is never cached
+		Files.createDirectories(modFolder);
+		Path temp = Files.createTempFile(modFolder, digest, ".tmp");
+		try {
+			Path entry = ModStructure.extractReadme(zipPath, temp) ? readme : none;
+			moveInto(temp, entry);
+			deletePrevious(modFolder, entry);
+			return entry == readme ? readme : null;
+		} finally {
+			Files.deleteIfExists(temp);
+		}
+	}
+	
+	private static void moveInto(Path temp, Path dest) throws IOException {
+		try {
+			Files.move(temp, dest, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		} catch (AtomicMoveNotSupportedException e){
+			Files.move(temp, dest, StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+	
+	/**
+	 * Deletes the entries of the mod's other archives.
+	 */
+	private static void deletePrevious(Path modFolder, Path current) throws IOException {
+		String glob = String.format("*{%s,%s}", README_EXT, NONE_EXT);
+		try(DirectoryStream<Path> entries = Files.newDirectoryStream(modFolder, glob)){
+			for (Path entry : entries){
+				if (!entry.equals(current)){
+					Files.deleteIfExists(entry);
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Reads up to the given number of characters from an extracted readme.
+	 * The reading starts at the given byte offset, so that later pages do not
+	 * need to read through the earlier ones.
+	 * 
+	 * @param start byte offset of the first character; 0, or the end of the
+	 * 	previous page
+	 */
+	public static Page readPage(Path readme, long start, int maxChars) throws IOException {
+		try(FileChannel channel = FileChannel.open(readme, StandardOpenOption.READ)){
+			CharsetDecoder decoder = Charset.defaultCharset().newDecoder()
+				.onMalformedInput(CodingErrorAction.REPLACE)
+				.onUnmappableCharacter(CodingErrorAction.REPLACE);
+			ByteBuffer bytes = ByteBuffer.allocate(8192);
+			CharBuffer chars = CharBuffer.allocate(maxChars);
+			
+			// Only count the bytes of whole characters, so the next page starts on one
+			long end = start;
+			boolean eof = false;
+			channel.position(start);
+			while (chars.hasRemaining() && !eof){
+				eof = channel.read(bytes) == -1;
+				bytes.flip();
+				decoder.decode(bytes, chars, eof);
+				end += bytes.position();
+				bytes.compact();
+			}
+			if (eof){
+				decoder.flush(chars);
+			}
+			
+			chars.flip();
+			return new Page(chars.toString(), end, end < channel.size());
+		}
+	}
+	
+	private static String digest(String key){
+		try {
+			StringBuilder builder = new StringBuilder();
+			for (byte b : MessageDigest.getInstance("SHA-1").digest(key.getBytes(Charset.forName("UTF-8")))){
+				builder.append(String.format("%02x", b));
+			}
+			return builder.toString();
+		} catch (NoSuchAlgorithmException e) {
+			throw new RuntimeException(e);
+		}
+	}
+	
+	/**
+	 * A page of readme text.
+	 */
+	public static class Page {
+		
+		public final String text;
+		public final long end;
+		public final boolean hasMore;
+		
+		private Page(String text, long end, boolean hasMore){
+			this.text = text;
+			this.end = end;
+			this.hasMore = hasMore;
+		}
+	}
+}
@@ -0,0 +1,179 @@
+package aohara.tinkertime.content;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.FileFilter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.imageio.ImageIO;
+
+import org.apache.commons.io.FilenameUtils;
+
+/**
+ * Cache of pre-scaled thumbnails for the mod images.
+ * 
+ * When an image is downloaded, it is decoded once and stored at each of the
+ * common display sizes next to the original.  Views then load the smallest
+ * thumbnail which is at least as large as they need, rather than decoding
+ * and scaling the full image.
+ * 
+ * The thumbnails in the image cache folder are kept under a size budget by
+ * deleting the least recently used ones.  The original images are never
+ * evicted, since they can only be restored by downloading the mod again.
+ * Looking up a thumbnail marks it as used in memory; thumbnails which have
+ * not been used since are ranked by when they were written.
+ * 
+ * @author Andrew O'Hara
+ */
+public class ThumbnailCache {
+	
+	public static final int[] SIZES = {128, 256, 512};
+	private static final String FORMAT = "jpg";
+	
+	private final Path cacheFolder;
+	private final long budgetBytes;
+	private final Map<Path, Long> lastUsed = new ConcurrentHashMap<>();
+	
+	public ThumbnailCache(Path cacheFolder, long budgetBytes){
+		this.cacheFolder = cacheFolder;
+		this.budgetBytes = budgetBytes;
+	}
+	
+	/**
+	 * Generates the thumbnails of the image, and then enforces the budget.
+	 * 
+	 * @return false if the image could not be decoded
+	 */
+	public boolean generate(Path imagePath) throws IOException {
+		BufferedImage image = imagePath.toFile().exists() ? ImageIO.read(imagePath.toFile()) : null;
+		if (image == null){
+			return false;
+		}
+		
+		for (int size : SIZES){
+			// Do not scale up; the largest thumbnail is the image itself
+			ImageIO.write(scaleToFit(image, size), FORMAT, getThumbnailPath(imagePath, size).toFile());
+			if (size >= Math.max(image.getWidth(), image.getHeight())){
+				break;
+			}
+		}
+		
+		enforceBudget();
+		return true;
+	}
+	
+	/**
+	 * Returns the smallest existing thumbnail of the image which is at least
+	 * the given size, or the largest one if none are.
+	 * 
+	 * @return the thumbnail path, or null if there are no thumbnails
+	 */
+	public Path getNearestThumbnail(Path imagePath, int size){
+		Path nearest = null;
+		for (int thumbSize : SIZES){
+			Path path = getThumbnailPath(imagePath, thumbSize);
+			if (path.toFile().exists()){
+				nearest = path;
+				if (thumbSize >= size){
+					break;
+				}
+			}
+		}
+		
+		if (nearest != null){
+			lastUsed.put(nearest.toAbsolutePath(), System.currentTimeMillis());
+		}
+		return nearest;
+	}
+	
+	/**
+	 * Returns the path of the image's thumbnail of the given size, which is
+	 * stored next to the image.
+	 */
+	public static Path getThumbnailPath(Path imagePath, int size){
+		String baseName = FilenameUtils.getBaseName(imagePath.getFileName().toString());
+		return imagePath.resolveSibling(String.format("%s.%d.%s", baseName, size, FORMAT));
+	}
+	
+	/**
+	 * Returns whether the file is a thumbnail generated by this cache.
+	 */
+	public static boolean isThumbnail(Path path){
+		String name = path.getFileName().toString();
+		for (int size : SIZES){
+			if (name.endsWith(String.format(".%d.%s", size, FORMAT))){
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	/**
+	 * Deletes the least recently used thumbnails in the cache folder until
+	 * they are within the budget.
+	 */
+	public void enforceBudget() throws IOException {
+		File[] files = cacheFolder.toFile().listFiles(new FileFilter(){
+			@Override
+			public boolean accept(File file) {
+				return file.isFile() && isThumbnail(file.toPath());
+			}
+		});
+		if (files == null){
+			return;
+		}
+		
+		long total = 0;
+		for (File file : files){
+			total += file.length();
+		}
+		
+		if (total > budgetBytes){
+			// Take the times before sorting, since they may change meanwhile
+			final Map<File, Long> usedTimes = new HashMap<>();
+			for (File file : files){
+				Long used = lastUsed.get(file.toPath().toAbsolutePath());
+				usedTimes.put(file, Math.max(file.lastModified(), used != null ? used : 0));
+			}
+			Arrays.sort(files, new Comparator<File>(){
+				@Override
+				public int compare(File f1, File f2) {
+					return Long.compare(usedTimes.get(f1), usedTimes.get(f2));
+				}
+			});
+			for (int i=0; i<files.length && total > budgetBytes; i++){
+				long length = files[i].length();
+				if (Files.deleteIfExists(files[i].toPath())){
+					total -= length;
+					lastUsed.remove(files[i].toPath().toAbsolutePath());
+				}
+			}
+		}
+	}
+	
+	private static BufferedImage scaleToFit(BufferedImage image, int size){
+		double scale = Math.min(1.0, (double) size / Math.max(image.getWidth(), image.getHeight()));
+		int width = Math.max(1, (int) Math.round(image.getWidth() * scale));
+		int height = Math.max(1, (int) Math.round(image.getHeight() * scale));
+		
+		BufferedImage scaled = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+		Graphics2D g = scaled.createGraphics();
+		try {
+			g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+			g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+			g.drawImage(image, 0, 0, width, height, null);
+		} finally {
+			g.dispose();
+		}
+		return scaled;
+	}
+}
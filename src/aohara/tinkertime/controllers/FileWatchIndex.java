@@ -0,0 +1,282 @@
+package aohara.tinkertime.controllers;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import aohara.common.Listenable;
+
+/**
+ * In-memory index of the files under a set of watched folders.
+ * 
+ * The folders are scanned once when they are watched, and then kept up to
+ * date from a WatchService on a background thread, so that files added,
+ * changed, or removed outside of the application are picked up as soon as
+ * the platform reports them.  Queries about watched paths are answered from
+ * memory; queries about any other path fall back to the disk.  Watched
+ * paths missing from the index are also checked on disk, since the watcher
+ * may not have caught up with a file which the application just wrote.
+ * 
+ * Listeners are notified on the watcher thread.
+ * 
+ * @author Andrew O'Hara
+ */
+public class FileWatchIndex extends Listenable<FileWatchIndex.FileChangeListener> {
+	
+	public static interface FileChangeListener {
+		/**
+		 * @param path absolute path which changed
+		 * @param info new info for the path, or null if it was deleted
+		 */
+		public void fileChanged(Path path, FileInfo info);
+	}
+	
+	private final Map<Path, FileInfo> files = new ConcurrentHashMap<>();
+	private final Map<WatchKey, Root> keys = new ConcurrentHashMap<>();
+	private final Map<Path, Root> roots = new ConcurrentHashMap<>();
+	private WatchService watcher;
+	
+	// -- Watching --------------------------------------------------------
+	
+	/**
+	 * Indexes the folder, and keeps the index updated until closed.
+	 * Several folders may be watched concurrently.
+	 * 
+	 * @param folder folder to watch
+	 * @param recursive true if the subfolders are to be watched as well
+	 */
+	public void watch(Path folder, boolean recursive) throws IOException {
+		synchronized(this){
+			if (watcher == null){
+				watcher = FileSystems.getDefault().newWatchService();
+				Thread thread = new Thread(new Runnable(){
+					@Override
+					public void run() {
+						processEvents();
+					}
+				}, "File Watch Index");
+				thread.setDaemon(true);
+				thread.start();
+			}
+		}
+		
+		// Queries only use the index once the folder has been fully scanned
+		Root root = new Root(normalize(folder), recursive);
+		scan(root, root.path);
+		roots.put(root.path, root);
+	}
+	
+	public synchronized void close() throws IOException {
+		if (watcher != null){
+			watcher.close();
+			watcher = null;
+		}
+		keys.clear();
+		roots.clear();
+		files.clear();
+	}
+	
+	private void scan(final Root root, Path folder) throws IOException {
+		if (!Files.isDirectory(folder)){
+			return;
+		}
+		
+		Files.walkFileTree(folder, new SimpleFileVisitor<Path>(){
+			@Override
+			public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+				if (!dir.equals(root.path) && !root.recursive){
+					return FileVisitResult.SKIP_SUBTREE;
+				}
+				keys.put(dir.register(watcher(), ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY), root);
+				put(dir, attrs);
+				return FileVisitResult.CONTINUE;
+			}
+			
+			@Override
+			public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+				put(file, attrs);
+				return FileVisitResult.CONTINUE;
+			}
+			
+			@Override
+			public FileVisitResult visitFileFailed(Path file, IOException e) {
+				return FileVisitResult.CONTINUE;
+			}
+		});
+	}
+	
+	private void processEvents(){
+		try {
+			while (true){
+				WatchKey key = watcher().take();
+				Root root = keys.get(key);
+				Path dir = (Path) key.watchable();
+				
+				for (WatchEvent<?> event : key.pollEvents()){
+					try {
+						if (root == null){
+							continue;
+						} else if (event.kind() == OVERFLOW){
+							scan(root, dir);
+						} else {
+							update(root, dir.resolve((Path) event.context()));
+						}
+					} catch (IOException e){
+						e.printStackTrace();
+					}
+				}
+				
+				if (!key.reset()){
+					keys.remove(key);
+				}
+			}
+		} catch (InterruptedException | ClosedWatchServiceException e){
+			// Index closed
+		}
+	}
+	
+	private synchronized WatchService watcher(){
+		if (watcher == null){
+			throw new ClosedWatchServiceException();
+		}
+		return watcher;
+	}
+	
+	private void update(Root root, Path path) throws IOException {
+		if (Files.exists(path)){
+			if (Files.isDirectory(path) && root.recursive){
+				scan(root, path);
+			} else {
+				put(path, Files.readAttributes(path, BasicFileAttributes.class));
+			}
+		} else {
+			remove(path);
+		}
+	}
+	
+	private void put(Path path, BasicFileAttributes attrs){
+		FileInfo info = new FileInfo(attrs.isDirectory(), attrs.size(), attrs.lastModifiedTime().toMillis());
+		if (!info.equals(files.put(path, info))){
+			notifyListeners(path, info);
+		}
+	}
+	
+	private void remove(Path path){
+		if (files.remove(path) != null){
+			notifyListeners(path, null);
+			
+			// Forget about the contents of deleted folders
+			Iterator<Path> it = files.keySet().iterator();
+			while (it.hasNext()){
+				Path child = it.next();
+				if (child.startsWith(path)){
+					it.remove();
+					notifyListeners(child, null);
+				}
+			}
+		}
+	}
+	
+	private void notifyListeners(Path path, FileInfo info){
+		for (FileChangeListener l : getListeners()){
+			l.fileChanged(path, info);
+		}
+	}
+	
+	// -- Queries ---------------------------------------------------------
+	
+	/**
+	 * Returns true if the path is within a watched folder, and can be answered from memory.
+	 */
+	public boolean isWatched(Path path){
+		path = normalize(path);
+		for (Root root : roots.values()){
+			if (root.recursive ? path.startsWith(root.path) : root.path.equals(path.getParent()) || root.path.equals(path)){
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	/**
+	 * Returns the info for the given path, or null if it does not exist.
+	 */
+	public FileInfo getInfo(Path path){
+		if (isWatched(path)){
+			FileInfo info = files.get(normalize(path));
+			if (info != null){
+				return info;
+			}
+		}
+		
+		try {
+			BasicFileAttributes attrs = Files.readAttributes(path, BasicFileAttributes.class);
+			return new FileInfo(attrs.isDirectory(), attrs.size(), attrs.lastModifiedTime().toMillis());
+		} catch (IOException e){
+			return null;
+		}
+	}
+	
+	public boolean exists(Path path){
+		return getInfo(path) != null;
+	}
+	
+	private static Path normalize(Path path){
+		return path.toAbsolutePath().normalize();
+	}
+	
+	// -- Models ----------------------------------------------------------
+	
+	public static class FileInfo {
+		
+		public final boolean directory;
+		public final long size, lastModified;
+		
+		private FileInfo(boolean directory, long size, long lastModified){
+			this.directory = directory;
+			this.size = size;
+			this.lastModified = lastModified;
+		}
+		
+		@Override
+		public int hashCode(){
+			return (int) (size ^ lastModified);
+		}
+		
+		@Override
+		public boolean equals(Object o){
+			if (!(o instanceof FileInfo)){
+				return false;
+			}
+			FileInfo other = (FileInfo) o;
+			return directory == other.directory && size == other.size && lastModified == other.lastModified;
+		}
+	}
+	
+	private static class Root {
+		
+		private final Path path;
+		private final boolean recursive;
+		
+		private Root(Path path, boolean recursive){
+			this.path = path;
+			this.recursive = recursive;
+		}
+	}
+}
@@ -0,0 +1,139 @@
+package aohara.tinkertime.controllers;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+/**
+ * Executor which orders tasks by the keys they are submitted with.
+ * 
+ * A task will only start once every earlier task sharing one of its keys
+ * has finished.  Tasks with no keys in common run concurrently on the
+ * backing Executor.  A task submitted without any keys acts as a barrier;
+ * it waits for all earlier tasks, and all later tasks wait for it.
+ * 
+ * @author Andrew O'Hara
+ */
+public class KeyedExecutor implements Executor {
+	
+	private final Executor executor;
+	private final Map<String, Node> tails = new HashMap<>();
+	private Node barrier;
+	private int numPending = 0;
+	
+	public KeyedExecutor(Executor executor){
+		this.executor = executor;
+	}
+	
+	@Override
+	public void execute(Runnable task) {
+		execute(Collections.<String>emptySet(), task);
+	}
+	
+	public void execute(Collection<String> keys, Runnable task){
+		Node node = new Node(task, keys);
+		synchronized(this){
+			numPending++;
+			if (barrier != null){
+				node.dependOn(barrier);
+			}
+			
+			if (keys.isEmpty()){
+				for (Node tail : new HashSet<>(tails.values())){
+					node.dependOn(tail);
+				}
+				tails.clear();
+				barrier = node;
+			} else {
+				for (String key : node.keys){
+					Node tail = tails.put(key, node);
+					if (tail != null){
+						node.dependOn(tail);
+					}
+				}
+			}
+			
+			if (node.numDependencies > 0){
+				return;
+			}
+		}
+		dispatch(node);
+	}
+	
+	/**
+	 * Returns the number of tasks which have been submitted, but have not yet finished.
+	 */
+	public synchronized int getNumPending(){
+		return numPending;
+	}
+	
+	private void dispatch(final Node node){
+		try {
+			executor.execute(new Runnable(){
+				@Override
+				public void run() {
+					try {
+						node.task.run();
+					} finally {
+						complete(node);
+					}
+				}
+			});
+		} catch (RuntimeException e){
+			complete(node);  // Release the tasks waiting on the rejected one
+			throw e;
+		}
+	}
+	
+	private void complete(Node node){
+		List<Node> ready = new LinkedList<>();
+		synchronized(this){
+			numPending--;
+			node.done = true;
+			for (String key : node.keys){
+				if (tails.get(key) == node){
+					tails.remove(key);
+				}
+			}
+			if (barrier == node){
+				barrier = null;
+			}
+			
+			for (Node dependent : node.dependents){
+				if (--dependent.numDependencies == 0){
+					ready.add(dependent);
+				}
+			}
+		}
+		
+		for (Node dependent : ready){
+			dispatch(dependent);
+		}
+	}
+	
+	private static class Node {
+		
+		private final Runnable task;
+		private final Set<String> keys;
+		private final Set<Node> dependents = new HashSet<>();
+		private int numDependencies = 0;
+		private boolean done = false;
+		
+		private Node(Runnable task, Collection<String> keys){
+			this.task = task;
+			this.keys = new HashSet<>(keys);
+		}
+		
+		private void dependOn(Node node){
+			if (!node.done && node.dependents.add(this)){
+				numDependencies++;
+			}
+		}
+	}
+}
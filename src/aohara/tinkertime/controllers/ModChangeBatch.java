@@ -0,0 +1,73 @@
+package aohara.tinkertime.controllers;
+
+import java.util.Collection;
+import java.util.Collections;
+
+import aohara.common.selectorPanel.SelectorInterface;
+import aohara.tinkertime.models.Mod;
+
+/**
+ * Immutable set of coalesced mod changes, delivered by a {@link ModChangeBus}.
+ * 
+ * Changes must be applied in order: if the batch is a reset, the listener
+ * should first replace its mods with the reset mods, then remove the removed
+ * mods, and then add or replace the updated mods.  A mod appears in at most
+ * one of the removed and updated collections.
+ * 
+ * @author Andrew O'Hara
+ */
+public class ModChangeBatch {
+	
+	private final Collection<Mod> resetMods, removed, updated;
+	
+	ModChangeBatch(Collection<Mod> resetMods, Collection<Mod> removed, Collection<Mod> updated){
+		this.resetMods = resetMods != null ? Collections.unmodifiableCollection(resetMods) : null;
+		this.removed = Collections.unmodifiableCollection(removed);
+		this.updated = Collections.unmodifiableCollection(updated);
+	}
+	
+	public boolean isReset(){
+		return resetMods != null;
+	}
+	
+	/**
+	 * Returns the complete set of mods to start from, if this is a reset.
+	 */
+	public Collection<Mod> getResetMods(){
+		return resetMods != null ? resetMods : Collections.<Mod>emptySet();
+	}
+	
+	public Collection<Mod> getRemoved(){
+		return removed;
+	}
+	
+	/**
+	 * Returns the mods which were added or changed.
+	 */
+	public Collection<Mod> getUpdated(){
+		return updated;
+	}
+	
+	public boolean isEmpty(){
+		return !isReset() && removed.isEmpty() && updated.isEmpty();
+	}
+	
+	/**
+	 * Applies the changes to the given selector, in order.
+	 */
+	public void applyTo(SelectorInterface<Mod> selector){
+		if (isReset()){
+			selector.clear();
+			for (Mod mod : resetMods){
+				selector.addElement(mod);
+			}
+		}
+		for (Mod mod : removed){
+			selector.removeElement(mod);
+		}
+		for (Mod mod : updated){
+			selector.removeElement(mod);
+			selector.addElement(mod);
+		}
+	}
+}
@@ -0,0 +1,127 @@
+package aohara.tinkertime.controllers;
+
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.swing.Timer;
+
+import aohara.common.Listenable;
+import aohara.tinkertime.management.FlightEvents;
+import aohara.tinkertime.models.Mod;
+
+/**
+ * Collects mod changes from any thread, and delivers them to the listeners
+ * on the Event Dispatch Thread as a single {@link ModChangeBatch} per frame.
+ * 
+ * Changes to the same mod are coalesced, so that a burst of changes results
+ * in one update per mod and one repaint, no matter how many times each mod
+ * changed.  Listeners are notified without any lock held.
+ * 
+ * @author Andrew O'Hara
+ */
+public class ModChangeBus extends Listenable<ModChangeListener> {
+	
+	public static final int FRAME_MS = 16;
+	
+	private final Timer timer;
+	private final AtomicBoolean scheduled = new AtomicBoolean(false);
+	private Collection<Mod> resetMods;
+	private Map<String, Mod> removed = new LinkedHashMap<>(), updated = new LinkedHashMap<>();
+	
+	public ModChangeBus(){
+		this(FRAME_MS);
+	}
+	
+	public ModChangeBus(int delayMs){
+		timer = new Timer(delayMs, new ActionListener(){
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				flush();
+			}
+		});
+		timer.setRepeats(false);
+	}
+	
+	// -- Posting ---------------------------------------------------------
+	
+	/**
+	 * Discards any pending changes, and replaces all mods with the given ones.
+	 */
+	public void reset(Collection<Mod> mods){
+		synchronized(this){
+			resetMods = new ArrayList<>(mods);
+			removed.clear();
+			updated.clear();
+		}
+		schedule();
+	}
+	
+	public void modsUpdated(Collection<Mod> mods){
+		synchronized(this){
+			for (Mod mod : mods){
+				removed.remove(mod.id);
+				updated.put(mod.id, mod);
+			}
+		}
+		schedule();
+	}
+	
+	public void modRemoved(Mod mod){
+		synchronized(this){
+			updated.remove(mod.id);
+			removed.put(mod.id, mod);
+		}
+		schedule();
+	}
+	
+	private void schedule(){
+		if (scheduled.compareAndSet(false, true)){
+			timer.start();
+		}
+	}
+	
+	// -- Delivery --------------------------------------------------------
+	
+	/**
+	 * Immediately delivers any pending changes on the calling thread.
+	 */
+	public void flush(){
+		scheduled.set(false);
+		
+		ModChangeBatch batch;
+		synchronized(this){
+			batch = new ModChangeBatch(resetMods, removed.values(), updated.values());
+			resetMods = null;
+			removed = new LinkedHashMap<>();
+			updated = new LinkedHashMap<>();
+		}
+		
+		if (!batch.isEmpty()){
+			FlightEvents.Event event = FlightEvents.begin(FlightEvents.Type.UiUpdate);
+			try {
+				for (ModChangeListener l : getListeners()){
+					l.modsChanged(batch);
+				}
+			} finally {
+				event.commit(getSingleModId(batch), null, 0);
+			}
+		}
+	}
+	
+	/**
+	 * Returns the id of the only mod in the batch, or null if there are several.
+	 */
+	private static String getSingleModId(ModChangeBatch batch){
+		if (batch.isReset()){
+			return null;
+		}
+		Collection<Mod> mods = new ArrayList<>(batch.getRemoved());
+		mods.addAll(batch.getUpdated());
+		return mods.size() == 1 ? mods.iterator().next().id : null;
+	}
+}
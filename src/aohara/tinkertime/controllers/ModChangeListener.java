@@ -0,0 +1,12 @@
+package aohara.tinkertime.controllers;
+
+/**
+ * Public Interface for Classes which receive batches of mod changes from a
+ * {@link ModChangeBus}.  Batches are delivered on the Swing Event Dispatch
+ * Thread.
+ * 
+ * @author Andrew O'Hara
+ */
+public interface ModChangeListener {
+	public void modsChanged(ModChangeBatch batch);
+}
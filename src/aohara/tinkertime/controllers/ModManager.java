@@ -3,6 +3,10 @@ package aohara.tinkertime.controllers;
 import java.io.IOException;
 import java.net.URL;
 import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
 import java.util.concurrent.Executor;
 import java.util.concurrent.Executors;
 
@@ -14,7 +18,9 @@ import aohara.common.workflows.ConflictResolver;
 import aohara.common.workflows.ProgressPanel;
 import aohara.common.workflows.Workflow;
 import aohara.tinkertime.TinkerConfig;
+import aohara.tinkertime.content.ThumbnailCache;
 import aohara.tinkertime.crawlers.CrawlerFactory.UnsupportedHostException;
+import aohara.tinkertime.management.MonitoredExecutor;
 import aohara.tinkertime.models.Mod;
 import aohara.tinkertime.views.DialogConflictResolver;
 import aohara.tinkertime.workflows.ModWorkflowBuilder;
@@ -25,38 +31,43 @@ import aohara.tinkertime.workflows.ModWorkflowBuilder;
  * All Mod-Related Actions are to be initiated through this Controller.
  * All Asynchronous tasks initiated are executed by the executors of this class,
  * and the tasks are represented by {@link aohara.common.workflows.Workflow} classes.
+ * The executors are monitored, so their queues can be watched over JMX.
  * 
  * @author Andrew O'Hara
  */
 public class ModManager extends Listenable<ModUpdateListener> implements WorkflowRunner, ListListener<Mod> {
 	
-	private final Executor downloadExecutor, enablerExecutor;
+	private final MonitoredExecutor downloadExecutor, enablerPool;
+	private final KeyedExecutor enablerExecutor;
 	public final TinkerConfig config;
 	private final ModStateManager sm;
 	private final ProgressPanel progressPanel;
 	private final ConflictResolver cr;
+	private final ThumbnailCache thumbnails;
 	private Mod selectedMod;
 	
-	public static ModManager createDefaultModManager(TinkerConfig config, ModStateManager sm, ProgressPanel pp){
+	public static ModManager createDefaultModManager(TinkerConfig config, ModStateManager sm, ThumbnailCache thumbnails, ProgressPanel pp){
 		
 		ModManager mm =  new ModManager(
-			sm, config, pp, new DialogConflictResolver(),
+			sm, config, thumbnails, pp, new DialogConflictResolver(),
 			Executors.newFixedThreadPool(config.numConcurrentDownloads()),
-			Executors.newSingleThreadExecutor());
+			Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors()));
 		
 		return mm;
 	}
 	
 	public ModManager(
-			ModStateManager sm, TinkerConfig config, ProgressPanel progressPanel,
-			ConflictResolver cr, Executor downloadExecutor,
+			ModStateManager sm, TinkerConfig config, ThumbnailCache thumbnails,
+			ProgressPanel progressPanel, ConflictResolver cr, Executor downloadExecutor,
 			Executor enablerExecutor){
 		this.sm = sm;
 		this.config = config;
+		this.thumbnails = thumbnails;
 		this.progressPanel = progressPanel;
 		this.cr = cr;
-		this.downloadExecutor = downloadExecutor;
-		this.enablerExecutor = enablerExecutor;
+		this.downloadExecutor = new MonitoredExecutor(downloadExecutor);
+		this.enablerPool = new MonitoredExecutor(enablerExecutor);
+		this.enablerExecutor = new KeyedExecutor(enablerPool);
 		
 		addListener(sm);
 	}
@@ -67,6 +78,18 @@ public class ModManager extends Listenable<ModUpdateListener> implements Workflo
 		return selectedMod;
 	}
 	
+	public MonitoredExecutor getDownloadExecutor(){
+		return downloadExecutor;
+	}
+	
+	/**
+	 * Returns the executor running the enabler workflows.  Workflows waiting
+	 * on the lock keys of earlier ones have not yet been queued on it.
+	 */
+	public MonitoredExecutor getEnablerExecutor(){
+		return enablerPool;
+	}
+	
 	// -- Listeners -----------------------
 	
 	@Override
@@ -93,10 +116,22 @@ public class ModManager extends Listenable<ModUpdateListener> implements Workflo
 		downloadExecutor.execute(workflow);
 	}
 	
+	/**
+	 * Submits a workflow which must wait for every previously submitted
+	 * enabler workflow, and which every later one must wait for.
+	 */
 	@Override
 	public void submitEnablerWorkflow(Workflow workflow){
+		submitEnablerWorkflow(workflow, Collections.<String>emptySet());
+	}
+	
+	/**
+	 * Submits a workflow which is only ordered against the enabler workflows
+	 * sharing one of its lock keys.  Workflows for unrelated mods run concurrently.
+	 */
+	public void submitEnablerWorkflow(Workflow workflow, Collection<String> lockKeys){
 		workflow.addListener(progressPanel);
-		enablerExecutor.execute(workflow);
+		enablerExecutor.execute(lockKeys, workflow);
 	}
 	
 	public void updateMod(Mod mod) throws ModUpdateFailedError {
@@ -107,14 +142,14 @@ public class ModManager extends Listenable<ModUpdateListener> implements Workflo
 		ModWorkflowBuilder builder = new ModWorkflowBuilder("Updating " + mod.getName());
 		try {
 			// Cleanup operations prior to update
-			if (mod.isDownloaded(config)){
+			if (sm.isDownloaded(mod)){
 				if (mod.isEnabled()){
 					builder.disableMod( mod, config, sm);
 				}
 				
 				builder.deleteModZip(mod, config);
 			}
-			builder.downloadMod(mod.getPageUrl(), config, sm);
+			builder.downloadMod(mod.getPageUrl(), config, sm, thumbnails);
 			submitDownloadWorkflow(builder.buildWorkflow());
 		} catch (IOException | UnsupportedHostException e) {
 			throw new ModUpdateFailedError(e);
@@ -122,9 +157,16 @@ public class ModManager extends Listenable<ModUpdateListener> implements Workflo
 	}
 	
 	public void downloadMod(URL url) throws ModUpdateFailedError, UnsupportedHostException {
+		// Another form of the URL of an existing mod is an update, not a new mod
+		Mod existing = sm.getModByPage(url);
+		if (existing != null){
+			updateMod(existing);
+			return;
+		}
+		
 		ModWorkflowBuilder builder = new ModWorkflowBuilder("Downloading " + FilenameUtils.getBaseName(url.toString()));
 		try {
-			builder.downloadMod(url, config, sm);
+			builder.downloadMod(url, config, sm, thumbnails);
 			submitDownloadWorkflow(builder.buildWorkflow());
 		} catch (IOException e) {
 			throw new ModUpdateFailedError(e);
@@ -146,13 +188,13 @@ public class ModManager extends Listenable<ModUpdateListener> implements Workflo
 	public void enableMod(Mod mod) throws ModAlreadyEnabledError, ModNotDownloadedError, IOException {
 		if (mod.isEnabled()){
 			throw new ModAlreadyEnabledError();
-		} else if (!mod.isDownloaded(config)){
+		} else if (!sm.isDownloaded(mod)){
 			throw new ModNotDownloadedError(mod, "Cannot enable since not downloaded");
 		}
 		
 		ModWorkflowBuilder builder = new ModWorkflowBuilder("Enabling " + mod);
 		builder.enableMod(mod, config, sm, cr);
-		submitEnablerWorkflow(builder.buildWorkflow());
+		submitEnablerWorkflow(builder.buildWorkflow(), builder.getLockKeys());
 	}
 	
 	public void disableMod(Mod mod) throws ModAlreadyDisabledError, IOException {
@@ -162,13 +204,68 @@ public class ModManager extends Listenable<ModUpdateListener> implements Workflo
 		
 		ModWorkflowBuilder builder = new ModWorkflowBuilder("Disabling " + mod);
 		builder.disableMod(mod, config, sm);
-		submitEnablerWorkflow(builder.buildWorkflow());
+		submitEnablerWorkflow(builder.buildWorkflow(), builder.getLockKeys());
+	}
+	
+	/**
+	 * Enables all of the given mods which are not already enabled, using a
+	 * single workflow with a merged extraction plan.
+	 */
+	public void enableMods(Collection<Mod> mods) throws ModNotDownloadedError, IOException {
+		Set<Mod> toEnable = new LinkedHashSet<>();
+		for (Mod mod : mods){
+			if (!mod.isEnabled()){
+				if (!sm.isDownloaded(mod)){
+					throw new ModNotDownloadedError(mod, "Cannot enable since not downloaded");
+				}
+				toEnable.add(mod);
+			}
+		}
+		
+		if (!toEnable.isEmpty()){
+			ModWorkflowBuilder builder = new ModWorkflowBuilder("Enabling " + toEnable.size() + " mods");
+			builder.enableMods(toEnable, config, sm, cr);
+			submitEnablerWorkflow(builder.buildWorkflow(), builder.getLockKeys());
+		}
+	}
+	
+	/**
+	 * Disables all of the given mods which are currently enabled, using a
+	 * single workflow with a merged deletion plan.
+	 */
+	public void disableMods(Collection<Mod> mods) throws IOException {
+		Set<Mod> toDisable = new LinkedHashSet<>();
+		for (Mod mod : mods){
+			if (mod.isEnabled()){
+				toDisable.add(mod);
+			}
+		}
+		
+		if (!toDisable.isEmpty()){
+			ModWorkflowBuilder builder = new ModWorkflowBuilder("Disabling " + toDisable.size() + " mods");
+			builder.disableMods(toDisable, config, sm);
+			submitEnablerWorkflow(builder.buildWorkflow(), builder.getLockKeys());
+		}
+	}
+	
+	public void enableAllMods() throws ModNotDownloadedError, IOException {
+		Set<Mod> downloaded = new LinkedHashSet<>();
+		for (Mod mod : sm.getMods()){
+			if (sm.isDownloaded(mod)){
+				downloaded.add(mod);
+			}
+		}
+		enableMods(downloaded);
+	}
+	
+	public void disableAllMods() throws IOException {
+		disableMods(sm.getMods());
 	}
 	
 	public void deleteMod(Mod mod) throws CannotDisableModError, IOException {
 		ModWorkflowBuilder builder = new ModWorkflowBuilder("Deleting " + mod);
 		builder.deleteMod(mod, config, sm);
-		submitEnablerWorkflow(builder.buildWorkflow());
+		submitEnablerWorkflow(builder.buildWorkflow(), builder.getLockKeys());
 	}
 	
 	public void checkForModUpdates() throws Exception{
@@ -0,0 +1,267 @@
+package aohara.tinkertime.controllers;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+import aohara.tinkertime.management.FlightEvents;
+import aohara.tinkertime.models.Mod;
+import aohara.tinkertime.models.ModTypeAdapter;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+
+/**
+ * Journaling persister for the mod state.
+ * 
+ * Rather than rewriting the whole state file, each change is appended as a
+ * single record to a journal next to the state file.  Once the journal holds
+ * enough records, it is compacted in the background by writing a fresh
+ * snapshot to the state file and starting a new journal.
+ * 
+ * Each record is one line containing the CRC32 of its JSON body followed by
+ * the body.  On load, the snapshot is read and the journal is replayed on top
+ * of it.  Replay stops at the first incomplete or corrupt record, and the
+ * journal is truncated there.
+ * 
+ * @author Andrew O'Hara
+ */
+public class ModStateJournal extends ModStatePersister {
+	
+	public static final int DEFAULT_COMPACT_AFTER_RECORDS = 500;
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+	private static final String PUT = "put", DELETE = "delete";
+	
+	private final Path journalPath;
+	private final int compactAfterRecords;
+	private final Gson recordGson = ModTypeAdapter.gsonBuilder().create();
+	private final List<String> pending = new ArrayList<>();
+	private int numRecords = 0;
+	
+	public ModStateJournal(Path path, Gson gson, StateSource source){
+		this(path, gson, source, DEFAULT_COMPACT_AFTER_RECORDS);
+	}
+	
+	public ModStateJournal(Path path, Gson gson, StateSource source, int compactAfterRecords){
+		super(path, gson, source);
+		this.journalPath = getJournalPath(path);
+		this.compactAfterRecords = compactAfterRecords;
+	}
+	
+	public static Path getJournalPath(Path modsListPath){
+		return modsListPath.resolveSibling(modsListPath.getFileName() + ".journal");
+	}
+	
+	// -- Loading ---------------------------------------------------------
+	
+	@Override
+	public Set<Mod> load(){
+		Set<Mod> snapshot = super.load();
+		Map<String, Mod> mods = new LinkedHashMap<>();
+		for (Mod mod : snapshot){
+			mods.put(mod.id, mod);
+		}
+		
+		synchronized(saveLock){
+			try {
+				numRecords = replay(mods);
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		}
+		
+		snapshot.clear();
+		snapshot.addAll(mods.values());
+		return snapshot;
+	}
+	
+	private int replay(Map<String, Mod> mods) throws IOException {
+		if (!journalPath.toFile().exists()){
+			return 0;
+		}
+		
+		byte[] bytes = Files.readAllBytes(journalPath);
+		int start = 0, replayed = 0;
+		while (start < bytes.length){
+			int end = indexOf(bytes, (byte) '\n', start);
+			Record record = end >= 0 ? parse(new String(bytes, start, end - start, UTF8)) : null;
+			if (record == null){
+				// Torn or corrupt record; drop it and everything after it
+				try(FileChannel channel = FileChannel.open(journalPath, StandardOpenOption.WRITE)){
+					channel.truncate(start);
+				}
+				break;
+			}
+			
+			if (PUT.equals(record.op) && record.mod != null){
+				mods.put(record.mod.id, record.mod);
+			} else if (DELETE.equals(record.op)){
+				mods.remove(record.id);
+			}
+			
+			replayed++;
+			start = end + 1;
+		}
+		return replayed;
+	}
+	
+	private Record parse(String line){
+		int split = line.indexOf(' ');
+		if (split <= 0){
+			return null;
+		}
+		
+		String body = line.substring(split + 1);
+		try {
+			if (Long.parseLong(line.substring(0, split), 16) != checksum(body)){
+				return null;
+			}
+			return recordGson.fromJson(body, Record.class);
+		} catch (NumberFormatException | JsonParseException e){
+			return null;
+		}
+	}
+	
+	private static int indexOf(byte[] bytes, byte b, int from){
+		for (int i=from; i<bytes.length; i++){
+			if (bytes[i] == b){
+				return i;
+			}
+		}
+		return -1;
+	}
+	
+	// -- Recording -------------------------------------------------------
+	
+	@Override
+	public boolean recordsChanges(){
+		return true;
+	}
+	
+	@Override
+	public void modUpdated(Mod mod){
+		Record record = new Record();
+		record.op = PUT;
+		record.mod = mod;
+		record(record);
+	}
+	
+	@Override
+	public void modDeleted(Mod mod){
+		Record record = new Record();
+		record.op = DELETE;
+		record.id = mod.id;
+		record(record);
+	}
+	
+	private void record(Record record){
+		// Serialize now, since the mod may change before the record is written
+		String body = recordGson.toJson(record);
+		synchronized(pending){
+			pending.add(Long.toHexString(checksum(body)) + " " + body + "\n");
+		}
+		scheduleFlush();
+	}
+	
+	@Override
+	public void flush(){
+		synchronized(saveLock){
+			long start = System.nanoTime(), startBytes = getBytesWritten();
+			FlightEvents.Event event = FlightEvents.begin(FlightEvents.Type.StateSave);
+			try {
+				List<String> lines = drainPending();
+				append(lines);
+				if (numRecords >= compactAfterRecords){
+					compact();
+				}
+				if (!lines.isEmpty()){
+					countSave(start);
+					event.commit(null, null, getBytesWritten() - startBytes);
+				}
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		}
+	}
+	
+	/**
+	 * Writes a new snapshot and starts a new journal.
+	 * 
+	 * Records queued while the snapshot was taken are written to both the old
+	 * and the new journal, so that replaying whichever journal survives a crash
+	 * never rolls a mod back to an older state than the snapshot.
+	 */
+	private void compact() throws IOException {
+		Set<Mod> snapshot = source.getModsSnapshot();
+		List<String> lines = drainPending();
+		append(lines);
+		save(snapshot);
+		
+		Path temp = Files.createTempFile(journalPath.toAbsolutePath().getParent(), journalPath.getFileName().toString(), ".tmp");
+		try {
+			write(temp, lines, false);
+			try {
+				Files.move(temp, journalPath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			} catch (AtomicMoveNotSupportedException e){
+				Files.move(temp, journalPath, StandardCopyOption.REPLACE_EXISTING);
+			}
+		} finally {
+			Files.deleteIfExists(temp);
+		}
+		numRecords = lines.size();
+	}
+	
+	private List<String> drainPending(){
+		synchronized(pending){
+			List<String> lines = new ArrayList<>(pending);
+			pending.clear();
+			return lines;
+		}
+	}
+	
+	private void append(List<String> lines) throws IOException {
+		if (!lines.isEmpty()){
+			write(journalPath, lines, true);
+			numRecords += lines.size();
+		}
+	}
+	
+	private void write(Path path, List<String> lines, boolean append) throws IOException {
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		for (String line : lines){
+			buffer.write(line.getBytes(UTF8));
+		}
+		
+		try(OutputStream os = append
+			? Files.newOutputStream(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)
+			: Files.newOutputStream(path)
+		){
+			buffer.writeTo(os);
+		}
+		countBytesWritten(buffer.size());
+	}
+	
+	private static long checksum(String body){
+		CRC32 crc = new CRC32();
+		crc.update(body.getBytes(UTF8));
+		return crc.getValue();
+	}
+	
+	private static class Record {
+		private String op, id;
+		private Mod mod;
+	}
+}
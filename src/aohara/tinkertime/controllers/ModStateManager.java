@@ -1,14 +1,18 @@
 package aohara.tinkertime.controllers;
 
-import java.io.FileNotFoundException;
-import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.lang.reflect.Type;
 import java.net.URL;
 import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import thirdParty.ZipNode;
 
 import aohara.common.Listenable;
 import aohara.common.selectorPanel.SelectorInterface;
@@ -16,82 +20,168 @@ import aohara.tinkertime.TinkerConfig;
 import aohara.tinkertime.models.DefaultMods;
 import aohara.tinkertime.models.Mod;
 import aohara.tinkertime.models.FileUpdateListener;
+import aohara.tinkertime.models.ModRegistry;
+import aohara.tinkertime.models.ModStructure;
+import aohara.tinkertime.models.ModTypeAdapter;
 
 import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 import com.google.gson.reflect.TypeToken;
 
 /**
  * Controller for Storing and Retrieving persistent mod state.
  * 
  * Any time a mod's information or state is updated, the updater must call
- * modUpdated as specified by the ModUpdateListener interface. 
+ * modUpdated as specified by the ModUpdateListener interface.
+ * 
+ * Listeners are notified of changes through a {@link ModChangeBus}, in
+ * coalesced batches on the Event Dispatch Thread.
+ * 
+ * Changes are saved in the background by a {@link ModStatePersister}, or
+ * appended to a {@link ModStateJournal} if journaling is enabled; call flush
+ * to force any pending changes to disk.
+ * 
+ * Whether a mod is downloaded is answered by a {@link FileWatchIndex}.  Once
+ * GameData is watched, a mod's enabled flag follows its modules as they are
+ * added to or removed from GameData outside of the application.
  * 
  * @author Andrew O'Hara
  */
 public class ModStateManager extends Listenable<SelectorInterface<Mod>>
-		implements ModUpdateListener, FileUpdateListener {
+		implements ModUpdateListener, FileUpdateListener, ModStatePersister.StateSource,
+		FileWatchIndex.FileChangeListener {
 	
-	private final Gson gson;
 	private final TinkerConfig config;
+	private final FileWatchIndex fileIndex;
+	private final Map<Path, ModuleNames> moduleNames = new ConcurrentHashMap<>();
+	private final Gson gson;
 	private final Type modsType = new TypeToken<Set<Mod>>() {}.getType();
+	private final ModStatePersister persister;
+	private final ModChangeBus changeBus = new ModChangeBus();
 	
-	private final Set<Mod> modCache = new HashSet<>();
+	private volatile ModRegistry registry = ModRegistry.EMPTY;
 	
 	public ModStateManager(TinkerConfig config){
-		gson = new GsonBuilder().setPrettyPrinting().create();
-		this.config = config;
+		this(config, new FileWatchIndex());
 	}
 	
-	private synchronized Set<Mod> loadMods(){
-		Set<Mod> mods = new HashSet<>();
-		try(FileReader reader = new FileReader(config.getModsListPath().toFile())){
-			Set<Mod> loadedMods = gson.fromJson(reader, modsType);
-			if(loadedMods != null){
-				mods.addAll(loadedMods);
-			}
-		} catch (FileNotFoundException e){
-			// No Action
-		} catch (IOException e1) {
-			e1.printStackTrace();
-		}
+	/**
+	 * @param fileIndex index of the mod folders; until they are watched, it
+	 * 	queries the disk
+	 */
+	public ModStateManager(TinkerConfig config, FileWatchIndex fileIndex){
+		this.config = config;
+		this.fileIndex = fileIndex;
 		
+		// The state file is compact; only exported mod lists are pretty printed
+		Gson stateGson = ModTypeAdapter.gsonBuilder().create();
+		gson = ModTypeAdapter.gsonBuilder().setPrettyPrinting().create();
+		persister = config.journalModState()
+			? new ModStateJournal(config.getModsListPath(), stateGson, this)
+			: new ModStatePersister(config.getModsListPath(), stateGson, this);
+		
+		changeBus.addListener(new ModChangeListener(){
+			@Override
+			public void modsChanged(ModChangeBatch batch) {
+				for (SelectorInterface<Mod> l : getListeners()){
+					batch.applyTo(l);
+				}
+			}
+		});
+	}
+	
+	private Set<Mod> loadMods(){
+		Set<Mod> mods = persister.load();
 		mods.addAll(DefaultMods.getDefaults());
 		return mods;
 	}
 	
-	public synchronized Set<Mod> getMods(){
-		if (modCache.isEmpty()){
-			modCache.addAll(loadMods());
-			for (SelectorInterface<Mod> l : getListeners()){
-				l.clear();
-				for (Mod mod : modCache){
-					l.addElement(mod);
+	/**
+	 * Returns the current snapshot of the registered mods.
+	 * 
+	 * The registry is immutable, so it can be read without locking.  If no
+	 * mods are registered yet, they are first loaded from disk.
+	 */
+	public ModRegistry getRegistry(){
+		ModRegistry current = registry;
+		if (current.isEmpty()){
+			synchronized(this){
+				if (registry.isEmpty()){
+					registry = registry.with(loadMods());
+					changeBus.reset(registry.getMods());
 				}
+				current = registry;
 			}
 		}
-		return new HashSet<Mod>(modCache);
+		return current;
+	}
+	
+	/**
+	 * Returns an unmodifiable view of the registered mods.
+	 */
+	public Set<Mod> getMods(){
+		return getRegistry().getMods();
+	}
+	
+	@Override
+	public Set<Mod> getModsSnapshot(){
+		return registry.getMods();
 	}
 
 	@Override
 	public synchronized void modUpdated(Mod mod) {
-		modCache.remove(mod);
-		modCache.add(mod);
-		
-		for (SelectorInterface<Mod> l : getListeners()){
-			l.removeElement(mod);
-			l.addElement(mod);
+		modsUpdated(Collections.singleton(mod));
+	}
+	
+	/**
+	 * Registers several mods as updated, but only saves the mod state once.
+	 */
+	public synchronized void modsUpdated(Collection<Mod> mods){
+		// A journal must queue its records before any snapshot containing the
+		// changes is taken; other persisters must only be marked dirty once the
+		// snapshot they will save contains the changes
+		if (persister.recordsChanges()){
+			for (Mod mod : mods){
+				persister.modUpdated(mod);
+			}
+			registry = registry.with(mods);
+		} else {
+			registry = registry.with(mods);
+			for (Mod mod : mods){
+				persister.modUpdated(mod);
+			}
 		}
-		
-		saveMods(modCache, config.getModsListPath());
+		changeBus.modsUpdated(mods);
 	}
 	
 	public synchronized void modDeleted(Mod mod){
-		modCache.remove(mod);
-		for (SelectorInterface<Mod> l : getListeners()){
-			l.removeElement(mod);
+		if (persister.recordsChanges()){
+			persister.modDeleted(mod);
+			registry = registry.without(mod);
+		} else {
+			registry = registry.without(mod);
+			persister.modDeleted(mod);
 		}
-		saveMods(modCache, config.getModsListPath());
+		changeBus.modRemoved(mod);
+	}
+	
+	/**
+	 * Immediately writes any pending changes to the mod state file.
+	 */
+	public void flush(){
+		persister.flush();
+	}
+	
+	public ModChangeBus getChangeBus(){
+		return changeBus;
+	}
+	
+	public ModStatePersister getPersister(){
+		return persister;
+	}
+	
+	public boolean isDownloaded(Mod mod){
+		Path zipPath = mod.getCachedZipPath(config);
+		return zipPath != null && fileIndex.exists(zipPath);
 	}
 	
 	private void saveMods(Set<Mod> mods, Path path){
@@ -112,13 +202,141 @@ public class ModStateManager extends Listenable<SelectorInterface<Mod>>
 		saveMods(toExport, path);
 	}
 
+	/**
+	 * Refreshes the views of any mods whose zip was added, changed, or
+	 * removed outside of the application, and updates the enabled flag of
+	 * any mods whose modules were added to or removed from GameData.
+	 */
 	@Override
-	public synchronized void setUpdateAvailable(URL pageUrl, URL downloadLink, String newestFileName) {
+	public void fileChanged(Path path, FileWatchIndex.FileInfo info){
+		Path zipFolder = config.getModsZipPath().toAbsolutePath().normalize();
+		if (zipFolder.equals(path.getParent())){
+			moduleNames.remove(path);
+			for (Mod mod : registry.getMods()){
+				Path zipPath = mod.getCachedZipPath(config);
+				if (zipPath != null && path.equals(zipPath.toAbsolutePath().normalize())){
+					changeBus.modsUpdated(Collections.singleton(mod));
+				}
+			}
+		}
+		
+		// Only the top level of GameData holds modules
+		if (getGameDataFolder().equals(path.getParent())){
+			reconcileEnabled(path.getFileName().toString());
+		}
+	}
+	
+	/**
+	 * Sets the enabled flag of every downloaded mod to whether all of its
+	 * modules are in GameData.  Call once GameData is watched, to correct
+	 * any changes made while the application was closed.
+	 */
+	public void reconcileEnabled(){
+		reconcileEnabled(null);
+	}
+	
+	/**
+	 * @param moduleName only reconcile the mods using this module, or null
+	 * 	for every mod
+	 */
+	private void reconcileEnabled(String moduleName){
+		Path gameData = getGameDataFolder();
+		Set<Mod> changed = new HashSet<>();
 		for (Mod mod : getMods()){
-			if (mod.isUpdateable() && mod.getPageUrl().equals(pageUrl)){
-				modUpdated(mod);
-				break;
+			Set<String> modules = getModuleNames(mod);
+			if (modules.isEmpty() || (moduleName != null && !containsIgnoreCase(modules, moduleName))){
+				continue;
+			}
+			
+			boolean enabled = true;
+			for (String module : modules){
+				enabled &= fileIndex.exists(gameData.resolve(module));
+			}
+			if (enabled != mod.isEnabled()){
+				mod.setEnabled(enabled);
+				changed.add(mod);
+			}
+		}
+		
+		if (!changed.isEmpty()){
+			modsUpdated(changed);
+		}
+	}
+	
+	/**
+	 * Returns the names of the GameData entries the mod installs, or an empty
+	 * set if it is not downloaded.  Archives are only inspected once for each
+	 * version of their zip.
+	 */
+	private Set<String> getModuleNames(Mod mod){
+		if (!isDownloaded(mod)){
+			return Collections.emptySet();
+		}
+		if (!mod.getNewestFileName().toLowerCase().endsWith(".zip")){
+			return Collections.singleton(mod.getNewestFileName());
+		}
+		
+		Path zipPath = mod.getCachedZipPath(config).toAbsolutePath().normalize();
+		FileWatchIndex.FileInfo info = fileIndex.getInfo(zipPath);
+		ModuleNames names = moduleNames.get(zipPath);
+		if (names == null || info == null || names.lastModified != info.lastModified || names.size != info.size){
+			Set<String> modules = new HashSet<>();
+			try {
+				for (ZipNode module : ModStructure.inspectArchive(zipPath).getModules()){
+					modules.add(module.getName().replaceAll("/$", ""));
+				}
+			} catch (IOException e){
+				return Collections.emptySet();
 			}
+			names = new ModuleNames(modules, info != null ? info.lastModified : 0, info != null ? info.size : 0);
+			moduleNames.put(zipPath, names);
+		}
+		return names.modules;
+	}
+	
+	private Path getGameDataFolder(){
+		return config.getGameDataPath().toAbsolutePath().normalize();
+	}
+	
+	private static boolean containsIgnoreCase(Set<String> names, String name){
+		// GameData may be on a case-insensitive file system
+		for (String n : names){
+			if (n.equalsIgnoreCase(name)){
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	private static class ModuleNames {
+		
+		private final Set<String> modules;
+		private final long lastModified, size;
+		
+		private ModuleNames(Set<String> modules, long lastModified, long size){
+			this.modules = modules;
+			this.lastModified = lastModified;
+			this.size = size;
+		}
+	}
+	
+	/**
+	 * Returns the mod whose page matches the given URL, regardless of how the
+	 * URL is written, or null if there is no such mod.
+	 */
+	public Mod getModByPage(URL pageUrl){
+		return getRegistry().getByPageUrl(pageUrl);
+	}
+	
+	/**
+	 * Refreshes the listeners for the mod.  Update availability is not
+	 * persisted, so the mod state is not saved.
+	 */
+	@Override
+	public synchronized void setUpdateAvailable(URL pageUrl, URL downloadLink, String newestFileName) {
+		Mod mod = getModByPage(pageUrl);
+		if (mod != null && mod.isUpdateable()){
+			changeBus.modsUpdated(Collections.singleton(mod));
 		}
 	}
 }
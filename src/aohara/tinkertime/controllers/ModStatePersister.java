@@ -0,0 +1,211 @@
+package aohara.tinkertime.controllers;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.reflect.Type;
+import java.nio.charset.Charset;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import aohara.tinkertime.management.FlightEvents;
+import aohara.tinkertime.models.Mod;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.reflect.TypeToken;
+
+/**
+ * Write-behind persister for the mod state file.
+ * 
+ * Changes only mark the state as dirty.  The state is saved on a background
+ * thread after a short delay, so a burst of changes results in a single save.
+ * The snapshot to be saved is requested from the {@link StateSource}, and is
+ * written to a temporary file which then atomically replaces the state file.
+ * 
+ * The number of saves, their total duration, and the bytes written are
+ * counted, so the cost of persisting can be measured.
+ * 
+ * @author Andrew O'Hara
+ */
+public class ModStatePersister {
+	
+	/**
+	 * Source of the mod state to be saved.  Must return a set which will not
+	 * be modified while it is being written.
+	 */
+	public static interface StateSource {
+		public Set<Mod> getModsSnapshot();
+	}
+	
+	public static final long SAVE_DELAY_MS = 250;
+	protected static final Type MODS_TYPE = new TypeToken<Set<Mod>>() {}.getType();
+	
+	protected final Path path;
+	protected final Gson gson;
+	protected final StateSource source;
+	protected final Object saveLock = new Object();
+	private final ScheduledExecutorService executor;
+	private final AtomicBoolean dirty = new AtomicBoolean(false), scheduled = new AtomicBoolean(false);
+	private final AtomicLong numSaves = new AtomicLong(), saveNanos = new AtomicLong(), bytesWritten = new AtomicLong();
+	
+	public ModStatePersister(Path path, Gson gson, StateSource source){
+		this.path = path;
+		this.gson = gson;
+		this.source = source;
+		executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory(){
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread thread = new Thread(r, "Mod State Persister");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+	}
+	
+	public Set<Mod> load(){
+		Set<Mod> mods = new HashSet<>();
+		try(Reader reader = Files.newBufferedReader(path, Charset.defaultCharset())){
+			Set<Mod> loadedMods = gson.fromJson(reader, MODS_TYPE);
+			if (loadedMods != null){
+				mods.addAll(loadedMods);
+				mods.remove(null);  // Entries which could not be read
+			}
+		} catch (FileNotFoundException | NoSuchFileException e){
+			// No Action
+		} catch (IOException | JsonParseException | IllegalStateException e) {
+			e.printStackTrace();
+			setAside(path);
+		}
+		return mods;
+	}
+	
+	/**
+	 * Moves a state file which could not be read out of the way, so that the
+	 * next save does not overwrite the mods it still holds.
+	 */
+	protected static void setAside(Path unreadable){
+		Path dest = unreadable.resolveSibling(unreadable.getFileName() + ".unreadable");
+		try {
+			Files.move(unreadable, dest, StandardCopyOption.REPLACE_EXISTING);
+			System.err.println("Could not read " + unreadable + "; it was moved to " + dest);
+		} catch (IOException e){
+			e.printStackTrace();
+		}
+	}
+	
+	/**
+	 * Returns whether each change is recorded, rather than read from the next
+	 * snapshot.  Recorded changes must be passed before they are published to
+	 * the snapshot, and other changes after, so that no save can miss them.
+	 */
+	public boolean recordsChanges(){
+		return false;
+	}
+	
+	public void modUpdated(Mod mod){
+		markDirty();
+	}
+	
+	public void modDeleted(Mod mod){
+		markDirty();
+	}
+	
+	/**
+	 * Schedules a save, unless one is already pending.
+	 */
+	public void markDirty(){
+		dirty.set(true);
+		scheduleFlush();
+	}
+	
+	protected void scheduleFlush(){
+		if (scheduled.compareAndSet(false, true)){
+			executor.schedule(new Runnable(){
+				@Override
+				public void run() {
+					scheduled.set(false);
+					flush();
+				}
+			}, SAVE_DELAY_MS, TimeUnit.MILLISECONDS);
+		}
+	}
+	
+	/**
+	 * Immediately saves the state on the calling thread if it is dirty.
+	 */
+	public void flush(){
+		synchronized(saveLock){
+			if (dirty.getAndSet(false)){
+				long start = System.nanoTime(), startBytes = getBytesWritten();
+				FlightEvents.Event event = FlightEvents.begin(FlightEvents.Type.StateSave);
+				try {
+					save(source.getModsSnapshot());
+					countSave(start);
+				} catch (IOException e) {
+					dirty.set(true);
+					e.printStackTrace();
+				} finally {
+					event.commit(null, null, getBytesWritten() - startBytes);
+				}
+			}
+		}
+	}
+	
+	protected void save(Set<Mod> mods) throws IOException {
+		writeAtomically(path, mods);
+	}
+	
+	protected void writeAtomically(Path dest, Set<Mod> mods) throws IOException {
+		Path temp = Files.createTempFile(dest.toAbsolutePath().getParent(), dest.getFileName().toString(), ".tmp");
+		try {
+			try(Writer writer = Files.newBufferedWriter(temp, Charset.defaultCharset())){
+				gson.toJson(mods, MODS_TYPE, writer);
+			}
+			countBytesWritten(Files.size(temp));
+			
+			try {
+				Files.move(temp, dest, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			} catch (AtomicMoveNotSupportedException e){
+				Files.move(temp, dest, StandardCopyOption.REPLACE_EXISTING);
+			}
+		} finally {
+			Files.deleteIfExists(temp);
+		}
+	}
+	
+	// -- Statistics ------------------------------------------------------
+	
+	protected void countSave(long startNanos){
+		numSaves.incrementAndGet();
+		saveNanos.addAndGet(System.nanoTime() - startNanos);
+	}
+	
+	protected void countBytesWritten(long bytes){
+		bytesWritten.addAndGet(bytes);
+	}
+	
+	public long getNumSaves(){
+		return numSaves.get();
+	}
+	
+	public long getTotalSaveTimeMs(){
+		return TimeUnit.NANOSECONDS.toMillis(saveNanos.get());
+	}
+	
+	public long getBytesWritten(){
+		return bytesWritten.get();
+	}
+}
@@ -11,6 +11,7 @@ import com.google.gson.JsonObject;
 import aohara.tinkertime.crawlers.pageLoaders.JsonLoader;
 import aohara.tinkertime.crawlers.pageLoaders.PageLoader;
 import aohara.tinkertime.crawlers.pageLoaders.WebpageLoader;
+import aohara.tinkertime.models.ResourceKey;
 
 /**
  * Factory for creating crawlers.
@@ -21,15 +22,15 @@ import aohara.tinkertime.crawlers.pageLoaders.WebpageLoader;
 public class CrawlerFactory {
 	
 	public Crawler<?> getCrawler(URL url) throws UnsupportedHostException{
-		String host = url.getHost();
+		ResourceKey key = ResourceKey.of(url);
 		
-		if (host.contains(Constants.HOST_CURSE)){
+		if (key.isOnHost(Constants.HOST_CURSE)){
 			return new CurseCrawler(url, createHtmlLoader());
-		} else if (host.contains(Constants.HOST_GITHUB)){
+		} else if (key.isOnHost(Constants.HOST_GITHUB)){
 			return new GithubCrawler(url, createHtmlLoader());
-		} else if (host.contains(Constants.HOST_KERBAL_STUFF)){
+		} else if (key.isOnHost(Constants.HOST_KERBAL_STUFF)){
 			return new KerbalStuffCrawler(url, createJsonLoader());
-		} else if (host.equals(Constants.HOST_MODULE_MANAGER)){
+		} else if (key.getHost().equals(ResourceKey.normalizeHost(Constants.HOST_MODULE_MANAGER))){
 			try {
 				URL artifactUrl = new URL(Constants.MODULE_MANAGER_ARTIFACT_DL_URL);
 				return new JenkinsCrawler(url, createJsonLoader(), "Module Manager", artifactUrl);
@@ -38,7 +39,7 @@ public class CrawlerFactory {
 			}
 		}
 		
-		throw new UnsupportedHostException(host);
+		throw new UnsupportedHostException(url.getHost());
 	}
 	
 	protected PageLoader<Document> createHtmlLoader(){
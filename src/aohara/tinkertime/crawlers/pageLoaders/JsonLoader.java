@@ -8,6 +8,10 @@ import java.util.HashMap;
 import java.util.Map;
 
 import aohara.tinkertime.crawlers.Crawler;
+import aohara.tinkertime.management.CacheStats;
+import aohara.tinkertime.management.FlightEvents;
+import aohara.tinkertime.models.ResourceKey;
+import aohara.tinkertime.net.ConnectionFactory;
 
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
@@ -15,21 +19,33 @@ import com.google.gson.JsonParser;
 /**
  * PageLoader for loading and caching Json Documents from the web.
  * 
+ * The hits and misses of every loader's cache are counted in {@link #STATS}.
+ * 
  * @author Andrew O'Hara
  */
 public class JsonLoader implements PageLoader<JsonObject> {
 	
-	private final Map<URL, JsonObject> cache = new HashMap<>();
+	public static final CacheStats STATS = new CacheStats();
+	
+	private final Map<ResourceKey, JsonObject> cache = new HashMap<>();
 	private final JsonParser parser = new JsonParser();
-
+	
 	@Override
 	public JsonObject getPage(Crawler<JsonObject> crawler, URL url) throws IOException {
-		if (!cache.containsKey(url)){
-			try(Reader r = new InputStreamReader(url.openStream())){
-				cache.put(url, parser.parse(r).getAsJsonObject());
+		ResourceKey key = ResourceKey.of(url);
+		if (cache.containsKey(key)){
+			STATS.hit();
+		} else {
+			STATS.miss();
+			FlightEvents.Event event = FlightEvents.begin(FlightEvents.Type.PageFetch);
+			long startBytes = ConnectionFactory.getBytesReadOnThread();
+			try(Reader r = new InputStreamReader(ConnectionFactory.getDefault().openStream(url))){
+				cache.put(key, parser.parse(r).getAsJsonObject());
+			} finally {
+				event.commit(crawler.generateId(), url.getHost(), ConnectionFactory.getBytesReadOnThread() - startBytes);
 			}
 		}
-		return cache.get(url);
+		return cache.get(key);
 	}
 
 }
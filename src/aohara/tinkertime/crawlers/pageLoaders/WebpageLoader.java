@@ -9,22 +9,40 @@ import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
 
 import aohara.tinkertime.crawlers.Crawler;
-	
+import aohara.tinkertime.management.CacheStats;
+import aohara.tinkertime.management.FlightEvents;
+import aohara.tinkertime.models.ResourceKey;
+import aohara.tinkertime.net.ConnectionFactory;
+import aohara.tinkertime.net.Response;
+
 /**
  * PageLoader for loading and caching HTML documents from the web.
  * 
+ * The hits and misses of every loader's cache are counted in {@link #STATS}.
+ * 
  * @author Andrew O'Hara
  */
 public class WebpageLoader implements PageLoader<Document>{
 	
-	private static final int TIMEOUT_MS = 10000;
-		
-	private final Map<URL, Document> documentCache = new HashMap<>();
+	public static final CacheStats STATS = new CacheStats();
+	
+	private final Map<ResourceKey, Document> documentCache = new HashMap<>();
 	
 	public Document getPage(Crawler<Document> crawler, URL url) throws IOException {
-		if (!documentCache.containsKey(url)){
-			documentCache.put(url, Jsoup.parse(url, TIMEOUT_MS));
+		ResourceKey key = ResourceKey.of(url);
+		if (documentCache.containsKey(key)){
+			STATS.hit();
+		} else {
+			STATS.miss();
+			FlightEvents.Event event = FlightEvents.begin(FlightEvents.Type.PageFetch);
+			long startBytes = ConnectionFactory.getBytesReadOnThread();
+			try(Response response = ConnectionFactory.getDefault().openResponse(url, true)){
+				// The charset of the headers takes precedence over that of the page
+				documentCache.put(key, Jsoup.parse(response.getInputStream(), response.getCharset(), response.url.toString()));
+			} finally {
+				event.commit(crawler.generateId(), url.getHost(), ConnectionFactory.getBytesReadOnThread() - startBytes);
+			}
 		}
-		return documentCache.get(url);
+		return documentCache.get(key);
 	}
 }
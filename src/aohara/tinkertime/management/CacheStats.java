@@ -0,0 +1,53 @@
+package aohara.tinkertime.management;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hit, miss, and eviction counts of a cache.
+ * 
+ * @author Andrew O'Hara
+ */
+public class CacheStats implements CacheStatsMBean {
+	
+	private final AtomicLong hits = new AtomicLong(), misses = new AtomicLong(), evictions = new AtomicLong();
+	
+	public void hit(){
+		hits.incrementAndGet();
+	}
+	
+	public void miss(){
+		misses.incrementAndGet();
+	}
+	
+	public void evicted(){
+		evictions.incrementAndGet();
+	}
+	
+	@Override
+	public long getHits(){
+		return hits.get();
+	}
+	
+	@Override
+	public long getMisses(){
+		return misses.get();
+	}
+	
+	@Override
+	public long getEvictions(){
+		return evictions.get();
+	}
+	
+	@Override
+	public double getHitRatio(){
+		long hits = getHits(), total = hits + getMisses();
+		return total > 0 ? (double) hits / total : 0;
+	}
+	
+	@Override
+	public void reset(){
+		hits.set(0);
+		misses.set(0);
+		evictions.set(0);
+	}
+}
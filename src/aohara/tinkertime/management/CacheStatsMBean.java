@@ -0,0 +1,9 @@
+package aohara.tinkertime.management;
+
+public interface CacheStatsMBean {
+	public long getHits();
+	public long getMisses();
+	public long getEvictions();
+	public double getHitRatio();
+	public void reset();
+}
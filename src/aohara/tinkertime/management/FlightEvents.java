@@ -0,0 +1,86 @@
+package aohara.tinkertime.management;
+
+/**
+ * Emits Java Flight Recorder events for the work done on mods.
+ * 
+ * The application targets Java 7, which has no JFR event API, so the events
+ * themselves are in the jfr source set, compiled for Java 8 against the
+ * jdk.jfr API.  They are loaded reflectively the first time an event begins.
+ * If they cannot be loaded, e.g. on Java 7 or a JVM without the jdk.jfr
+ * module, or if -Dtinkertime.jfr=false is given, every event is a no-op.
+ * 
+ * Usage:
+ * 
+ * <pre>
+ * FlightEvents.Event event = FlightEvents.begin(FlightEvents.Type.PageFetch);
+ * ...
+ * event.commit(modId, host, bytes);
+ * </pre>
+ * 
+ * The duration is that between begin and commit.  Events are only recorded
+ * while a recording with them enabled is running, e.g. from
+ * jcmd &lt;pid&gt; JFR.start.
+ * 
+ * @author Andrew O'Hara
+ */
+public class FlightEvents {
+	
+	public static enum Type {
+		PageFetch, CrawlExtraction, ArtifactDownload, ArchiveInspection, Extraction, StateSave, UiUpdate
+	};
+	
+	public static interface Event {
+		/**
+		 * @param modId the id of the mod, or null if not for a single mod
+		 * @param host the host the bytes were transferred from, or null if local
+		 * @param bytes the bytes transferred, read, or written
+		 */
+		public void commit(String modId, String host, long bytes);
+	}
+	
+	public static interface Sink {
+		public Event begin(Type type);
+	}
+	
+	private static final String JFR_SINK = "aohara.tinkertime.jfr.JfrEventSink";
+	
+	private static final Event NO_EVENT = new Event(){
+		@Override
+		public void commit(String modId, String host, long bytes) {
+			// No Action
+		}
+	};
+	
+	private static final Sink NO_SINK = new Sink(){
+		@Override
+		public Event begin(Type type) {
+			return NO_EVENT;
+		}
+	};
+	
+	private static volatile Sink sink;
+	
+	public static Event begin(Type type){
+		Sink current = sink;
+		if (current == null){
+			sink = current = loadSink();
+		}
+		return current.begin(type);
+	}
+	
+	public static void setSink(Sink sink){
+		FlightEvents.sink = sink != null ? sink : NO_SINK;
+	}
+	
+	private static Sink loadSink(){
+		if (!Boolean.parseBoolean(System.getProperty("tinkertime.jfr", "true"))){
+			return NO_SINK;
+		}
+		try {
+			return (Sink) Class.forName(JFR_SINK).newInstance();
+		} catch (ReflectiveOperationException | LinkageError | ClassCastException e){
+			// Not on the classpath, or JFR is not supported by this JVM
+			return NO_SINK;
+		}
+	}
+}
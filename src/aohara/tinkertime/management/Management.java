@@ -0,0 +1,54 @@
+package aohara.tinkertime.management;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import aohara.tinkertime.content.DecodedImageCache;
+import aohara.tinkertime.controllers.ModManager;
+import aohara.tinkertime.controllers.ModStateManager;
+import aohara.tinkertime.crawlers.pageLoaders.JsonLoader;
+import aohara.tinkertime.crawlers.pageLoaders.WebpageLoader;
+import aohara.tinkertime.net.ConnectionFactory;
+import aohara.tinkertime.workflows.WorkflowMetrics;
+
+/**
+ * Registers the MBeans of the application with the platform MBean server,
+ * so that the executors, caches, workflows, and HTTP transfers can be
+ * watched live with jconsole or any other JMX client.
+ * 
+ * The beans are registered under the {@link #DOMAIN} domain.  Failing to
+ * register them is not fatal.
+ * 
+ * @author Andrew O'Hara
+ */
+public class Management {
+	
+	public static final String DOMAIN = "aohara.tinkertime";
+	
+	public static void registerAll(ModManager mm, ModStateManager sm, DecodedImageCache imageCache){
+		register("type=Executor,name=download", mm.getDownloadExecutor());
+		register("type=Executor,name=enabler", mm.getEnablerExecutor());
+		register("type=Cache,name=htmlPages", WebpageLoader.STATS);
+		register("type=Cache,name=jsonPages", JsonLoader.STATS);
+		register("type=Cache,name=images", imageCache.getStats());
+		register("type=Workflows", new WorkflowMonitor(WorkflowMetrics.getSession()));
+		register("type=ModState", new ModStateMonitor(sm));
+		register("type=Transfers", new TransferMonitor(ConnectionFactory.STATS));
+	}
+	
+	public static void register(String properties, Object mbean){
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			ObjectName name = new ObjectName(DOMAIN + ":" + properties);
+			if (server.isRegistered(name)){
+				server.unregisterMBean(name);
+			}
+			server.registerMBean(mbean, name);
+		} catch (JMException e) {
+			e.printStackTrace();
+		}
+	}
+}
@@ -0,0 +1,56 @@
+package aohara.tinkertime.management;
+
+import aohara.tinkertime.controllers.ModStateJournal;
+import aohara.tinkertime.controllers.ModStateManager;
+import aohara.tinkertime.controllers.ModStatePersister;
+
+/**
+ * Exposes the size of the mod state, and the cost of saving it.
+ * 
+ * @author Andrew O'Hara
+ */
+public class ModStateMonitor implements ModStateMonitorMBean {
+	
+	private final ModStateManager sm;
+	
+	public ModStateMonitor(ModStateManager sm){
+		this.sm = sm;
+	}
+	
+	@Override
+	public int getNumMods(){
+		return sm.getModsSnapshot().size();
+	}
+	
+	@Override
+	public boolean isJournaled(){
+		return sm.getPersister() instanceof ModStateJournal;
+	}
+	
+	@Override
+	public long getNumSaves(){
+		return sm.getPersister().getNumSaves();
+	}
+	
+	@Override
+	public long getTotalSaveTimeMs(){
+		return sm.getPersister().getTotalSaveTimeMs();
+	}
+	
+	@Override
+	public double getAverageSaveTimeMs(){
+		ModStatePersister persister = sm.getPersister();
+		long numSaves = persister.getNumSaves();
+		return numSaves > 0 ? (double) persister.getTotalSaveTimeMs() / numSaves : 0;
+	}
+	
+	@Override
+	public long getBytesWritten(){
+		return sm.getPersister().getBytesWritten();
+	}
+	
+	@Override
+	public void flush(){
+		sm.flush();
+	}
+}
@@ -0,0 +1,11 @@
+package aohara.tinkertime.management;
+
+public interface ModStateMonitorMBean {
+	public int getNumMods();
+	public boolean isJournaled();
+	public long getNumSaves();
+	public long getTotalSaveTimeMs();
+	public double getAverageSaveTimeMs();
+	public long getBytesWritten();
+	public void flush();
+}
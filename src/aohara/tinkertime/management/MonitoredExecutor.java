@@ -0,0 +1,75 @@
+package aohara.tinkertime.management;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Executor which counts the tasks run by another Executor.
+ * 
+ * The queue depth is the number of tasks which were accepted but have not
+ * started.  A rejected task is counted, and the exception is rethrown.
+ * 
+ * @author Andrew O'Hara
+ */
+public class MonitoredExecutor implements Executor, MonitoredExecutorMBean {
+	
+	private final Executor executor;
+	private final AtomicInteger queued = new AtomicInteger(), active = new AtomicInteger();
+	private final AtomicLong submitted = new AtomicLong(), completed = new AtomicLong(), rejected = new AtomicLong();
+	
+	public MonitoredExecutor(Executor executor){
+		this.executor = executor;
+	}
+	
+	@Override
+	public void execute(final Runnable task) {
+		queued.incrementAndGet();
+		try {
+			executor.execute(new Runnable(){
+				@Override
+				public void run() {
+					queued.decrementAndGet();
+					active.incrementAndGet();
+					try {
+						task.run();
+					} finally {
+						active.decrementAndGet();
+						completed.incrementAndGet();
+					}
+				}
+			});
+			submitted.incrementAndGet();
+		} catch (RejectedExecutionException e){
+			queued.decrementAndGet();
+			rejected.incrementAndGet();
+			throw e;
+		}
+	}
+	
+	@Override
+	public int getQueueDepth(){
+		return queued.get();
+	}
+	
+	@Override
+	public int getActiveCount(){
+		return active.get();
+	}
+	
+	@Override
+	public long getSubmittedCount(){
+		return submitted.get();
+	}
+	
+	@Override
+	public long getCompletedCount(){
+		return completed.get();
+	}
+	
+	@Override
+	public long getRejectedCount(){
+		return rejected.get();
+	}
+}
@@ -0,0 +1,9 @@
+package aohara.tinkertime.management;
+
+public interface MonitoredExecutorMBean {
+	public int getQueueDepth();
+	public int getActiveCount();
+	public long getSubmittedCount();
+	public long getCompletedCount();
+	public long getRejectedCount();
+}
@@ -0,0 +1,58 @@
+package aohara.tinkertime.management;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import aohara.tinkertime.net.HostStats;
+import aohara.tinkertime.net.HostStats.Phase;
+import aohara.tinkertime.net.TransferStats;
+
+/**
+ * Reports the timings of the HTTP requests to each host.
+ * 
+ * The histogram of a phase has a count for each bucket of
+ * {@link aohara.tinkertime.net.Histogram}.
+ * 
+ * @author Andrew O'Hara
+ */
+public class TransferMonitor implements TransferMonitorMBean {
+	
+	private final TransferStats stats;
+	
+	public TransferMonitor(TransferStats stats){
+		this.stats = stats;
+	}
+	
+	@Override
+	public String[] getHostSummaries(){
+		List<HostStats> hosts = stats.getHosts();
+		Collections.sort(hosts, new Comparator<HostStats>(){
+			@Override
+			public int compare(HostStats a, HostStats b) {
+				return a.host.compareTo(b.host);
+			}
+		});
+		
+		String[] summaries = new String[hosts.size()];
+		for (int i=0; i<summaries.length; i++){
+			summaries[i] = hosts.get(i).toString();
+		}
+		return summaries;
+	}
+	
+	@Override
+	public long[] getHistogram(String host, String phase){
+		for (HostStats hostStats : stats.getHosts()){
+			if (hostStats.host.equals(host)){
+				return hostStats.getHistogram(Phase.valueOf(phase)).getBuckets();
+			}
+		}
+		return new long[0];
+	}
+	
+	@Override
+	public void reset(){
+		stats.reset();
+	}
+}
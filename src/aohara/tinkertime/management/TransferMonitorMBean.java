@@ -0,0 +1,7 @@
+package aohara.tinkertime.management;
+
+public interface TransferMonitorMBean {
+	public String[] getHostSummaries();
+	public long[] getHistogram(String host, String phase);
+	public void reset();
+}
@@ -0,0 +1,45 @@
+package aohara.tinkertime.management;
+
+import java.util.List;
+
+import aohara.tinkertime.workflows.WorkflowMetrics;
+import aohara.tinkertime.workflows.WorkflowMetrics.Recorder;
+
+/**
+ * Lists the workflows which are running, and the task each one is on.
+ * 
+ * @author Andrew O'Hara
+ */
+public class WorkflowMonitor implements WorkflowMonitorMBean {
+	
+	private final WorkflowMetrics metrics;
+	
+	public WorkflowMonitor(WorkflowMetrics metrics){
+		this.metrics = metrics;
+	}
+	
+	@Override
+	public int getNumInFlight(){
+		return metrics.getInFlight().size();
+	}
+	
+	@Override
+	public String[] getInFlightWorkflows(){
+		List<Recorder> inFlight = metrics.getInFlight();
+		String[] descriptions = new String[inFlight.size()];
+		for (int i=0; i<descriptions.length; i++){
+			Recorder recorder = inFlight.get(i);
+			String task = recorder.getCurrentTask();
+			descriptions[i] = String.format(
+				"%s: %s (%d ms), running %d ms", recorder.getWorkflowName(),
+				task != null ? task : "between tasks", recorder.getCurrentTaskMs(), recorder.getRunningMs()
+			);
+		}
+		return descriptions;
+	}
+	
+	@Override
+	public long getNumCompleted(){
+		return metrics.getWorkflows().size();
+	}
+}
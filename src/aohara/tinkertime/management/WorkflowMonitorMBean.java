@@ -0,0 +1,7 @@
+package aohara.tinkertime.management;
+
+public interface WorkflowMonitorMBean {
+	public int getNumInFlight();
+	public String[] getInFlightWorkflows();
+	public long getNumCompleted();
+}
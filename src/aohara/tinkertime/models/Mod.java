@@ -23,6 +23,7 @@ public class Mod implements FileUpdateListener {
 	private URL imageUrl, pageUrl;
 	private boolean enabled = false;
 	private transient boolean updateAvailable = false;
+	private transient ResourceKey pageKey;
 	
 	public Mod(
 		String id, String modName, String newestFileName, String creator,
@@ -62,12 +63,15 @@ public class Mod implements FileUpdateListener {
 		return pageUrl;
 	}
 	
-	public boolean isDownloaded(TinkerConfig config){
-		Path zipPath = getCachedZipPath(config);
-		if (zipPath != null){
-			return zipPath.toFile().exists();
+	/**
+	 * Returns the normalized key of the page URL, or null if there is no page.
+	 * Use this rather than the URL itself when comparing or indexing mods.
+	 */
+	public ResourceKey getPageKey(){
+		if (pageKey == null && pageUrl != null){
+			pageKey = ResourceKey.of(pageUrl);
 		}
-		return false;
+		return pageKey;
 	}
 	
 	public Path getCachedZipPath(TinkerConfig config){
@@ -0,0 +1,147 @@
+package aohara.tinkertime.models;
+
+import java.net.URL;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable, versioned snapshot of all registered mods.
+ * 
+ * Modifications return a new registry, so a registry may be shared between
+ * threads without locking or copying.  Mods are indexed by id, by the
+ * {@link ResourceKey} of their page, and by page host.
+ * 
+ * @author Andrew O'Hara
+ */
+public final class ModRegistry {
+	
+	public static final ModRegistry EMPTY = new ModRegistry(
+		0,
+		Collections.<String, Mod>emptyMap(),
+		Collections.<ResourceKey, Mod>emptyMap(),
+		Collections.<String, Set<Mod>>emptyMap()
+	);
+	
+	private final long version;
+	private final Map<String, Mod> byId;
+	private final Map<ResourceKey, Mod> byPageKey;
+	private final Map<String, Set<Mod>> byHost;
+	private final Set<Mod> mods;
+	
+	private ModRegistry(long version, Map<String, Mod> byId, Map<ResourceKey, Mod> byPageKey, Map<String, Set<Mod>> byHost){
+		this.version = version;
+		this.byId = Collections.unmodifiableMap(byId);
+		this.byPageKey = Collections.unmodifiableMap(byPageKey);
+		this.byHost = Collections.unmodifiableMap(byHost);
+		this.mods = Collections.unmodifiableSet(new HashSet<Mod>(byId.values()));
+	}
+	
+	// -- Accessors --------------------------------------------------------
+	
+	/**
+	 * Returns a number which increases each time the registry is modified.
+	 */
+	public long getVersion(){
+		return version;
+	}
+	
+	public Set<Mod> getMods(){
+		return mods;
+	}
+	
+	public int size(){
+		return mods.size();
+	}
+	
+	public boolean isEmpty(){
+		return mods.isEmpty();
+	}
+	
+	public Mod getById(String id){
+		return byId.get(id);
+	}
+	
+	public Mod getByPageUrl(URL pageUrl){
+		return pageUrl != null ? getByPageKey(ResourceKey.of(pageUrl)) : null;
+	}
+	
+	public Mod getByPageKey(ResourceKey pageKey){
+		return byPageKey.get(pageKey);
+	}
+	
+	/**
+	 * Returns the mods whose pages are on the given host, as normalized by {@link ResourceKey}.
+	 */
+	public Set<Mod> getByHost(String host){
+		Set<Mod> mods = host != null ? byHost.get(ResourceKey.normalizeHost(host)) : null;
+		return mods != null ? mods : Collections.<Mod>emptySet();
+	}
+	
+	// -- Modifiers ---------------------------------------------------------
+	
+	/**
+	 * Returns a new registry in which the given mods are added, or replace
+	 * the registered mods with the same id.
+	 */
+	public ModRegistry with(Collection<Mod> mods){
+		Map<String, Mod> byId = new HashMap<>(this.byId);
+		Map<ResourceKey, Mod> byPageKey = new HashMap<>(this.byPageKey);
+		Map<String, Set<Mod>> byHost = new HashMap<>(this.byHost);
+		for (Mod mod : mods){
+			unindex(byId.put(mod.id, mod), byPageKey, byHost);
+			if (mod.getPageKey() != null){
+				byPageKey.put(mod.getPageKey(), mod);
+				String host = mod.getPageKey().getHost();
+				Set<Mod> hostMods = new HashSet<>(getOrEmpty(byHost, host));
+				hostMods.add(mod);
+				byHost.put(host, Collections.unmodifiableSet(hostMods));
+			}
+		}
+		return new ModRegistry(version + 1, byId, byPageKey, byHost);
+	}
+	
+	/**
+	 * Returns a new registry without the mod with the same id as the given mod.
+	 */
+	public ModRegistry without(Mod mod){
+		if (!byId.containsKey(mod.id)){
+			return this;
+		}
+		
+		Map<String, Mod> byId = new HashMap<>(this.byId);
+		Map<ResourceKey, Mod> byPageKey = new HashMap<>(this.byPageKey);
+		Map<String, Set<Mod>> byHost = new HashMap<>(this.byHost);
+		unindex(byId.remove(mod.id), byPageKey, byHost);
+		return new ModRegistry(version + 1, byId, byPageKey, byHost);
+	}
+	
+	// -- Helpers -----------------------------------------------------------
+	
+	private static void unindex(Mod old, Map<ResourceKey, Mod> byPageKey, Map<String, Set<Mod>> byHost){
+		if (old != null && old.getPageKey() != null){
+			ResourceKey key = old.getPageKey();
+			if (old.equals(byPageKey.get(key))){
+				byPageKey.remove(key);
+			}
+			
+			String host = key.getHost();
+			Set<Mod> hostMods = new HashSet<>(getOrEmpty(byHost, host));
+			hostMods.remove(old);
+			if (hostMods.isEmpty()){
+				byHost.remove(host);
+			} else {
+				byHost.put(host, Collections.unmodifiableSet(hostMods));
+			}
+		}
+	}
+	
+	private static Set<Mod> getOrEmpty(Map<String, Set<Mod>> byHost, String host){
+		Set<Mod> mods = byHost.get(host);
+		return mods != null ? mods : Collections.<Mod>emptySet();
+	}
+
+}
@@ -0,0 +1,201 @@
+package aohara.tinkertime.models;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Incrementally maintained n-gram index over the searchable fields of mods.
+ * 
+ * Each mod's name, creator, supported KSP version, and page host are indexed
+ * by all of their 1, 2, and 3 character substrings.  A query is split into
+ * whitespace separated terms, and a mod matches if every term is a
+ * substring of one of its fields.  Terms of up to three characters are
+ * answered directly from the index; longer terms intersect the postings of
+ * their trigrams, and the few remaining candidates are verified.
+ * 
+ * Not thread safe; the index is meant to be used from the Event Dispatch
+ * Thread.
+ * 
+ * @author Andrew O'Hara
+ */
+public class ModSearchIndex {
+	
+	private static final int N = 3;
+	private static final char FIELD_SEPARATOR = '\n';
+	
+	private final Map<String, Set<Mod>> postings = new HashMap<>();
+	private final Map<String, Entry> entries = new HashMap<>();
+	
+	// -- Updating ----------------------------------------------------------
+	
+	public void update(Mod mod){
+		remove(mod);
+		
+		Entry entry = new Entry(mod, getText(mod));
+		entries.put(mod.id, entry);
+		for (String gram : entry.grams){
+			Set<Mod> posting = postings.get(gram);
+			if (posting == null){
+				postings.put(gram, posting = new HashSet<>());
+			}
+			posting.add(mod);
+		}
+	}
+	
+	public void remove(Mod mod){
+		Entry entry = entries.remove(mod.id);
+		if (entry != null){
+			for (String gram : entry.grams){
+				Set<Mod> posting = postings.get(gram);
+				posting.remove(entry.mod);
+				if (posting.isEmpty()){
+					postings.remove(gram);
+				}
+			}
+		}
+	}
+	
+	public void clear(){
+		postings.clear();
+		entries.clear();
+	}
+	
+	public int size(){
+		return entries.size();
+	}
+	
+	// -- Querying ----------------------------------------------------------
+	
+	/**
+	 * Returns the indexed mods which match every term of the query.
+	 */
+	public Set<Mod> search(String query){
+		String[] terms = getTerms(query);
+		if (terms.length == 0){
+			Set<Mod> all = new HashSet<>();
+			for (Entry entry : entries.values()){
+				all.add(entry.mod);
+			}
+			return all;
+		}
+		
+		// Start from the rarest term, to keep the candidate set small
+		Set<Mod> result = null;
+		List<Set<Mod>> candidates = new ArrayList<>();
+		for (String term : terms){
+			candidates.add(getCandidates(term));
+		}
+		Collections.sort(candidates, new Comparator<Set<Mod>>(){
+			@Override
+			public int compare(Set<Mod> s1, Set<Mod> s2) {
+				return Integer.compare(s1.size(), s2.size());
+			}
+		});
+		
+		for (Set<Mod> termCandidates : candidates){
+			if (result == null){
+				result = new HashSet<>(termCandidates);
+			} else {
+				result.retainAll(termCandidates);
+			}
+			if (result.isEmpty()){
+				return result;
+			}
+		}
+		
+		// Verify the candidates of long terms, which may only share trigrams
+		for (String term : terms){
+			if (term.length() > N){
+				for (Iterator<Mod> it = result.iterator(); it.hasNext(); ){
+					if (!entries.get(it.next().id).text.contains(term)){
+						it.remove();
+					}
+				}
+			}
+		}
+		return result;
+	}
+	
+	/**
+	 * Returns true if the given indexed mod matches every term of the query.
+	 */
+	public boolean matches(Mod mod, String query){
+		Entry entry = entries.get(mod.id);
+		if (entry == null){
+			return false;
+		}
+		for (String term : getTerms(query)){
+			if (!entry.text.contains(term)){
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	private Set<Mod> getCandidates(String term){
+		if (term.length() <= N){
+			Set<Mod> posting = postings.get(term);
+			return posting != null ? posting : Collections.<Mod>emptySet();
+		}
+		
+		Set<Mod> smallest = null;
+		for (int i=0; i + N <= term.length(); i++){
+			Set<Mod> posting = postings.get(term.substring(i, i + N));
+			if (posting == null){
+				return Collections.emptySet();
+			} else if (smallest == null || posting.size() < smallest.size()){
+				smallest = posting;
+			}
+		}
+		return smallest;
+	}
+	
+	// -- Helpers -----------------------------------------------------------
+	
+	private static String[] getTerms(String query){
+		String trimmed = query != null ? query.trim().toLowerCase(Locale.ENGLISH) : "";
+		return trimmed.isEmpty() ? new String[0] : trimmed.split("\\s+");
+	}
+	
+	private static String getText(Mod mod){
+		StringBuilder builder = new StringBuilder();
+		for (String field : new String[]{
+			mod.getName(), mod.getCreator(), mod.getSupportedVersion(),
+			mod.getPageKey() != null ? mod.getPageKey().getHost() : null
+		}){
+			if (field != null){
+				builder.append(field.toLowerCase(Locale.ENGLISH)).append(FIELD_SEPARATOR);
+			}
+		}
+		return builder.toString();
+	}
+	
+	private static class Entry {
+		
+		private final Mod mod;
+		private final String text;
+		private final Set<String> grams = new HashSet<>();
+		
+		private Entry(Mod mod, String text){
+			this.mod = mod;
+			this.text = text;
+			
+			// Grams never span fields, since terms contain no separators
+			for (String field : text.split(String.valueOf(FIELD_SEPARATOR))){
+				for (int n=1; n<=N; n++){
+					for (int i=0; i + n <= field.length(); i++){
+						grams.add(field.substring(i, i + n));
+					}
+				}
+			}
+		}
+	}
+}
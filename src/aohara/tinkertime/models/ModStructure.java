@@ -2,17 +2,24 @@ package aohara.tinkertime.models;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
 import java.io.StringWriter;
+import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.Collections;
+import java.util.ArrayList;
+import java.util.Enumeration;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.TreeSet;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 
 import org.apache.commons.io.IOUtils;
 
 import aohara.tinkertime.TinkerConfig;
+import aohara.tinkertime.management.FlightEvents;
 import thirdParty.ZipNode;
 
 /**
@@ -22,13 +29,15 @@ import thirdParty.ZipNode;
  * the main mod data, or its bundled dependency data.
  * 
  * @author Andrew O'Hara
- *
+ * 
  */
 public class ModStructure {
 	
+	private final Path zipPath;
 	private final Set<ZipNode> modules;
 	
-	private ModStructure(Set<ZipNode> modules){
+	private ModStructure(Path zipPath, Set<ZipNode> modules){
+		this.zipPath = zipPath;
 		this.modules = modules;
 	}
 	
@@ -45,10 +54,40 @@ public class ModStructure {
 		return new HashSet<ZipNode>(modules);
 	}
 	
+	/**
+	 * Returns the files of the module, with their sizes and checksums, so
+	 * that the modules of two archives can be compared.  The archive is read
+	 * again, since the contents are only needed when mods share a module.
+	 */
+	public Set<String> getModuleContents(ZipNode module) throws IOException {
+		String prefix = "";
+		for (ZipNode node = module; node.getParent() != null; node = node.getParent()){
+			prefix = node.getName() + prefix;
+		}
+		
+		Set<String> contents = new TreeSet<>();
+		try(ZipFile zipFile = new ZipFile(zipPath.toFile())){
+			Enumeration<? extends ZipEntry> entries = zipFile.entries();
+			while (entries.hasMoreElements()){
+				ZipEntry entry = entries.nextElement();
+				if (!entry.isDirectory() && entry.getName().startsWith(prefix)){
+					contents.add(String.format("%s %d %x", entry.getName().substring(prefix.length()), entry.getSize(), entry.getCrc()));
+				}
+			}
+		}
+		return contents;
+	}
+	
 	// Factory Methods
 	
 	public static ModStructure inspectArchive(TinkerConfig config, Mod mod) throws IOException {
-		return inspectArchive(mod.getCachedZipPath(config));
+		Path zipPath = mod.getCachedZipPath(config);
+		FlightEvents.Event event = FlightEvents.begin(FlightEvents.Type.ArchiveInspection);
+		try {
+			return inspectArchive(zipPath);
+		} finally {
+			event.commit(mod.id, null, zipPath.toFile().length());
+		}
 	}
 	
 	public static ModStructure inspectArchive(final Path zipPath) throws IOException {
@@ -60,7 +99,7 @@ public class ModStructure {
 			gameData = gameData != null ? gameData : root;
 			
 			// Discover structure
-			return new ModStructure(getModules(gameData));
+			return new ModStructure(zipPath, getModules(gameData));
 		}
 	}
 	
@@ -75,12 +114,67 @@ public class ModStructure {
 	}
 	
 	private static String getReadmeText(final ZipFile zipFile){
-		for (ZipEntry entry : new HashSet<ZipEntry>(Collections.list(zipFile.entries()))){
+		ZipEntry entry = getReadmeEntry(zipFile);
+		if (entry != null){
+			try(StringWriter writer = new StringWriter(); InputStream is = zipFile.getInputStream(entry)){
+				IOUtils.copy(is, writer);
+				return writer.toString();
+			} catch (IOException e) {}
+		}
+		return null;
+	}
+	
+	/**
+	 * Copies the readme of the archive to the given file, if it has one.
+	 * 
+	 * @return true if a readme was copied
+	 * @throws InterruptedIOException if the thread is interrupted during the copy
+	 */
+	public static boolean extractReadme(final Path zipPath, final Path dest) throws IOException {
+		try(ZipFile zipFile = new ZipFile(zipPath.toFile())){
+			ZipEntry entry = getReadmeEntry(zipFile);
+			if (entry == null){
+				return false;
+			}
+			
+			try(InputStream is = zipFile.getInputStream(entry); OutputStream os = Files.newOutputStream(dest)){
+				byte[] buf = new byte[8192];
+				int read;
+				while ((read = is.read(buf)) != -1){
+					if (Thread.currentThread().isInterrupted()){
+						throw new InterruptedIOException("Readme extraction cancelled");
+					}
+					os.write(buf, 0, read);
+				}
+			}
+			return true;
+		}
+	}
+	
+	/**
+	 * Returns the paths of all of the file entries in the archive.
+	 */
+	public static List<String> getEntryNames(final Path zipPath) throws IOException {
+		List<String> names = new ArrayList<>();
+		try(ZipFile zipFile = new ZipFile(zipPath.toFile())){
+			Enumeration<? extends ZipEntry> entries = zipFile.entries();
+			while (entries.hasMoreElements()){
+				ZipEntry entry = entries.nextElement();
+				if (!entry.isDirectory()){
+					names.add(entry.getName());
+				}
+			}
+		}
+		return names;
+	}
+	
+	private static ZipEntry getReadmeEntry(final ZipFile zipFile){
+		// Walk the entries in place, rather than copying the whole listing
+		Enumeration<? extends ZipEntry> entries = zipFile.entries();
+		while (entries.hasMoreElements()){
+			ZipEntry entry = entries.nextElement();
 			if (!entry.isDirectory() && entry.getName().toLowerCase().contains("readme")){
-				try(StringWriter writer = new StringWriter(); InputStream is = zipFile.getInputStream(entry)){
-					IOUtils.copy(is, writer);
-					return writer.toString();
-				} catch (IOException e) {}
+				return entry;
 			}
 		}
 		return null;
@@ -99,7 +193,7 @@ public class ModStructure {
 		}
 		return null;
 	}
-
+	
 	private static Set<ZipNode> getModules(final ZipNode gameDataNode){
 		Set<ZipNode> modules = new HashSet<>();
 		
@@ -0,0 +1,182 @@
+package aohara.tinkertime.models;
+
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.text.DateFormat;
+import java.text.ParseException;
+import java.util.Date;
+import java.util.Locale;
+
+import com.google.gson.GsonBuilder;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * Streaming Gson adapter for Mods.
+ * 
+ * Mods are read and written field by field, without reflection or an
+ * intermediate tree.  The field names match those of the reflective format,
+ * so existing state files remain readable.  Unknown fields are skipped, and
+ * malformed URLs and dates are read as null rather than failing the document.
+ * Fields of the wrong type are skipped, and a mod without an id is read as
+ * null, so that one bad entry does not cost the rest of the mods.
+ * 
+ * Dates are written as epoch milliseconds, but dates written by Gson's
+ * default date format are still accepted.
+ * 
+ * @author Andrew O'Hara
+ */
+public class ModTypeAdapter extends TypeAdapter<Mod> {
+	
+	private static final String
+		ID = "id", NAME = "name", CREATOR = "creator", NEWEST_FILE_NAME = "newestFileName",
+		SUPPORTED_VERSION = "supportedVersion", IMAGE_URL = "imageUrl", PAGE_URL = "pageUrl",
+		UPDATED_ON = "updatedOn", ENABLED = "enabled";
+	
+	/**
+	 * Returns a GsonBuilder which uses this adapter for Mods.
+	 */
+	public static GsonBuilder gsonBuilder(){
+		return new GsonBuilder().registerTypeHierarchyAdapter(Mod.class, new ModTypeAdapter());
+	}
+
+	@Override
+	public void write(JsonWriter out, Mod mod) throws IOException {
+		if (mod == null){
+			out.nullValue();
+			return;
+		}
+		
+		out.beginObject();
+		out.name(ID).value(mod.id);
+		writeString(out, NAME, mod.getName());
+		writeString(out, CREATOR, mod.getCreator());
+		writeString(out, NEWEST_FILE_NAME, mod.getNewestFileName());
+		writeString(out, SUPPORTED_VERSION, mod.getSupportedVersion());
+		writeString(out, IMAGE_URL, mod.getImageUrl() != null ? mod.getImageUrl().toString() : null);
+		writeString(out, PAGE_URL, mod.getPageUrl() != null ? mod.getPageUrl().toString() : null);
+		if (mod.getUpdatedOn() != null){
+			out.name(UPDATED_ON).value(mod.getUpdatedOn().getTime());
+		}
+		out.name(ENABLED).value(mod.isEnabled());
+		out.endObject();
+	}
+	
+	private static void writeString(JsonWriter out, String name, String value) throws IOException {
+		if (value != null){
+			out.name(name).value(value);
+		}
+	}
+
+	@Override
+	public Mod read(JsonReader in) throws IOException {
+		if (in.peek() == JsonToken.NULL){
+			in.nextNull();
+			return null;
+		}
+		
+		String id = null, name = null, creator = null, newestFileName = null, supportedVersion = null;
+		URL imageUrl = null, pageUrl = null;
+		Date updatedOn = null;
+		boolean enabled = false;
+		
+		if (in.peek() != JsonToken.BEGIN_OBJECT){
+			in.skipValue();
+			return null;
+		}
+		
+		in.beginObject();
+		while (in.hasNext()){
+			String field = in.nextName();
+			if (in.peek() == JsonToken.NULL){
+				in.nextNull();
+				continue;
+			}
+			
+			switch (field){
+			case ID: id = readString(in); break;
+			case NAME: name = readString(in); break;
+			case CREATOR: creator = readString(in); break;
+			case NEWEST_FILE_NAME: newestFileName = readString(in); break;
+			case SUPPORTED_VERSION: supportedVersion = readString(in); break;
+			case IMAGE_URL: imageUrl = readUrl(in); break;
+			case PAGE_URL: pageUrl = readUrl(in); break;
+			case UPDATED_ON: updatedOn = readDate(in); break;
+			case ENABLED: enabled = readBoolean(in); break;
+			default: in.skipValue();
+			}
+		}
+		in.endObject();
+		
+		// A mod which can't be identified is left out, rather than the whole file
+		if (id == null){
+			return null;
+		}
+		
+		Mod mod = new Mod(id, name, newestFileName, creator, imageUrl, pageUrl, updatedOn, supportedVersion);
+		mod.setEnabled(enabled);
+		return mod;
+	}
+	
+	/**
+	 * Reads a string, or skips the value and returns null if it is of any
+	 * other type.
+	 */
+	private static String readString(JsonReader in) throws IOException {
+		JsonToken token = in.peek();
+		if (token == JsonToken.STRING || token == JsonToken.NUMBER){
+			return in.nextString();
+		}
+		in.skipValue();
+		return null;
+	}
+	
+	private static URL readUrl(JsonReader in) throws IOException {
+		String url = readString(in);
+		if (url == null){
+			return null;
+		}
+		try {
+			return new URL(url);
+		} catch (MalformedURLException e){
+			return null;
+		}
+	}
+	
+	private static boolean readBoolean(JsonReader in) throws IOException {
+		switch (in.peek()){
+		case BOOLEAN: return in.nextBoolean();
+		case STRING: return Boolean.parseBoolean(in.nextString());
+		default:
+			in.skipValue();
+			return false;
+		}
+	}
+	
+	private static Date readDate(JsonReader in) throws IOException {
+		switch (in.peek()){
+		case NUMBER: return new Date((long) in.nextDouble());
+		case STRING: break;
+		default:
+			in.skipValue();
+			return null;
+		}
+		
+		// Legacy format written by Gson's default date adapter
+		String date = in.nextString();
+		for (DateFormat format : new DateFormat[]{
+			DateFormat.getDateTimeInstance(DateFormat.DEFAULT, DateFormat.DEFAULT, Locale.US),
+			DateFormat.getDateTimeInstance(DateFormat.DEFAULT, DateFormat.DEFAULT)
+		}){
+			try {
+				return format.parse(date);
+			} catch (ParseException e){
+				// Try the next format
+			}
+		}
+		return null;
+	}
+}
@@ -0,0 +1,113 @@
+package aohara.tinkertime.models;
+
+import java.net.URL;
+
+/**
+ * Normalized identity of a web resource.
+ * 
+ * Unlike URL, whose equals and hashCode resolve the host through DNS,
+ * comparing ResourceKeys is a pure in-memory operation.  Keys consist of the
+ * scheme, the lowercased host (without a leading "www."), the explicit port,
+ * the canonical path, and the query.  The "/releases" suffix of GitHub
+ * project URLs is stripped, so that different forms of the same page share
+ * a key.
+ * 
+ * @author Andrew O'Hara
+ */
+public final class ResourceKey {
+	
+	private static final String GITHUB_HOST = "github.com", RELEASES = "/releases";
+	
+	private final String scheme, host, path, query;
+	private final int port;
+	
+	private ResourceKey(String scheme, String host, int port, String path, String query){
+		this.scheme = scheme;
+		this.host = host;
+		this.port = port;
+		this.path = path;
+		this.query = query;
+	}
+	
+	public static ResourceKey of(URL url){
+		String host = normalizeHost(url.getHost());
+		
+		// Collapse repeated slashes, and drop any trailing slash
+		String path = url.getPath() != null ? url.getPath().replaceAll("/{2,}", "/") : "";
+		while (path.endsWith("/")){
+			path = path.substring(0, path.length() - 1);
+		}
+		
+		if (isOnHost(host, GITHUB_HOST) && path.endsWith(RELEASES)){
+			path = path.substring(0, path.length() - RELEASES.length());
+		}
+		
+		int port = url.getPort() != url.getDefaultPort() ? url.getPort() : -1;
+		return new ResourceKey(url.getProtocol().toLowerCase(), host, port, path, url.getQuery());
+	}
+	
+	/**
+	 * Lowercases the host, and strips any leading "www.".
+	 */
+	public static String normalizeHost(String host){
+		host = host != null ? host.toLowerCase() : "";
+		return host.startsWith("www.") ? host.substring(4) : host;
+	}
+	
+	// -- Accessors --------------------------------------------------------
+	
+	public String getScheme(){
+		return scheme;
+	}
+	
+	public String getHost(){
+		return host;
+	}
+	
+	public String getPath(){
+		return path;
+	}
+	
+	/**
+	 * Returns true if the host is the given domain, or one of its subdomains.
+	 */
+	public boolean isOnHost(String domain){
+		return isOnHost(host, normalizeHost(domain));
+	}
+	
+	private static boolean isOnHost(String host, String domain){
+		return host.equals(domain) || host.endsWith("." + domain);
+	}
+	
+	// -- Identity ----------------------------------------------------------
+	
+	@Override
+	public boolean equals(Object o){
+		if (!(o instanceof ResourceKey)){
+			return false;
+		}
+		ResourceKey other = (ResourceKey) o;
+		return (
+			scheme.equals(other.scheme) && host.equals(other.host) && port == other.port
+			&& path.equals(other.path)
+			&& (query == null ? other.query == null : query.equals(other.query))
+		);
+	}
+	
+	@Override
+	public int hashCode(){
+		int hash = scheme.hashCode();
+		hash = 31 * hash + host.hashCode();
+		hash = 31 * hash + port;
+		hash = 31 * hash + path.hashCode();
+		return 31 * hash + (query != null ? query.hashCode() : 0);
+	}
+	
+	@Override
+	public String toString(){
+		return String.format(
+			"%s://%s%s%s%s", scheme, host, port != -1 ? ":" + port : "", path,
+			query != null ? "?" + query : ""
+		);
+	}
+}
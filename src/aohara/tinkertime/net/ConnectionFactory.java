@@ -0,0 +1,227 @@
+package aohara.tinkertime.net;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+
+import org.apache.commons.io.input.ProxyInputStream;
+
+/**
+ * Opens the connections for every page and file which is fetched from a
+ * mod host.
+ * 
+ * The default factory can be replaced, so that the requests can be directed
+ * to a stand-in server when testing or benchmarking.
+ * 
+ * The bytes read from the opened streams are counted for each thread, so
+ * that the work running on a thread can measure what it transferred.
+ * 
+ * Redirects are followed by the factory rather than by the connections, so
+ * that they are followed between HTTP and HTTPS, as they were by Jsoup.
+ * 
+ * Every HTTP request is timed, from the DNS lookup until its stream is read
+ * to the end or closed, and recorded by host in {@link #STATS}.
+ * 
+ * @author Andrew O'Hara
+ */
+public class ConnectionFactory {
+	
+	public static final int TIMEOUT_MS = 10000;
+	public static final TransferStats STATS = new TransferStats();
+	public static final int MAX_REDIRECTS = 20;
+	private static final Set<Integer> REDIRECTS = new HashSet<>(Arrays.asList(301, 302, 303, 307, 308));
+	
+	private static volatile ConnectionFactory defaultFactory = new ConnectionFactory();
+	private static final ThreadLocal<long[]> bytesRead = new ThreadLocal<long[]>(){
+		@Override
+		protected long[] initialValue(){
+			return new long[1];
+		}
+	};
+	
+	public static ConnectionFactory getDefault(){
+		return defaultFactory;
+	}
+	
+	public static void setDefault(ConnectionFactory factory){
+		defaultFactory = factory;
+	}
+	
+	/**
+	 * Returns the total bytes read by the current thread from streams opened
+	 * by any factory.
+	 */
+	public static long getBytesReadOnThread(){
+		return bytesRead.get()[0];
+	}
+	
+	public URLConnection openConnection(URL url) throws IOException {
+		URLConnection connection = url.openConnection();
+		connection.setConnectTimeout(TIMEOUT_MS);
+		connection.setReadTimeout(TIMEOUT_MS);
+		return connection;
+	}
+	
+	public InputStream openStream(URL url) throws IOException {
+		return openResponse(url, false).getInputStream();
+	}
+	
+	/**
+	 * Opens the resource, following any redirects, including those between
+	 * HTTP and HTTPS.  Cookies set while redirecting are sent with the next
+	 * requests of the chain.
+	 * 
+	 * @param acceptGzip true to accept a gzipped body, which is then
+	 * 	decompressed as it is read
+	 */
+	public Response openResponse(URL url, boolean acceptGzip) throws IOException {
+		Opened opened = open(url, "GET", acceptGzip);
+		final TimedRequest request = opened.request;
+		
+		InputStream is;
+		try {
+			is = opened.connection.getInputStream();
+		} catch (IOException e){
+			if (request != null){
+				request.finish(0);
+			}
+			throw e;
+		}
+		
+		// Count the bytes as transferred, before any decompression
+		is = new ProxyInputStream(is){
+			private long streamBytes = 0;
+			
+			@Override
+			protected void afterRead(int n){
+				if (n > 0){
+					bytesRead.get()[0] += n;
+					streamBytes += n;
+				} else if (n < 0 && request != null){
+					request.finish(streamBytes);
+				}
+			}
+			
+			@Override
+			public void close() throws IOException {
+				try {
+					super.close();
+				} finally {
+					if (request != null){
+						request.finish(streamBytes);
+					}
+				}
+			}
+		};
+		
+		if ("gzip".equalsIgnoreCase(opened.connection.getContentEncoding())){
+			try {
+				is = new GZIPInputStream(is);
+			} catch (IOException e){
+				is.close();
+				throw e;
+			}
+		}
+		return new Response(opened.url, opened.connection.getContentType(), is);
+	}
+	
+	/**
+	 * Returns the length of the resource, or -1 if it is unknown.  Only the
+	 * headers are requested from HTTP servers.
+	 */
+	public int getContentLength(URL url) throws IOException {
+		Opened opened = open(url, "HEAD", false);
+		if (opened.request != null){
+			opened.request.finish(0);
+		}
+		return opened.connection.getContentLength();
+	}
+	
+	/**
+	 * Connects to the resource, following any redirects.  HTTP requests are
+	 * timed, and the headers of the final response have been received.
+	 */
+	private Opened open(URL url, String method, boolean acceptGzip) throws IOException {
+		Map<String, String> cookies = new LinkedHashMap<>();
+		for (int redirects = 0; ; redirects++){
+			URLConnection connection = openConnection(url);
+			if (!(connection instanceof HttpURLConnection)){
+				return new Opened(url, connection, null);
+			}
+			
+			HttpURLConnection http = (HttpURLConnection) connection;
+			http.setRequestMethod(method);
+			http.setInstanceFollowRedirects(false);
+			if (acceptGzip){
+				http.setRequestProperty("Accept-Encoding", "gzip");
+			}
+			if (!cookies.isEmpty()){
+				StringBuilder cookie = new StringBuilder();
+				for (Map.Entry<String, String> entry : cookies.entrySet()){
+					cookie.append(cookie.length() > 0 ? "; " : "").append(entry.getKey()).append('=').append(entry.getValue());
+				}
+				http.setRequestProperty("Cookie", cookie.toString());
+			}
+			
+			TimedRequest request = new TimedRequest(STATS.getHost(url.getHost()));
+			request.open(http);
+			
+			String location = http.getHeaderField("Location");
+			if (!REDIRECTS.contains(http.getResponseCode()) || location == null){
+				return new Opened(url, http, request);
+			}
+			
+			request.finish(0);
+			try {
+				http.getInputStream().close();
+			} catch (IOException e){
+				// Only closed so that the connection can be reused
+			}
+			if (redirects >= MAX_REDIRECTS){
+				throw new IOException("Too many redirects loading " + url);
+			}
+			addCookies(cookies, http);
+			url = new URL(url, location);
+			if (!url.getProtocol().equals("http") && !url.getProtocol().equals("https")){
+				throw new IOException("Only HTTP and HTTPS redirects are followed, not to " + url);
+			}
+		}
+	}
+	
+	private static void addCookies(Map<String, String> cookies, HttpURLConnection connection){
+		for (Map.Entry<String, List<String>> header : connection.getHeaderFields().entrySet()){
+			if (!"Set-Cookie".equalsIgnoreCase(header.getKey())){
+				continue;
+			}
+			for (String setCookie : header.getValue()){
+				String pair = setCookie.split(";", 2)[0];
+				int split = pair.indexOf('=');
+				if (split > 0){
+					cookies.put(pair.substring(0, split).trim(), pair.substring(split + 1).trim());
+				}
+			}
+		}
+	}
+	
+	private static class Opened {
+		
+		private final URL url;
+		private final URLConnection connection;
+		private final TimedRequest request;
+		
+		private Opened(URL url, URLConnection connection, TimedRequest request){
+			this.url = url;
+			this.connection = connection;
+			this.request = request;
+		}
+	}
+}
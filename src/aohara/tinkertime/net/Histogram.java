@@ -0,0 +1,76 @@
+package aohara.tinkertime.net;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Histogram of durations, with buckets which double in size.
+ * 
+ * The first bucket holds durations under 1 ms, the next 1-2 ms, then 2-4 ms,
+ * and so on, with the last bucket holding everything over a minute.  The
+ * percentiles are estimated as the upper bound of their bucket, so they are
+ * within a factor of two, which is plenty to tell a slow origin from a slow
+ * connection.
+ * 
+ * @author Andrew O'Hara
+ */
+public class Histogram {
+	
+	public static final int NUM_BUCKETS = 18;  // Up to 2^16 ms, then the rest
+	
+	private final long[] buckets = new long[NUM_BUCKETS];
+	private long count, totalNanos, maxNanos;
+	
+	public synchronized void record(long nanos){
+		nanos = Math.max(0, nanos);
+		buckets[getBucket(nanos)]++;
+		count++;
+		totalNanos += nanos;
+		maxNanos = Math.max(maxNanos, nanos);
+	}
+	
+	private static int getBucket(long nanos){
+		long ms = TimeUnit.NANOSECONDS.toMillis(nanos);
+		if (ms == 0){
+			return 0;
+		}
+		return Math.min(NUM_BUCKETS - 1, 64 - Long.numberOfLeadingZeros(ms));
+	}
+	
+	/**
+	 * Returns the upper bound of the given bucket in milliseconds.
+	 */
+	public static long getBucketLimitMs(int bucket){
+		return bucket < NUM_BUCKETS - 1 ? 1L << bucket : Long.MAX_VALUE;
+	}
+	
+	public synchronized long[] getBuckets(){
+		return buckets.clone();
+	}
+	
+	public synchronized long getCount(){
+		return count;
+	}
+	
+	public synchronized double getMeanMs(){
+		return count > 0 ? totalNanos / 1e6 / count : 0;
+	}
+	
+	public synchronized long getMaxMs(){
+		return TimeUnit.NANOSECONDS.toMillis(maxNanos);
+	}
+	
+	/**
+	 * Returns the estimated duration in milliseconds which the given fraction
+	 * of the durations are within.
+	 */
+	public synchronized long getPercentileMs(double fraction){
+		long target = (long) Math.ceil(fraction * count), seen = 0;
+		for (int i=0; i<NUM_BUCKETS; i++){
+			seen += buckets[i];
+			if (seen >= target && seen > 0){
+				return Math.min(getBucketLimitMs(i), getMaxMs());
+			}
+		}
+		return 0;
+	}
+}
@@ -0,0 +1,90 @@
+package aohara.tinkertime.net;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Timings of the HTTP requests made to a single host.
+ * 
+ * Each request is broken down into the DNS lookup, the TCP connect, the TLS
+ * handshake, the time to the first byte of the response, and the transfer
+ * of the body.  A reused keep-alive connection has no connect or handshake.
+ * 
+ * @author Andrew O'Hara
+ */
+public class HostStats {
+	
+	public static enum Phase { Dns, Connect, Tls, FirstByte, Transfer, Total };
+	
+	public final String host;
+	private final Histogram[] histograms = new Histogram[Phase.values().length];
+	private final Map<Integer, Long> statuses = new TreeMap<>();
+	private long numRequests, numFailed, bytes;
+	
+	HostStats(String host){
+		this.host = host;
+		for (int i=0; i<histograms.length; i++){
+			histograms[i] = new Histogram();
+		}
+	}
+	
+	/**
+	 * @param phaseNanos the duration of each phase, in the order of {@link Phase}
+	 * @param status the HTTP status, or -1 if no response was received
+	 */
+	synchronized void record(long[] phaseNanos, int status, long bytes){
+		for (int i=0; i<histograms.length; i++){
+			histograms[i].record(phaseNanos[i]);
+		}
+		numRequests++;
+		if (status < 0){
+			numFailed++;
+		} else {
+			Long count = statuses.get(status);
+			statuses.put(status, count != null ? count + 1 : 1);
+		}
+		this.bytes += bytes;
+	}
+	
+	public Histogram getHistogram(Phase phase){
+		return histograms[phase.ordinal()];
+	}
+	
+	public synchronized long getNumRequests(){
+		return numRequests;
+	}
+	
+	/**
+	 * Returns the number of requests which received no response.
+	 */
+	public synchronized long getNumFailed(){
+		return numFailed;
+	}
+	
+	/**
+	 * Returns the number of responses with each status.
+	 */
+	public synchronized Map<Integer, Long> getStatuses(){
+		return new TreeMap<>(statuses);
+	}
+	
+	public synchronized long getBytes(){
+		return bytes;
+	}
+	
+	/**
+	 * Returns a one line summary, with the p50/p95 of each phase.
+	 */
+	@Override
+	public String toString(){
+		StringBuilder builder = new StringBuilder(String.format(
+			"%s: %d requests, %d failed, statuses %s, %.1f KB;",
+			host, getNumRequests(), getNumFailed(), getStatuses(), getBytes() / 1024.0
+		));
+		for (Phase phase : Phase.values()){
+			Histogram histogram = getHistogram(phase);
+			builder.append(String.format(" %s %d/%d", phase, histogram.getPercentileMs(0.5), histogram.getPercentileMs(0.95)));
+		}
+		return builder.append(" ms (p50/p95)").toString();
+	}
+}
@@ -0,0 +1,62 @@
+package aohara.tinkertime.net;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A response opened by a {@link ConnectionFactory}, after following any
+ * redirects.
+ * 
+ * @author Andrew O'Hara
+ */
+public class Response implements Closeable {
+	
+	private static final Pattern CHARSET = Pattern.compile("(?i)\\bcharset=\\s*\"?([^\\s;\"]*)");
+	
+	public final URL url;
+	public final String contentType;
+	private final InputStream stream;
+	
+	Response(URL url, String contentType, InputStream stream){
+		this.url = url;
+		this.contentType = contentType;
+		this.stream = stream;
+	}
+	
+	/**
+	 * Returns the body, which is already decompressed if it was sent gzipped.
+	 */
+	public InputStream getInputStream(){
+		return stream;
+	}
+	
+	/**
+	 * Returns the charset given by the Content-Type header, or null if there
+	 * is none, or it is not supported.
+	 */
+	public String getCharset(){
+		if (contentType != null){
+			Matcher m = CHARSET.matcher(contentType);
+			if (m.find()){
+				String charset = m.group(1).trim();
+				try {
+					return Charset.isSupported(charset) ? charset : null;
+				} catch (IllegalCharsetNameException e){
+					return null;
+				}
+			}
+		}
+		return null;
+	}
+	
+	@Override
+	public void close() throws IOException {
+		stream.close();
+	}
+}
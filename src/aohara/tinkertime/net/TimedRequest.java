@@ -0,0 +1,95 @@
+package aohara.tinkertime.net;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+
+import javax.net.ssl.HttpsURLConnection;
+
+import aohara.tinkertime.net.HostStats.Phase;
+
+/**
+ * Times the phases of a single HTTP request, and records them in the
+ * {@link HostStats} of its host once the response has been read.
+ * 
+ * HttpURLConnection does not report its phases, so they are taken apart
+ * from the outside: the host is resolved before connecting, which the
+ * connection then finds in the JVM's DNS cache; the TLS handshake starts
+ * when the {@link TimingSocketFactory} layers it over the TCP socket; and
+ * the first byte arrives when the status line has been read.
+ * 
+ * @author Andrew O'Hara
+ */
+class TimedRequest {
+	
+	private final HostStats stats;
+	private final long[] phaseNanos = new long[Phase.values().length];
+	private final long startNanos = System.nanoTime();
+	private long responseNanos;
+	private int status = -1;
+	private boolean recorded = false;
+	
+	TimedRequest(HostStats stats){
+		this.stats = stats;
+	}
+	
+	/**
+	 * Connects and waits for the response headers.  The request is recorded
+	 * as failed if no response is received.
+	 */
+	void open(HttpURLConnection connection) throws IOException {
+		TimingSocketFactory socketFactory = null;
+		if (connection instanceof HttpsURLConnection){
+			HttpsURLConnection https = (HttpsURLConnection) connection;
+			socketFactory = TimingSocketFactory.wrap(https.getSSLSocketFactory());
+			if (socketFactory != null){
+				https.setSSLSocketFactory(socketFactory);
+				socketFactory.takeLayeredNanos();
+			}
+		}
+		
+		try {
+			try {
+				InetAddress.getAllByName(connection.getURL().getHost());
+			} catch (UnknownHostException e){
+				// The connection will fail with the same exception
+			}
+			long resolvedNanos = System.nanoTime();
+			phaseNanos[Phase.Dns.ordinal()] = resolvedNanos - startNanos;
+			
+			connection.connect();
+			long connectedNanos = System.nanoTime();
+			long layeredNanos = socketFactory != null ? socketFactory.takeLayeredNanos() : -1;
+			if (layeredNanos >= resolvedNanos){
+				phaseNanos[Phase.Connect.ordinal()] = layeredNanos - resolvedNanos;
+				phaseNanos[Phase.Tls.ordinal()] = connectedNanos - layeredNanos;
+			} else {
+				phaseNanos[Phase.Connect.ordinal()] = connectedNanos - resolvedNanos;
+			}
+			
+			status = connection.getResponseCode();
+			responseNanos = System.nanoTime();
+			phaseNanos[Phase.FirstByte.ordinal()] = responseNanos - connectedNanos;
+		} catch (IOException | RuntimeException e){
+			finish(0);
+			throw e;
+		}
+	}
+	
+	/**
+	 * Records the request, with the time since the response headers as the
+	 * transfer time.  Only the first call is recorded.
+	 */
+	synchronized void finish(long bytes){
+		if (!recorded){
+			recorded = true;
+			long endNanos = System.nanoTime();
+			if (status >= 0){
+				phaseNanos[Phase.Transfer.ordinal()] = endNanos - responseNanos;
+			}
+			phaseNanos[Phase.Total.ordinal()] = endNanos - startNanos;
+			stats.record(phaseNanos, status, bytes);
+		}
+	}
+}
@@ -0,0 +1,94 @@
+package aohara.tinkertime.net;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+
+import javax.net.ssl.HttpsURLConnection;
+import javax.net.ssl.SSLSocketFactory;
+
+/**
+ * SSL Socket Factory which records when the TLS layer is put over a
+ * connected socket, so that the TCP connect can be told apart from the TLS
+ * handshake.
+ * 
+ * It does not create unconnected sockets, so HTTPS connections connect a
+ * plain socket first, and then layer TLS over it with
+ * {@link #createSocket(Socket, String, int, boolean)}.  The time is kept
+ * for the connecting thread.
+ * 
+ * A single instance wraps the default factory, since HTTPS keep-alive
+ * connections are only reused by connections with the same factory.
+ * 
+ * @author Andrew O'Hara
+ */
+class TimingSocketFactory extends SSLSocketFactory {
+	
+	private static TimingSocketFactory instance;
+	
+	private final SSLSocketFactory delegate;
+	private final ThreadLocal<Long> layeredNanos = new ThreadLocal<>();
+	
+	private TimingSocketFactory(SSLSocketFactory delegate){
+		this.delegate = delegate;
+	}
+	
+	/**
+	 * Returns the factory wrapping the given factory, or null if it is not
+	 * the default factory.
+	 */
+	static synchronized TimingSocketFactory wrap(SSLSocketFactory factory){
+		if (instance != null && (factory == instance || factory == instance.delegate)){
+			return instance;
+		} else if (factory == HttpsURLConnection.getDefaultSSLSocketFactory()){
+			return instance = new TimingSocketFactory(factory);
+		}
+		return null;
+	}
+	
+	/**
+	 * Returns the time TLS was layered over a socket on this thread, and
+	 * clears it, or returns -1 if there was none.
+	 */
+	long takeLayeredNanos(){
+		Long nanos = layeredNanos.get();
+		layeredNanos.remove();
+		return nanos != null ? nanos : -1;
+	}
+	
+	@Override
+	public Socket createSocket(Socket s, String host, int port, boolean autoClose) throws IOException {
+		layeredNanos.set(System.nanoTime());
+		return delegate.createSocket(s, host, port, autoClose);
+	}
+	
+	@Override
+	public Socket createSocket(String host, int port) throws IOException {
+		return delegate.createSocket(host, port);
+	}
+	
+	@Override
+	public Socket createSocket(String host, int port, InetAddress localHost, int localPort) throws IOException {
+		return delegate.createSocket(host, port, localHost, localPort);
+	}
+	
+	@Override
+	public Socket createSocket(InetAddress host, int port) throws IOException {
+		return delegate.createSocket(host, port);
+	}
+	
+	@Override
+	public Socket createSocket(InetAddress address, int port, InetAddress localAddress, int localPort) throws IOException {
+		return delegate.createSocket(address, port, localAddress, localPort);
+	}
+	
+	@Override
+	public String[] getDefaultCipherSuites() {
+		return delegate.getDefaultCipherSuites();
+	}
+	
+	@Override
+	public String[] getSupportedCipherSuites() {
+		return delegate.getSupportedCipherSuites();
+	}
+}
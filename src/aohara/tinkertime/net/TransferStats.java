@@ -0,0 +1,40 @@
+package aohara.tinkertime.net;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Timings of the HTTP requests made by a {@link ConnectionFactory}, by host.
+ * 
+ * Requests are recorded under the host of the requested URL, even if the
+ * factory directs them elsewhere.
+ * 
+ * @author Andrew O'Hara
+ */
+public class TransferStats {
+	
+	private final Map<String, HostStats> hosts = new ConcurrentHashMap<>();
+	
+	public HostStats getHost(String host){
+		HostStats stats = hosts.get(host);
+		if (stats == null){
+			synchronized(hosts){
+				stats = hosts.get(host);
+				if (stats == null){
+					hosts.put(host, stats = new HostStats(host));
+				}
+			}
+		}
+		return stats;
+	}
+	
+	public List<HostStats> getHosts(){
+		return new ArrayList<>(hosts.values());
+	}
+	
+	public void reset(){
+		hosts.clear();
+	}
+}
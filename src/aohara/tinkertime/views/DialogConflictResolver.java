@@ -1,20 +1,50 @@
 package aohara.tinkertime.views;
 
+import java.lang.reflect.InvocationTargetException;
 import java.nio.file.Path;
 
 import javax.swing.JOptionPane;
+import javax.swing.SwingUtilities;
 
 import aohara.common.workflows.ConflictResolver;
 
 /**
  * Allows a Module Conflict to be resolved using a Modal Dialog.
  * 
+ * Mods are enabled by several workers at once, so the dialog is shown on the
+ * Event Dispatch Thread, and only one conflict is asked about at a time.
+ * 
  * @author Andrew O'Hara
  */
 public class DialogConflictResolver extends ConflictResolver {
 
+	private final Object dialogLock = new Object();
+
 	@Override
-	public Resolution getResolution(Path conflictPath) {
+	public Resolution getResolution(final Path conflictPath) {
+		if (SwingUtilities.isEventDispatchThread()){
+			return showDialog(conflictPath);
+		}
+
+		final Resolution[] resolution = new Resolution[1];
+		synchronized(dialogLock){
+			try {
+				SwingUtilities.invokeAndWait(new Runnable(){
+					@Override
+					public void run() {
+						resolution[0] = showDialog(conflictPath);
+					}
+				});
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} catch (InvocationTargetException e) {
+				e.printStackTrace();
+			}
+		}
+		return resolution[0];
+	}
+
+	private static Resolution showDialog(Path conflictPath){
 		return (Resolution) JOptionPane.showInputDialog(
 			null,
 			String.format(
@@ -0,0 +1,167 @@
+package aohara.tinkertime.views;
+
+import java.awt.BorderLayout;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JTextField;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+
+import aohara.common.selectorPanel.DecoratedComponent;
+import aohara.common.selectorPanel.SelectorInterface;
+import aohara.tinkertime.controllers.ModChangeBatch;
+import aohara.tinkertime.controllers.ModChangeListener;
+import aohara.tinkertime.models.Mod;
+import aohara.tinkertime.models.ModComparator;
+import aohara.tinkertime.models.ModSearchIndex;
+
+/**
+ * Type-to-filter box for the mod list.
+ * 
+ * The filter sits between the ModChangeBus and the selector: it keeps a
+ * {@link ModSearchIndex} of all mods up to date from the change batches,
+ * and only passes on the mods which match the current filter.  When the
+ * filter changes, only the difference between the old and new matches is
+ * applied to the selector, and it is found from the previous matches.
+ * 
+ * The mods which pass the filter can be read from any thread with
+ * {@link #getShownMods}, in the order they are listed.
+ * 
+ * @author Andrew O'Hara
+ */
+public class ModFilterPanel implements ModChangeListener, DocumentListener, DecoratedComponent<JPanel> {
+	
+	private final SelectorInterface<Mod> selector;
+	private final ModSearchIndex index = new ModSearchIndex();
+	private final Set<Mod> shown = new HashSet<>();
+	private final Comparator<Mod> comparator = new ModComparator();
+	private final JTextField filterField = new JTextField();
+	private final JPanel panel = new JPanel(new BorderLayout());
+	private String query = "";
+	private List<Mod> sortedShown;  // Null when shown has changed since it was sorted
+	
+	public ModFilterPanel(SelectorInterface<Mod> selector){
+		this.selector = selector;
+		filterField.getDocument().addDocumentListener(this);
+		filterField.setToolTipText("Filter by name, creator, KSP version, or host");
+		panel.add(new JLabel("Filter: "), BorderLayout.WEST);
+		panel.add(filterField, BorderLayout.CENTER);
+	}
+	
+	@Override
+	public JPanel getComponent(){
+		return panel;
+	}
+	
+	/**
+	 * Returns the mods which pass the filter, in list order.
+	 */
+	public synchronized List<Mod> getShownMods(){
+		if (sortedShown == null){
+			List<Mod> sorted = new ArrayList<>(shown);
+			Collections.sort(sorted, comparator);
+			sortedShown = Collections.unmodifiableList(sorted);
+		}
+		return sortedShown;
+	}
+	
+	/**
+	 * Filters the list by the query.  Appending to the query can only remove
+	 * mods from the previous result, and deleting from its end can only add
+	 * mods to it, so only that side of the difference is looked for.
+	 */
+	public synchronized void setQuery(String query){
+		String previous = this.query;
+		this.query = query;
+		sortedShown = null;
+		
+		// Narrowing; only the mods which were shown need to be checked
+		if (query.startsWith(previous)){
+			for (Iterator<Mod> it = shown.iterator(); it.hasNext(); ){
+				Mod mod = it.next();
+				if (!index.matches(mod, query)){
+					it.remove();
+					selector.removeElement(mod);
+				}
+			}
+			return;
+		}
+		
+		Set<Mod> matches = index.search(query);
+		if (!previous.startsWith(query)){
+			for (Iterator<Mod> it = shown.iterator(); it.hasNext(); ){
+				Mod mod = it.next();
+				if (!matches.contains(mod)){
+					it.remove();
+					selector.removeElement(mod);
+				}
+			}
+		}
+		for (Mod mod : matches){
+			if (shown.add(mod)){
+				selector.addElement(mod);
+			}
+		}
+	}
+	
+	// -- Listeners ---------------------------------------------------------
+	
+	@Override
+	public synchronized void modsChanged(ModChangeBatch batch) {
+		sortedShown = null;
+		if (batch.isReset()){
+			index.clear();
+			shown.clear();
+			selector.clear();
+			for (Mod mod : batch.getResetMods()){
+				index.update(mod);
+			}
+			for (Mod mod : index.search(query)){
+				shown.add(mod);
+				selector.addElement(mod);
+			}
+		}
+		
+		for (Mod mod : batch.getRemoved()){
+			index.remove(mod);
+			if (shown.remove(mod)){
+				selector.removeElement(mod);
+			}
+		}
+		
+		for (Mod mod : batch.getUpdated()){
+			index.update(mod);
+			boolean wasShown = shown.remove(mod);
+			if (wasShown){
+				selector.removeElement(mod);
+			}
+			if (index.matches(mod, query)){
+				shown.add(mod);
+				selector.addElement(mod);
+			}
+		}
+	}
+
+	@Override
+	public void insertUpdate(DocumentEvent e) {
+		setQuery(filterField.getText());
+	}
+
+	@Override
+	public void removeUpdate(DocumentEvent e) {
+		setQuery(filterField.getText());
+	}
+
+	@Override
+	public void changedUpdate(DocumentEvent e) {
+		setQuery(filterField.getText());
+	}
+}
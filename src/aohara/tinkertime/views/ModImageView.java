@@ -2,51 +2,127 @@ package aohara.tinkertime.views;
 
 import java.awt.Dimension;
 import java.awt.image.BufferedImage;
-import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
 
 import javax.swing.ImageIcon;
 import javax.swing.JLabel;
+import javax.swing.SwingUtilities;
 
 import aohara.common.content.ImageManager;
 import aohara.common.selectorPanel.ControlPanel;
 import aohara.tinkertime.TinkerConfig;
+import aohara.tinkertime.content.DecodedImageCache;
+import aohara.tinkertime.content.ThumbnailCache;
+import aohara.tinkertime.controllers.FileWatchIndex;
 import aohara.tinkertime.models.Mod;
+import aohara.tinkertime.models.ModComparator;
 
 /**
  * Component which displays the Mod's image from a given URL.
+ * 
+ * The nearest pre-scaled thumbnail is displayed if there is one, so that
+ * the full image rarely needs to be decoded.  Images are found, decoded, and
+ * scaled on the image cache's background pool and kept in memory, and the
+ * images of the neighbouring mods in the filtered list are prefetched, so
+ * browsing the list does not wait on disk.
  *
  * @author Andrew O'Hara
  */
 public class ModImageView extends ControlPanel<Mod> {
 	
+	private static final int NUM_PREFETCH = 2;
+	
 	private final ImageManager imageManager = new ImageManager();
 	private final JLabel label = new JLabel();
 	private final TinkerConfig config;
+	private final ModFilterPanel filter;
+	private final ThumbnailCache thumbnails;
+	private final DecodedImageCache images;
+	private final Comparator<Mod> comparator = new ModComparator();
+	private volatile long displayRequest = 0;
 	
-	public ModImageView(TinkerConfig config){
+	public ModImageView(TinkerConfig config, ModFilterPanel filter, ThumbnailCache thumbnails, FileWatchIndex fileIndex){
 		this.config = config;
+		this.filter = filter;
+		this.thumbnails = thumbnails;
+		images = new DecodedImageCache(fileIndex);
 		panel.add(label);
 	}
 	
+	public DecodedImageCache getImageCache(){
+		return images;
+	}
+	
 	@Override
-	public void display(Mod element){
-		BufferedImage image = null;
+	public void display(final Mod element){
+		final long request = ++displayRequest;
+		label.setIcon(null);
 		if (element != null){
-			try {
-				super.display(element);
-				image = imageManager.getImage(element.getCachedImagePath(config));
-			} catch(IOException ex){
-				// Do Nothing
-			}
-			if (image != null){
-				Dimension size = imageManager.scaleToFit(image, new Dimension(panel.getWidth(), panel.getWidth()));
-				try{
-					image = imageManager.resizeImage(image, size);
-				} catch (IllegalArgumentException e){
+			super.display(element);
+			final int width = panel.getWidth();
+			images.execute(new Runnable(){
+				@Override
+				public void run() {
+					if (request != displayRequest){
+						return;  // Selection has already changed again
+					}
 					
+					final BufferedImage image = scale(images.get(getImagePath(element, width)), width);
+					SwingUtilities.invokeLater(new Runnable(){
+						@Override
+						public void run() {
+							// Ignore the image if the selection has changed since it was requested
+							if (image != null && request == displayRequest){
+								label.setIcon(new ImageIcon(image));
+							}
+						}
+					});
+					prefetchNeighbours(element, width);
 				}
+			});
+		}
+	}
+	
+	private BufferedImage scale(BufferedImage image, int width){
+		if (image == null){
+			return null;
+		}
+		
+		Dimension size = imageManager.scaleToFit(image, new Dimension(width, width));
+		try{
+			return imageManager.resizeImage(image, size);
+		} catch (IllegalArgumentException e){
+			return image;
+		}
+	}
+	
+	private Path getImagePath(Mod mod, int width){
+		// Prefer the nearest pre-scaled thumbnail over the full image
+		Path imagePath = mod.getCachedImagePath(config);
+		Path thumbnailPath = thumbnails.getNearestThumbnail(imagePath, width);
+		return thumbnailPath != null ? thumbnailPath : imagePath;
+	}
+	
+	private void prefetchNeighbours(Mod mod, int width){
+		List<Mod> sortedMods = filter.getShownMods();
+		int index = Collections.binarySearch(sortedMods, mod, comparator);
+		if (index < 0 || !sortedMods.get(index).equals(mod)){
+			index = sortedMods.indexOf(mod);
+		}
+		if (index < 0){
+			return;
+		}
+		
+		for (int i=1; i<=NUM_PREFETCH; i++){
+			if (index + i < sortedMods.size()){
+				images.prefetch(getImagePath(sortedMods.get(index + i), width));
+			}
+			if (index - i >= 0){
+				images.prefetch(getImagePath(sortedMods.get(index - i), width));
 			}
 		}
-		label.setIcon(image != null ? new ImageIcon(image) : null);
 	}
 }
@@ -3,7 +3,10 @@ package aohara.tinkertime.views;
 import java.awt.Color;
 import java.awt.Component;
 import java.awt.image.BufferedImage;
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 import javax.swing.DefaultListCellRenderer;
 import javax.swing.Icon;
@@ -14,25 +17,40 @@ import javax.swing.ListCellRenderer;
 
 import thirdParty.CompoundIcon;
 import aohara.common.content.ImageManager;
-import aohara.tinkertime.TinkerConfig;
+import aohara.tinkertime.controllers.ModChangeBatch;
+import aohara.tinkertime.controllers.ModChangeListener;
+import aohara.tinkertime.controllers.ModStateManager;
 import aohara.tinkertime.models.Mod;
 
 /**
  * Custom ListCellRenderer for a Mod to be displayed on a JList.
  * 
  * Displays the Mod name as well as all status icons to the left of it.
+ * 
+ * The label text and status of each mod are cached, since checking whether
+ * a mod is downloaded may require a disk access.  The cache must be registered
+ * with the ModChangeBus so that it is invalidated when a mod changes.  Each
+ * combination of status icons is composed only once.
  *  
  * @author Andrew O'Hara
  */
-public class ModListCellRenderer implements ListCellRenderer<Mod> {
+public class ModListCellRenderer implements ListCellRenderer<Mod>, ModChangeListener {
+	
+	private static final int
+		DOWNLOADED = 1,
+		ENABLED = 1 << 1,
+		UPDATE_AVAILABLE = 1 << 2,
+		LOCAL = 1 << 3;
 	
 	private final ImageIcon checkIcon, xIcon, errorIcon, updateIcon, localIcon;
 	private final DefaultListCellRenderer def = new DefaultListCellRenderer();
 	private final ImageManager imageManager = new ImageManager("icon/");
-	private final TinkerConfig config;
+	private final ModStateManager sm;
+	private final Map<String, RenderState> states = new HashMap<>();
+	private final Map<Integer, Icon> statusIcons = new HashMap<>();
 	
-	public ModListCellRenderer(TinkerConfig config){
-		this.config = config;
+	public ModListCellRenderer(ModStateManager sm){
+		this.sm = sm;
 		checkIcon = loadIcon("glyphicons_152_check.png", new Color(70, 210, 70));
 		xIcon = loadIcon("glyphicons_207_remove_2.png", new Color(205, 20, 20));
 		errorIcon = loadIcon("glyphicons_078_warning_sign.png", new Color(215, 160, 0));
@@ -49,32 +67,95 @@ public class ModListCellRenderer implements ListCellRenderer<Mod> {
 	@Override
 	public Component getListCellRendererComponent(JList<? extends Mod> list,
 			Mod mod, int index, boolean isSelected, boolean cellHasFocus) {
-
-		// Compile list of icons
-		LinkedList<ImageIcon> icons = new LinkedList<>();
-		if (mod.isDownloaded(config)){
-			icons.add(mod.isEnabled() ? checkIcon : xIcon);
-		} else {
-			icons.add(errorIcon);
+		RenderState state = getState(mod);
+		JLabel label = (JLabel) def.getListCellRendererComponent(list, state.text, index, isSelected, cellHasFocus);
+		label.setIcon(state.icon);
+		return label;
+	}
+	
+	private RenderState getState(Mod mod){
+		RenderState state = states.get(mod.id);
+		if (state == null || state.mod != mod){
+			state = new RenderState(mod, getText(mod), getStatusIcon(getStatus(mod)));
+			states.put(mod.id, state);
+		}
+		return state;
+	}
+	
+	private int getStatus(Mod mod){
+		int status = 0;
+		if (sm.isDownloaded(mod)){
+			status |= DOWNLOADED;
+			if (mod.isEnabled()){
+				status |= ENABLED;
+			}
 		}
-		
 		if (mod.isUpdateAvailable()){
-			icons.add(updateIcon);
+			status |= UPDATE_AVAILABLE;
 		}
-		
 		if (mod.getPageUrl() == null){
-			icons.add(localIcon);
+			status |= LOCAL;
 		}
-		
-		// Create cell label
-		String text = mod.getName();
+		return status;
+	}
+	
+	private Icon getStatusIcon(int status){
+		Icon icon = statusIcons.get(status);
+		if (icon == null){
+			// Compile list of icons
+			List<Icon> icons = new ArrayList<>();
+			if ((status & DOWNLOADED) != 0){
+				icons.add((status & ENABLED) != 0 ? checkIcon : xIcon);
+			} else {
+				icons.add(errorIcon);
+			}
+			
+			if ((status & UPDATE_AVAILABLE) != 0){
+				icons.add(updateIcon);
+			}
+			
+			if ((status & LOCAL) != 0){
+				icons.add(localIcon);
+			}
+			
+			icon = new CompoundIcon(icons.toArray(new Icon[icons.size()]));
+			statusIcons.put(status, icon);
+		}
+		return icon;
+	}
+	
+	private static String getText(Mod mod){
 		if (mod.getSupportedVersion() != null){
-			text = String.format("[%s] %s", mod.getSupportedVersion(), text);
+			return String.format("[%s] %s", mod.getSupportedVersion(), mod.getName());
+		}
+		return mod.getName();
+	}
+	
+	// -- Invalidation ----------------------------------------------------
+	
+	@Override
+	public void modsChanged(ModChangeBatch batch) {
+		if (batch.isReset()){
+			states.clear();
+		}
+		for (Mod mod : batch.getRemoved()){
+			states.remove(mod.id);
+		}
+		for (Mod mod : batch.getUpdated()){
+			states.remove(mod.id);
+		}
+	}
+	
+	private static class RenderState {
+		
+		private final Mod mod;
+		private final String text;
+		private final Icon icon;
+		
+		private RenderState(Mod mod, String text, Icon icon){
+			this.mod = mod;
+			this.text = text;
+			this.icon = icon;
 		}
-		JLabel label = (JLabel) def.getListCellRendererComponent(list, text, index, isSelected, cellHasFocus);
-		label.setIcon(new CompoundIcon(icons.toArray(new Icon[0])));
-		return label;
 	}
-
-
 }
@@ -1,16 +1,21 @@
 package aohara.tinkertime.views;
 
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
 import java.io.IOException;
 import java.net.URL;
 import java.nio.file.Path;
 import java.text.SimpleDateFormat;
 import java.util.Date;
+import java.util.concurrent.ExecutionException;
 
 import javax.swing.BorderFactory;
+import javax.swing.JButton;
 import javax.swing.JLabel;
 import javax.swing.JOptionPane;
 import javax.swing.JPanel;
 import javax.swing.JTextArea;
+import javax.swing.SwingWorker;
 import javax.swing.event.HyperlinkEvent;
 import javax.swing.event.HyperlinkListener;
 
@@ -18,26 +23,33 @@ import thirdParty.VerticalLayout;
 import aohara.common.Util;
 import aohara.common.selectorPanel.SelectorView;
 import aohara.tinkertime.TinkerConfig;
+import aohara.tinkertime.content.ReadmeCache;
+import aohara.tinkertime.controllers.FileWatchIndex;
 import aohara.tinkertime.models.Mod;
-import aohara.tinkertime.models.ModStructure;
 
 /**
  * Panel for displaying a Mod's information.
  * 
  * Includes the Mod's file information, as well as the Readme if it exists.
+ * The Readme is extracted in the background, and is cached on disk.
  * 
  * @author Andrew O'Hara
  */
 public class ModView implements SelectorView<Mod, JPanel>, HyperlinkListener {
 	
 	private final TinkerConfig config;
+	private final FileWatchIndex fileIndex;
+	private final ReadmeCache readmeCache;
+	private ReadmeLoader readmeLoader;
 	private Mod mod;
 	private final JPanel panel = new JPanel();
 	private final SimpleDateFormat DATE_FORMAT = (
 			new SimpleDateFormat("yyyy/MM/dd"));
 	
-	public ModView(TinkerConfig config){
+	public ModView(TinkerConfig config, FileWatchIndex fileIndex, ReadmeCache readmeCache){
 		this.config = config;
+		this.fileIndex = fileIndex;
+		this.readmeCache = readmeCache;
 		panel.setLayout(new VerticalLayout(0, VerticalLayout.BOTH));
 	}
 
@@ -46,6 +58,12 @@ public class ModView implements SelectorView<Mod, JPanel>, HyperlinkListener {
 		this.mod = mod;
 		panel.removeAll();
 		
+		// Cancel any readme load for the previous selection
+		if (readmeLoader != null){
+			readmeLoader.cancel(true);
+			readmeLoader = null;
+		}
+		
 		if (mod != null){
 			// Set Border
 			panel.setBorder(BorderFactory.createTitledBorder(mod.getName() + (mod.isUpdateable()? " - by " + mod.getCreator() : " - added from zip")));
@@ -73,21 +91,57 @@ public class ModView implements SelectorView<Mod, JPanel>, HyperlinkListener {
 			// Mod Page Link
 			panel.add(new UrlPanel("Go to Mod Page", mod.getPageUrl()).getComponent());		
 			
-			// Readme
-			Path zipPath = mod.getCachedImagePath(config);
-			if (zipPath != null && zipPath.toFile().exists()){
-				String readmeText = ModStructure.getReadmeText(config, mod);				
-				if (readmeText != null && !readmeText.trim().isEmpty()){
-					panel.add(new JLabel("<html><b>Readme:</b></html"));
-					JTextArea readmeArea = new JTextArea(readmeText);
-					readmeArea.setLineWrap(true);
-					readmeArea.setWrapStyleWord(true);
-					readmeArea.setEditable(false);
-					panel.add(readmeArea);
-				}
+			// Readme is loaded in the background
+			Path zipPath = mod.getCachedZipPath(config);
+			if (zipPath != null && fileIndex.exists(zipPath)){
+				loadReadme(mod, zipPath);
 			}
-
 		}
+		
+		panel.revalidate();
+		panel.repaint();
+	}
+	
+	private void loadReadme(final Mod mod, final Path zipPath){
+		readmeLoader = new ReadmeLoader(mod, zipPath, null, 0);
+		readmeLoader.execute();
+	}
+	
+	private void addReadmePage(final ReadmeLoader loader, ReadmeCache.Page page){
+		JTextArea readmeArea = loader.readmeArea;
+		if (readmeArea == null){
+			if (page.text.trim().isEmpty()){
+				return;
+			}
+			
+			panel.add(new JLabel("<html><b>Readme:</b></html"));
+			readmeArea = new JTextArea(page.text);
+			readmeArea.setLineWrap(true);
+			readmeArea.setWrapStyleWord(true);
+			readmeArea.setEditable(false);
+			panel.add(readmeArea);
+		} else {
+			readmeArea.append(page.text);
+			panel.remove(panel.getComponentCount() - 1);  // Remove "more" button
+		}
+		
+		// Very large readmes are loaded one page at a time
+		if (page.hasMore){
+			final JTextArea area = readmeArea;
+			final long end = page.end;
+			JButton moreButton = new JButton("Show more");
+			moreButton.addActionListener(new ActionListener(){
+				@Override
+				public void actionPerformed(ActionEvent e) {
+					readmeLoader = new ReadmeLoader(loader.mod, loader.zipPath, area, end);
+					readmeLoader.execute();
+				}
+			});
+			panel.add(moreButton);
+		}
+		
+		panel.revalidate();
+		panel.repaint();
 	}
 
 	@Override
@@ -100,6 +154,50 @@ public class ModView implements SelectorView<Mod, JPanel>, HyperlinkListener {
 		return panel;
 	}
 
+	// -- Readme Loading ----------------------------------------------------
+	
+	/**
+	 * Extracts a page of the readme in the background, and adds it to the
+	 * panel if the mod is still selected once it is loaded.
+	 */
+	private class ReadmeLoader extends SwingWorker<ReadmeCache.Page, Void> {
+		
+		private final Mod mod;
+		private final Path zipPath;
+		private final JTextArea readmeArea;
+		private final long start;
+		
+		private ReadmeLoader(Mod mod, Path zipPath, JTextArea readmeArea, long start){
+			this.mod = mod;
+			this.zipPath = zipPath;
+			this.readmeArea = readmeArea;
+			this.start = start;
+		}
+
+		@Override
+		protected ReadmeCache.Page doInBackground() throws Exception {
+			Path readme = readmeCache.getReadme(mod.id, zipPath);
+			return readme != null ? ReadmeCache.readPage(readme, start, ReadmeCache.PAGE_CHARS) : null;
+		}
+		
+		@Override
+		protected void done(){
+			if (isCancelled() || readmeLoader != this){
+				return;
+			}
+			readmeLoader = null;
+			
+			try {
+				ReadmeCache.Page page = get();
+				if (page != null){
+					addReadmePage(this, page);
+				}
+			} catch (InterruptedException | ExecutionException e) {
+				e.printStackTrace();
+			}
+		}
+	}
+
 	// -- Listeners ---------------------------------------------------------
 
 	@Override
@@ -5,18 +5,22 @@ import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.Arrays;
+import java.util.List;
 
 import javax.swing.AbstractAction;
 import javax.swing.Action;
 import javax.swing.JComponent;
 import javax.swing.JFileChooser;
 import javax.swing.JOptionPane;
+import javax.swing.JScrollPane;
+import javax.swing.JTextArea;
 import javax.swing.filechooser.FileNameExtensionFilter;
 
 import aohara.common.Util;
 import aohara.common.content.ImageManager;
 import aohara.common.workflows.tasks.BrowserGoToTask;
 import aohara.tinkertime.TinkerTime;
+import aohara.tinkertime.content.ArchiveSearchIndex;
 import aohara.tinkertime.controllers.ModManager;
 import aohara.tinkertime.controllers.ModManager.CannotDisableModError;
 import aohara.tinkertime.controllers.ModManager.ModAlreadyDisabledError;
@@ -30,6 +34,7 @@ import aohara.tinkertime.models.FileUpdateListener;
 import aohara.tinkertime.models.Mod;
 import aohara.tinkertime.views.UrlPanel;
 import aohara.tinkertime.workflows.ModWorkflowBuilder;
+import aohara.tinkertime.workflows.WorkflowMetrics;
 
 class Actions {
 	
@@ -216,6 +221,40 @@ class Actions {
 		}
 	}
 	
+	@SuppressWarnings("serial")
+	static class EnableAllAction extends TinkerAction {
+		
+		EnableAllAction(JComponent parent, ModManager mm){
+			super("Enable All", null, parent, mm);
+		}
+
+		@Override
+		public void actionPerformed(ActionEvent e) {
+			try {
+				mm.enableAllMods();
+			} catch (ModNotDownloadedError | IOException e1) {
+				errorMessage(e1);
+			}
+		}
+	}
+	
+	@SuppressWarnings("serial")
+	static class DisableAllAction extends TinkerAction {
+		
+		DisableAllAction(JComponent parent, ModManager mm){
+			super("Disable All", null, parent, mm);
+		}
+
+		@Override
+		public void actionPerformed(ActionEvent e) {
+			try {
+				mm.disableAllMods();
+			} catch (IOException e1) {
+				errorMessage(e1);
+			}
+		}
+	}
+	
 	@SuppressWarnings("serial")
 	static class OptionsAction extends TinkerAction {
 		
@@ -338,6 +377,84 @@ class Actions {
 		}
 	}
 	
+	@SuppressWarnings("serial")
+	static class ExportWorkflowMetrics extends TinkerAction {
+		
+		ExportWorkflowMetrics(JComponent parent, ModManager mm){
+			super("Export Workflow Metrics", null, parent, mm);
+		}
+
+		@Override
+		public void actionPerformed(ActionEvent evt) {
+			JFileChooser chooser = new JFileChooser();
+			chooser.setDialogTitle("Choose a location to save the workflow metrics");
+			chooser.setFileSelectionMode(JFileChooser.FILES_ONLY);
+			chooser.setFileFilter(new FileNameExtensionFilter("Json File", "json"));
+			chooser.setSelectedFile(new java.io.File("workflowMetrics.json"));
+			if (chooser.showSaveDialog(parent) == JFileChooser.APPROVE_OPTION){
+				try {
+					WorkflowMetrics.getSession().exportJson(chooser.getSelectedFile().toPath());
+				} catch (IOException e) {
+					errorMessage(e);
+				}
+			}
+		}
+	}
+	
+	@SuppressWarnings("serial")
+	static class SearchArchivesAction extends TinkerAction {
+		
+		private static final int MAX_PATHS_SHOWN = 5;
+		private final ArchiveSearchIndex index;
+		
+		SearchArchivesAction(JComponent parent, ModManager mm, ArchiveSearchIndex index){
+			super("Search Mod Archives", null, parent, mm);
+			this.index = index;
+		}
+
+		@Override
+		public void actionPerformed(ActionEvent evt) {
+			String query = JOptionPane.showInputDialog(
+				parent,
+				"Search the readmes and files of all downloaded mods.\n"
+				+ "e.g. a part name, plugin, or config key",
+				"Search Mod Archives",
+				JOptionPane.QUESTION_MESSAGE
+			);
+			
+			if (query == null || query.trim().isEmpty()){
+				return;
+			}
+			
+			List<ArchiveSearchIndex.Result> results = index.search(query);
+			if (results.isEmpty()){
+				JOptionPane.showMessageDialog(parent, "No mods matched " + query, "No Results", JOptionPane.INFORMATION_MESSAGE);
+				return;
+			}
+			
+			StringBuilder text = new StringBuilder();
+			for (ArchiveSearchIndex.Result result : results){
+				text.append(result.mod.getName());
+				if (result.readmeMatches){
+					text.append(" (readme)");
+				}
+				text.append("\n");
+				for (String path : result.matchingPaths.subList(0, Math.min(MAX_PATHS_SHOWN, result.matchingPaths.size()))){
+					text.append("    ").append(path).append("\n");
+				}
+			}
+			
+			JTextArea resultsArea = new JTextArea(text.toString(), 20, 60);
+			resultsArea.setEditable(false);
+			JOptionPane.showMessageDialog(
+				parent,
+				new JScrollPane(resultsArea),
+				results.size() + " mods matched " + query,
+				JOptionPane.INFORMATION_MESSAGE
+			);
+		}
+	}
+	
 	@SuppressWarnings("serial")
 	static class UpdateTinkerTime extends TinkerAction implements FileUpdateListener {
 		
@@ -6,6 +6,7 @@ import javax.swing.JMenuItem;
 import javax.swing.JPopupMenu;
 import javax.swing.JToolBar;
 
+import aohara.tinkertime.content.ArchiveSearchIndex;
 import aohara.tinkertime.controllers.ModManager;
 
 public class MenuFactory {
@@ -37,12 +38,13 @@ public class MenuFactory {
 		return toolBar;
 	}
 	
-	public static JMenuBar creatMenuBar(ModManager mm){
+	public static JMenuBar creatMenuBar(ModManager mm, ArchiveSearchIndex archiveIndex){
 		JMenuBar menuBar = new JMenuBar();
 		
 		JMenu fileMenu = new JMenu("File");
 		fileMenu.add(new JMenuItem(new Actions.OptionsAction(menuBar, mm)));
 		fileMenu.add(new JMenuItem(new Actions.ExportModList(menuBar, mm)));
+		fileMenu.add(new JMenuItem(new Actions.ExportWorkflowMetrics(menuBar, mm)));
 		fileMenu.add(new JMenuItem(new Actions.ExitAction(menuBar, mm)));
 		menuBar.add(fileMenu);
 		
@@ -50,8 +52,12 @@ public class MenuFactory {
 		modMenu.add(new JMenuItem(new Actions.AddModAction(menuBar, mm)));
 		modMenu.add(new JMenuItem(new Actions.AddModZip(menuBar, mm)));
 		modMenu.add(new JMenuItem(new Actions.EnableDisableModAction(menuBar, mm)));
+		modMenu.add(new JMenuItem(new Actions.EnableAllAction(menuBar, mm)));
+		modMenu.add(new JMenuItem(new Actions.DisableAllAction(menuBar, mm)));
 		modMenu.add(new JMenuItem(new Actions.DeleteModAction(menuBar, mm)));
 		modMenu.add(new JMenuItem(new Actions.UpdateModAction(menuBar, mm)));
+		modMenu.addSeparator();
+		modMenu.add(new JMenuItem(new Actions.SearchArchivesAction(menuBar, mm, archiveIndex)));
 		menuBar.add(modMenu);
 		
 		JMenu updateMenu = new JMenu("Updates");
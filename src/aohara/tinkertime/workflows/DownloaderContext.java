@@ -5,6 +5,7 @@ import java.nio.file.Path;
 import java.util.Date;
 
 import aohara.tinkertime.crawlers.Crawler;
+import aohara.tinkertime.management.FlightEvents;
 
 public abstract class DownloaderContext {
 	
@@ -18,6 +19,7 @@ public abstract class DownloaderContext {
 	public abstract Path getDownloadPath() throws IOException;
 	
 	public boolean isUpdateAvailable(Date lastUpdated, String lastFileName) {
+		FlightEvents.Event event = FlightEvents.begin(FlightEvents.Type.CrawlExtraction);
 		try {
 			if (!crawler.isSuccesful()){
 				return false;
@@ -30,6 +32,8 @@ public abstract class DownloaderContext {
 		} catch (IOException e){
 			e.printStackTrace();
 			return false;
+		} finally {
+			event.commit(crawler.generateId(), crawler.getApiUrl().getHost(), 0);
 		}
 	}
 
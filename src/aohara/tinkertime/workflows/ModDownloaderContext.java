@@ -9,6 +9,7 @@ import aohara.tinkertime.TinkerConfig;
 import aohara.tinkertime.crawlers.Crawler;
 import aohara.tinkertime.crawlers.CrawlerFactory;
 import aohara.tinkertime.crawlers.CrawlerFactory.UnsupportedHostException;
+import aohara.tinkertime.management.FlightEvents;
 import aohara.tinkertime.models.Mod;
 
 public class ModDownloaderContext extends DownloaderContext {
@@ -36,11 +37,16 @@ public class ModDownloaderContext extends DownloaderContext {
 	}
 	
 	public Mod createMod() throws IOException{
-		return new Mod(
-			crawler.generateId(), crawler.getName(), crawler.getNewestFileName(),
-			crawler.getCreator(), crawler.getImageUrl(), crawler.getPageUrl(),
-			crawler.getUpdatedOn() != null ? crawler.getUpdatedOn() : Calendar.getInstance().getTime(),
-			crawler.getSupportedVersion()
-		);
+		FlightEvents.Event event = FlightEvents.begin(FlightEvents.Type.CrawlExtraction);
+		try {
+			return new Mod(
+				crawler.generateId(), crawler.getName(), crawler.getNewestFileName(),
+				crawler.getCreator(), crawler.getImageUrl(), crawler.getPageUrl(),
+				crawler.getUpdatedOn() != null ? crawler.getUpdatedOn() : Calendar.getInstance().getTime(),
+				crawler.getSupportedVersion()
+			);
+		} finally {
+			event.commit(crawler.generateId(), crawler.getApiUrl().getHost(), 0);
+		}
 	}
 }
@@ -5,33 +5,91 @@ import java.io.IOException;
 import java.net.URL;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.Collection;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import thirdParty.ZipNode;
 import aohara.common.workflows.ConflictResolver;
+import aohara.common.workflows.Workflow;
 import aohara.common.workflows.WorkflowBuilder;
+import aohara.common.workflows.Workflow.WorkflowTask;
 import aohara.common.workflows.tasks.UnzipTask;
 import aohara.tinkertime.TinkerConfig;
+import aohara.tinkertime.content.ReadmeCache;
+import aohara.tinkertime.content.ThumbnailCache;
 import aohara.tinkertime.controllers.ModStateManager;
 import aohara.tinkertime.crawlers.CrawlerFactory.UnsupportedHostException;
+import aohara.tinkertime.management.FlightEvents;
 import aohara.tinkertime.models.FileUpdateListener;
 import aohara.tinkertime.models.Mod;
 import aohara.tinkertime.models.ModStructure;
 import aohara.tinkertime.workflows.tasks.CacheCrawlerPageTask;
 import aohara.tinkertime.workflows.tasks.CheckForUpdateTask;
 import aohara.tinkertime.workflows.tasks.CrawlerDownloadTask;
+import aohara.tinkertime.workflows.tasks.DeletePathTask;
+import aohara.tinkertime.workflows.tasks.GenerateThumbnailsTask;
 import aohara.tinkertime.workflows.tasks.MarkModEnabledTask;
 import aohara.tinkertime.workflows.tasks.MarkModUpdatedTask;
 import aohara.tinkertime.workflows.tasks.MoveCrawlerDownloadToDestTask;
 import aohara.tinkertime.workflows.tasks.NotfiyUpdateAvailableTask;
+import aohara.tinkertime.workflows.tasks.ParallelTask;
+import aohara.tinkertime.workflows.tasks.TimedTask;
 
 public class ModWorkflowBuilder extends WorkflowBuilder {
 	
 	public static enum ModDownloadType { File, Image };
 	
+	private static final int MAX_PARALLEL_IO = 4;
+	
+	private final Set<String> lockKeys = new HashSet<>();
+	private final WorkflowMetrics.Recorder recorder;
+	private String host;
+	private Mod copiedMod;  // Set while copying a mod's file to GameData
+	private long copiedBytes;
+	
 	public ModWorkflowBuilder(String workflowName) {
+		this(workflowName, WorkflowMetrics.getSession());
+	}
+	
+	public ModWorkflowBuilder(String workflowName, WorkflowMetrics metrics) {
 		super(workflowName);
+		recorder = metrics.newRecorder(workflowName);
+	}
+	
+	/**
+	 * Adds the task, wrapped so that its metrics are recorded.
+	 */
+	@Override
+	public void addTask(WorkflowTask task){
+		if (copiedMod != null){
+			addExtraction(task, copiedMod.id, copiedBytes);
+		} else {
+			super.addTask(new TimedTask(task, recorder, host));
+		}
+	}
+	
+	@Override
+	public Workflow buildWorkflow(){
+		recorder.workflowBuilt();
+		return super.buildWorkflow();
+	}
+	
+	/**
+	 * Returns the keys of the mods and GameData modules touched by this workflow.
+	 * 
+	 * Workflows which share a key must not run concurrently.
+	 */
+	public Set<String> getLockKeys(){
+		return new HashSet<String>(lockKeys);
 	}
 	
 	/**
@@ -43,16 +101,19 @@ public class ModWorkflowBuilder extends WorkflowBuilder {
 	
 	public void checkForUpdates(URL pageUrl, Date updatedOn, String newestFileName, FileUpdateListener... listeners) throws UnsupportedHostException{
 		DownloaderContext context = DirectDownloaderContext.fromUrl(pageUrl, null, null);
+		host = pageUrl.getHost();
 		addTask(new CacheCrawlerPageTask(context));
 		addTask(new CheckForUpdateTask(context, updatedOn, newestFileName));
 		addTask(new NotfiyUpdateAvailableTask(context.crawler, listeners));
+		host = null;
 	}
 	
 	/**
 	 * Downloads the latest version of the mod referenced by the URL.
 	 */
-	public void downloadMod(URL pageUrl, TinkerConfig config, ModStateManager sm) throws IOException, UnsupportedHostException {
+	public void downloadMod(URL pageUrl, TinkerConfig config, ModStateManager sm, ThumbnailCache thumbnails) throws IOException, UnsupportedHostException {
 		ModDownloaderContext context = ModDownloaderContext.create(pageUrl, config);
+		host = pageUrl.getHost();
 		addTask(new CacheCrawlerPageTask(context));
 		
 		// Download File
@@ -66,8 +127,10 @@ public class ModWorkflowBuilder extends WorkflowBuilder {
 		tempImage.toFile().deleteOnExit();
 		addTask(new CrawlerDownloadTask(context.crawler, ModDownloadType.Image, tempImage));
 		addTask(new MoveCrawlerDownloadToDestTask(context, ModDownloadType.Image, tempImage));
+		addTask(new GenerateThumbnailsTask(context, thumbnails));
 		
 		addTask(MarkModUpdatedTask.createFromDownloaderContext(sm, context));
+		host = null;
 	}
 	
 	public void addLocalMod(Path zipPath, TinkerConfig config, ModStateManager sm){
@@ -101,6 +164,7 @@ public class ModWorkflowBuilder extends WorkflowBuilder {
 	 * @param sm
 	 */
 	public void deleteMod(Mod mod, TinkerConfig config, ModStateManager sm) {
+		lockMod(mod);
 		if (mod.isEnabled()){
 			try {
 				disableMod(mod, config, sm);
@@ -111,43 +175,253 @@ public class ModWorkflowBuilder extends WorkflowBuilder {
 		
 		deleteModZip(mod, config);
 		delete(mod.getCachedImagePath(config));
+		for (int size : ThumbnailCache.SIZES){
+			addTask(new DeletePathTask(ThumbnailCache.getThumbnailPath(mod.getCachedImagePath(config), size)));
+		}
+		addTask(new DeletePathTask(ReadmeCache.getModFolder(config.getReadmeCachePath(), mod.id)));
 		addTask(MarkModUpdatedTask.notifyDeletion(sm, mod, config));
 	}
 	
 	public void disableMod(Mod mod, TinkerConfig config, ModStateManager sm) throws IOException{
-		if (modHasArchive(mod, config)){			
+		lockMod(mod);
+		if (modHasArchive(mod, sm)){			
 			for (ZipNode module : ModStructure.inspectArchive(config, mod).getModules()){
-				
+				lockModule(module.getName());
 				if (!isDependency(module, config, sm)){
 					delete(config.getGameDataPath().resolve(module.getName()));
 				}
 			}
 		} else {
+			lockModule(mod.getNewestFileName());
 			delete(config.getGameDataPath().resolve(mod.getNewestFileName()));
 		}
 		addTask(new MarkModEnabledTask(mod, sm, false));
 	}
 	
 	public void enableMod(Mod mod, TinkerConfig config, ModStateManager sm, ConflictResolver cr) throws IOException{
-		if (modHasArchive(mod, config)){
+		lockMod(mod);
+		if (modHasArchive(mod, sm)){
 			ModStructure structure = ModStructure.inspectArchive(config, mod);
 			for (ZipNode module : structure.getModules()){
-				addTask(new UnzipTask(config.getGameDataPath(), module, cr));
+				lockModule(module.getName());
+				addExtraction(new UnzipTask(config.getGameDataPath(), module, cr), mod.id, 0);
 			}
 		} else {
-			copy(mod.getCachedZipPath(config), config.getGameDataPath());
+			lockModule(mod.getNewestFileName());
+			copyToGameData(mod, config);
 		}
 		
 		addTask(new MarkModEnabledTask(mod, sm, true));
 	}
 	
+	/**
+	 * Enables several mods with one merged extraction plan.
+	 * 
+	 * Modules which are shared between the mods (e.g. bundled dependencies)
+	 * are only extracted once.  The extractions are run in parallel, and the
+	 * files of mods without an archive are then copied as is.  Modules which
+	 * conflict are extracted afterwards, one at a time, so that the conflict
+	 * resolver is asked about them.  The mods are then marked as enabled in a
+	 * single state update.
+	 */
+	public void enableMods(Collection<Mod> mods, TinkerConfig config, ModStateManager sm, ConflictResolver cr) throws IOException {
+		for (Mod mod : mods){
+			lockMod(mod);
+		}
+		
+		ExtractionPlan plan = planExtraction(mods, config, sm);
+		for (String name : plan.getModuleNames()){
+			lockModule(name);
+		}
+		for (String name : plan.getFileNames()){
+			lockModule(name);
+		}
+		
+		Path gameData = config.getGameDataPath();
+		List<WorkflowTask> extractions = new ArrayList<>();
+		for (ZipNode module : plan.modules.values()){
+			extractions.add(new UnzipTask(gameData, module, cr));
+		}
+		addExtraction(
+			new ParallelTask("Extracting " + extractions.size() + " modules", extractions, MAX_PARALLEL_IO),
+			mods.size() == 1 ? mods.iterator().next().id : null, 0
+		);
+		for (Mod mod : plan.files.values()){
+			copyToGameData(mod, config);
+		}
+		
+		if (!plan.conflicts.isEmpty()){
+			List<WorkflowTask> conflicts = new ArrayList<>();
+			for (ZipNode module : plan.conflicts){
+				conflicts.add(new UnzipTask(gameData, module, cr));
+			}
+			addExtraction(new ParallelTask("Extracting " + conflicts.size() + " conflicting modules", conflicts, 1), null, 0);
+		}
+		addTask(new MarkModEnabledTask(mods, sm, true));
+	}
+	
+	/**
+	 * Returns the merged extraction plan for enabling the given mods.
+	 */
+	public ExtractionPlan planExtraction(Collection<Mod> mods, TinkerConfig config, ModStateManager sm) throws IOException {
+		ExtractionPlan plan = new ExtractionPlan();
+		Map<String, ModStructure> moduleArchives = new HashMap<>();
+		Map<String, Set<String>> moduleContents = new HashMap<>();
+		for (Mod mod : mods){
+			if (modHasArchive(mod, sm)){
+				ModStructure structure = ModStructure.inspectArchive(config, mod);
+				for (ZipNode module : structure.getModules()){
+					String name = module.getName();
+					ZipNode planned = plan.modules.get(name);
+					if (planned == null){
+						plan.modules.put(name, module);
+						moduleArchives.put(name, structure);
+						continue;
+					}
+					
+					// Only extract a shared module once if every mod ships the same files
+					if (!moduleContents.containsKey(name)){
+						moduleContents.put(name, moduleArchives.get(name).getModuleContents(planned));
+					}
+					if (!moduleContents.get(name).equals(structure.getModuleContents(module))){
+						plan.conflicts.add(module);
+					}
+				}
+			} else {
+				String name = mod.getNewestFileName();
+				if (!plan.files.containsKey(name)){
+					plan.files.put(name, mod);
+				} else if (!plan.files.get(name).getCachedZipPath(config).equals(mod.getCachedZipPath(config))){
+					throw new IOException(String.format("%s is provided by more than one mod", name));
+				}
+			}
+		}
+		return plan;
+	}
+	
+	/**
+	 * Disables several mods with one merged deletion plan.
+	 * 
+	 * Each module is deleted once, in parallel, and the mods are then marked
+	 * as disabled in a single state update.
+	 */
+	public void disableMods(Collection<Mod> mods, TinkerConfig config, ModStateManager sm) throws IOException {
+		for (Mod mod : mods){
+			lockMod(mod);
+		}
+		
+		List<WorkflowTask> deletions = new ArrayList<>();
+		for (String name : planDeletion(mods, config, sm)){
+			lockModule(name);
+			deletions.add(new DeletePathTask(config.getGameDataPath().resolve(name)));
+		}
+		addTask(new ParallelTask("Deleting " + deletions.size() + " modules", deletions, MAX_PARALLEL_IO));
+		addTask(new MarkModEnabledTask(mods, sm, false));
+	}
+	
+	/**
+	 * Returns the names of the modules and files to delete from GameData when
+	 * disabling the given mods.  Modules are only deleted if they are not used
+	 * by an enabled mod outside of the given mods.
+	 */
+	public Set<String> planDeletion(Collection<Mod> mods, TinkerConfig config, ModStateManager sm) throws IOException {
+		// Modules still in use by the mods that stay enabled
+		Set<String> retainedModules = new HashSet<>();
+		for (Mod mod : sm.getMods()){
+			if (mod.isEnabled() && !mods.contains(mod) && modHasArchive(mod, sm)){
+				try {
+					for (ZipNode module : ModStructure.inspectArchive(config, mod).getModules()){
+						retainedModules.add(module.getName());
+					}
+				} catch (FileNotFoundException ex){}
+			}
+		}
+		
+		Set<String> deletions = new LinkedHashSet<>();
+		for (Mod mod : mods){
+			if (modHasArchive(mod, sm)){
+				for (ZipNode module : ModStructure.inspectArchive(config, mod).getModules()){
+					if (!retainedModules.contains(module.getName())){
+						deletions.add(module.getName());
+					}
+				}
+			} else {
+				deletions.add(mod.getNewestFileName());
+			}
+		}
+		return deletions;
+	}
+		
+	/**
+	 * The merged extraction plan for several mods.
+	 * 
+	 * Modules are keyed by their name, and the files which are copied as is
+	 * by their file name, so that neither can replace the other.  A module
+	 * which differs between the mods shipping it is planned once, and the
+	 * other versions are kept as conflicts.
+	 */
+	public static class ExtractionPlan {
+		
+		private final Map<String, ZipNode> modules = new LinkedHashMap<>();
+		private final Map<String, Mod> files = new LinkedHashMap<>();
+		private final List<ZipNode> conflicts = new ArrayList<>();
+		
+		public Set<String> getModuleNames(){
+			return new LinkedHashSet<>(modules.keySet());
+		}
+		
+		public Set<String> getFileNames(){
+			return new LinkedHashSet<>(files.keySet());
+		}
+		
+		public List<String> getConflictingModuleNames(){
+			List<String> names = new ArrayList<>();
+			for (ZipNode module : conflicts){
+				names.add(module.getName());
+			}
+			return names;
+		}
+	}
+	
 	// helpers
 	
+	/**
+	 * Copies the mod's file to GameData as is, with an Extraction flight
+	 * event carrying the size of the file.
+	 */
+	private void copyToGameData(Mod mod, TinkerConfig config){
+		Path source = mod.getCachedZipPath(config);
+		copiedMod = mod;
+		copiedBytes = source.toFile().length();
+		try {
+			copy(source, config.getGameDataPath());
+		} finally {
+			copiedMod = null;
+		}
+	}
+	
+	/**
+	 * Adds a task which extracts to GameData, and emits an Extraction flight
+	 * event for it.  The bytes are only known for files which are copied as is.
+	 */
+	private void addExtraction(WorkflowTask task, String modId, long bytes){
+		super.addTask(new TimedTask(task, recorder, host, FlightEvents.Type.Extraction, modId, bytes));
+	}
+	
+	private void lockMod(Mod mod){
+		lockKeys.add("mod:" + mod.id);
+	}
+	
+	private void lockModule(String moduleName){
+		// GameData may be on a case-insensitive file system
+		lockKeys.add("module:" + moduleName.toLowerCase());
+	}
+	
 	private boolean isDependency(ZipNode module, TinkerConfig config, ModStateManager sm) throws IOException{
 		int numDependencies = 0;
 		for (Mod mod : sm.getMods()){
 			try {
-				if (mod.isEnabled() && modHasArchive(mod, config) && ModStructure.inspectArchive(config, mod).usesModule(module)){
+				if (mod.isEnabled() && modHasArchive(mod, sm) && ModStructure.inspectArchive(config, mod).usesModule(module)){
 					numDependencies++;
 				}
 			} catch (FileNotFoundException ex){}
@@ -155,7 +429,7 @@ public class ModWorkflowBuilder extends WorkflowBuilder {
 		return numDependencies > 1;
 	}
 	
-	private boolean modHasArchive(Mod mod, TinkerConfig config){
-		return mod.getNewestFileName().toLowerCase().endsWith(".zip") && mod.isDownloaded(config);
+	private boolean modHasArchive(Mod mod, ModStateManager sm){
+		return mod.getNewestFileName().toLowerCase().endsWith(".zip") && sm.isDownloaded(mod);
 	}
 }
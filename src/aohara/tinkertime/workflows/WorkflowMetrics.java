@@ -0,0 +1,277 @@
+package aohara.tinkertime.workflows;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+/**
+ * Collects the timings of the workflows run during a session.
+ * 
+ * Every task added through a {@link ModWorkflowBuilder} records how long it
+ * waited to start, how long it ran, the bytes it downloaded, whether it
+ * succeeded, and the host of the mod it worked on.  When a workflow ends,
+ * its summary and task metrics are added to the session, which can be
+ * exported as JSON to compare sweeps over time.
+ * 
+ * The workflows which are running, and their current tasks, are tracked
+ * until they end.
+ * 
+ * Only the most recent {@link #MAX_WORKFLOWS} workflows are kept.
+ * 
+ * @author Andrew O'Hara
+ */
+public class WorkflowMetrics {
+	
+	public static enum Outcome { Succeeded, Stopped, Failed };
+	
+	public static final int MAX_WORKFLOWS = 10000;
+	
+	private static final WorkflowMetrics session = new WorkflowMetrics();
+	
+	private final long sessionStart = System.currentTimeMillis();
+	private final LinkedList<WorkflowSummary> workflows = new LinkedList<>();
+	private final Set<Recorder> inFlight = new LinkedHashSet<>();
+	
+	/**
+	 * Returns the metrics of the current session.
+	 */
+	public static WorkflowMetrics getSession(){
+		return session;
+	}
+	
+	/**
+	 * Starts recording a new workflow.  The queue wait of its first task is
+	 * measured from the call to {@link Recorder#workflowBuilt()}.
+	 */
+	public Recorder newRecorder(String workflowName){
+		return new Recorder(workflowName);
+	}
+	
+	private synchronized void started(Recorder recorder){
+		inFlight.add(recorder);
+	}
+	
+	private synchronized void ended(Recorder recorder, WorkflowSummary summary){
+		inFlight.remove(recorder);
+		workflows.add(summary);
+		if (workflows.size() > MAX_WORKFLOWS){
+			workflows.removeFirst();
+		}
+	}
+	
+	public synchronized List<WorkflowSummary> getWorkflows(){
+		return Collections.unmodifiableList(new ArrayList<>(workflows));
+	}
+	
+	public synchronized void clear(){
+		workflows.clear();
+	}
+	
+	/**
+	 * Returns the workflows which have started, but not yet ended.
+	 */
+	public synchronized List<Recorder> getInFlight(){
+		return new ArrayList<>(inFlight);
+	}
+	
+	/**
+	 * Returns the totals of each type of task, by the task's class name.
+	 */
+	public Map<String, TaskTotals> getTaskTotals(){
+		Map<String, TaskTotals> totals = new TreeMap<>();
+		for (WorkflowSummary workflow : getWorkflows()){
+			for (TaskMetric task : workflow.tasks){
+				TaskTotals total = totals.get(task.type);
+				if (total == null){
+					totals.put(task.type, total = new TaskTotals());
+				}
+				total.add(task);
+			}
+		}
+		return totals;
+	}
+	
+	public void exportJson(Path path) throws IOException {
+		Gson gson = new GsonBuilder().setPrettyPrinting().create();
+		try(Writer writer = Files.newBufferedWriter(path, Charset.forName("UTF-8"))){
+			gson.toJson(new Export(sessionStart, getTaskTotals(), getWorkflows()), writer);
+		}
+	}
+	
+	// -- Records ---------------------------------------------------------
+	
+	public static class TaskMetric {
+		
+		public final String type, title, host;
+		public final long queueWaitMs, runMs, bytes;
+		public final Outcome outcome;
+		
+		public TaskMetric(String type, String title, String host, long queueWaitMs, long runMs, long bytes, Outcome outcome){
+			this.type = type;
+			this.title = title;
+			this.host = host;
+			this.queueWaitMs = queueWaitMs;
+			this.runMs = runMs;
+			this.bytes = bytes;
+			this.outcome = outcome;
+		}
+	}
+	
+	public static class WorkflowSummary {
+		
+		public final String name;
+		public final long startedAt, queueWaitMs, runMs, bytes;
+		public final Outcome outcome;
+		public final List<TaskMetric> tasks;
+		
+		private WorkflowSummary(String name, long startedAt, List<TaskMetric> tasks){
+			this.name = name;
+			this.startedAt = startedAt;
+			this.tasks = Collections.unmodifiableList(new ArrayList<>(tasks));
+			
+			long runMs = 0, bytes = 0;
+			for (TaskMetric task : tasks){
+				runMs += task.runMs;
+				bytes += task.bytes;
+			}
+			this.queueWaitMs = tasks.isEmpty() ? 0 : tasks.get(0).queueWaitMs;
+			this.runMs = runMs;
+			this.bytes = bytes;
+			this.outcome = tasks.isEmpty() ? Outcome.Succeeded : tasks.get(tasks.size() - 1).outcome;
+		}
+	}
+	
+	public static class TaskTotals {
+		
+		public int count, failures;
+		public long queueWaitMs, runMs, maxRunMs, bytes;
+		
+		private void add(TaskMetric task){
+			count++;
+			if (task.outcome == Outcome.Failed){
+				failures++;
+			}
+			queueWaitMs += task.queueWaitMs;
+			runMs += task.runMs;
+			maxRunMs = Math.max(maxRunMs, task.runMs);
+			bytes += task.bytes;
+		}
+	}
+	
+	@SuppressWarnings("unused")
+	private static class Export {
+		
+		private final long sessionStart, exportedAt = System.currentTimeMillis();
+		private final Map<String, TaskTotals> taskTotals;
+		private final List<WorkflowSummary> workflows;
+		
+		private Export(long sessionStart, Map<String, TaskTotals> taskTotals, List<WorkflowSummary> workflows){
+			this.sessionStart = sessionStart;
+			this.taskTotals = taskTotals;
+			this.workflows = workflows;
+		}
+	}
+	
+	// -- Recording -------------------------------------------------------
+	
+	/**
+	 * Records the tasks of a single workflow, which run one after another.
+	 */
+	public class Recorder {
+		
+		private final String workflowName;
+		private final List<TaskMetric> tasks = new ArrayList<>();
+		private int numTasks = 0;
+		private long startedAt, lastEndNanos = System.nanoTime(), currentTaskStartNanos;
+		private String currentTask;
+		
+		private Recorder(String workflowName){
+			this.workflowName = workflowName;
+		}
+		
+		/**
+		 * Registers a task of the workflow, and returns its index.
+		 */
+		public synchronized int taskAdded(){
+			return numTasks++;
+		}
+		
+		public synchronized void workflowBuilt(){
+			lastEndNanos = System.nanoTime();
+		}
+		
+		/**
+		 * Returns the time the task waited since the workflow was built or
+		 * since the previous task ended.
+		 */
+		public long taskStarted(int index, String taskType, long startNanos){
+			long queueWaitMs;
+			synchronized(this){
+				currentTask = taskType;
+				currentTaskStartNanos = startNanos;
+				queueWaitMs = Math.max(0, startNanos - lastEndNanos) / 1000000;
+				if (index == 0){
+					startedAt = System.currentTimeMillis();
+				}
+			}
+			if (index == 0){
+				started(this);
+			}
+			return queueWaitMs;
+		}
+		
+		/**
+		 * Records the task.  The workflow is complete if the task was the
+		 * last one, or if it did not succeed, since the rest will not run.
+		 */
+		public void taskEnded(int index, TaskMetric metric, long endNanos){
+			WorkflowSummary summary = null;
+			synchronized(this){
+				tasks.add(metric);
+				lastEndNanos = endNanos;
+				currentTask = null;
+				if (index == numTasks - 1 || metric.outcome != Outcome.Succeeded){
+					summary = new WorkflowSummary(workflowName, startedAt, tasks);
+				}
+			}
+			if (summary != null){
+				ended(this, summary);
+			}
+		}
+		
+		public String getWorkflowName(){
+			return workflowName;
+		}
+		
+		/**
+		 * Returns the type of the running task, or null between tasks.
+		 */
+		public synchronized String getCurrentTask(){
+			return currentTask;
+		}
+		
+		public synchronized long getCurrentTaskMs(){
+			return currentTask != null ? (System.nanoTime() - currentTaskStartNanos) / 1000000 : 0;
+		}
+		
+		/**
+		 * Returns the time since the first task started.
+		 */
+		public synchronized long getRunningMs(){
+			return System.currentTimeMillis() - startedAt;
+		}
+	}
+}
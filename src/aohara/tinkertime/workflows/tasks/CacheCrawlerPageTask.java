@@ -5,6 +5,7 @@ import java.io.IOException;
 import aohara.common.workflows.Workflow;
 import aohara.common.workflows.Workflow.WorkflowTask;
 import aohara.tinkertime.crawlers.Crawler;
+import aohara.tinkertime.net.ConnectionFactory;
 import aohara.tinkertime.workflows.DownloaderContext;
 
 public class CacheCrawlerPageTask extends WorkflowTask {
@@ -24,7 +25,7 @@ public class CacheCrawlerPageTask extends WorkflowTask {
 
 	@Override
 	public int getTargetProgress() throws IOException {
-		return context.crawler.getApiUrl().openConnection().getContentLength();
+		return ConnectionFactory.getDefault().getContentLength(context.crawler.getApiUrl());
 	}
 
 	@Override
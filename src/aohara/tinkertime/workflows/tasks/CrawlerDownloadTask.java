@@ -1,18 +1,32 @@
 package aohara.tinkertime.workflows.tasks;
 
 import java.io.IOException;
-import java.net.URISyntaxException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
 import java.net.URL;
+import java.nio.file.Files;
 import java.nio.file.Path;
 
 import aohara.common.workflows.Workflow;
 import aohara.common.workflows.Workflow.WorkflowTask;
-import aohara.common.workflows.tasks.FileTransferTask;
 import aohara.tinkertime.crawlers.Crawler;
+import aohara.tinkertime.management.FlightEvents;
+import aohara.tinkertime.net.ConnectionFactory;
 import aohara.tinkertime.workflows.ModWorkflowBuilder.ModDownloadType;
 
+/**
+ * Workflow Task that downloads the file or image found by a crawler.
+ * 
+ * The download goes through the default {@link ConnectionFactory}, like the
+ * crawler's pages do.
+ * 
+ * @author Andrew O'Hara
+ */
 public class CrawlerDownloadTask extends WorkflowTask {
 	
+	private static final int BUFFER_SIZE = 8192;
+	
 	private final Crawler<?> crawler;
 	private final ModDownloadType type;
 	private final Path dest;
@@ -30,16 +44,16 @@ public class CrawlerDownloadTask extends WorkflowTask {
 		default: return null;
 		}
 	}
-
+	
 	@Override
 	public int getTargetProgress() throws IOException {
 		URL url = getUrl();
 		if (url != null){
-			return url.openConnection().getContentLength();
+			return ConnectionFactory.getDefault().getContentLength(url);
 		}
 		return -1;
 	}
-
+	
 	@Override
 	public String getTitle() {
 		URL url = null;
@@ -50,9 +64,30 @@ public class CrawlerDownloadTask extends WorkflowTask {
 		}
 		return String.format("Crawler is Downloading %s", url);
 	}
-
+	
 	@Override
-	public boolean call(Workflow workflow) throws IOException, URISyntaxException {		
-		return new FileTransferTask(getUrl() != null ? getUrl().toURI() : null, dest).call(workflow);
+	public boolean call(Workflow workflow) throws IOException {
+		URL url = getUrl();
+		if (url == null){
+			return true;  // Nothing to download, e.g. a mod without an image
+		}
+		
+		FlightEvents.Event event = FlightEvents.begin(FlightEvents.Type.ArtifactDownload);
+		long total = 0;
+		try(InputStream is = ConnectionFactory.getDefault().openStream(url); OutputStream os = Files.newOutputStream(dest)){
+			byte[] buf = new byte[BUFFER_SIZE];
+			int read;
+			while ((read = is.read(buf)) != -1){
+				if (Thread.currentThread().isInterrupted()){
+					throw new InterruptedIOException("Download cancelled");
+				}
+				os.write(buf, 0, read);
+				total += read;
+				progress(workflow, read);
+			}
+		} finally {
+			event.commit(crawler.generateId(), url.getHost(), total);
+		}
+		return true;
 	}
 }
@@ -0,0 +1,41 @@
+package aohara.tinkertime.workflows.tasks;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import org.apache.commons.io.FileUtils;
+
+import aohara.common.workflows.Workflow;
+import aohara.common.workflows.Workflow.WorkflowTask;
+
+/**
+ * Workflow Task that deletes a file or directory tree, if it exists.
+ * 
+ * @author Andrew O'Hara
+ */
+public class DeletePathTask extends WorkflowTask {
+	
+	private final Path path;
+
+	public DeletePathTask(Path path) {
+		this.path = path;
+	}
+
+	@Override
+	public boolean call(Workflow workflow) throws Exception {
+		if (path.toFile().exists()){
+			FileUtils.forceDelete(path.toFile());
+		}
+		return true;
+	}
+
+	@Override
+	public int getTargetProgress() throws IOException {
+		return -1;
+	}
+
+	@Override
+	public String getTitle() {
+		return String.format("Deleting %s", path.getFileName());
+	}
+}
@@ -0,0 +1,47 @@
+package aohara.tinkertime.workflows.tasks;
+
+import java.io.IOException;
+
+import aohara.common.workflows.Workflow;
+import aohara.common.workflows.Workflow.WorkflowTask;
+import aohara.tinkertime.content.ThumbnailCache;
+import aohara.tinkertime.workflows.DownloaderContext;
+
+/**
+ * Workflow Task that generates the thumbnails of a downloaded mod image.
+ * 
+ * A missing or unreadable image is not an error; the mod is simply
+ * displayed without one.
+ * 
+ * @author Andrew O'Hara
+ */
+public class GenerateThumbnailsTask extends WorkflowTask {
+	
+	private final DownloaderContext context;
+	private final ThumbnailCache thumbnails;
+	
+	public GenerateThumbnailsTask(DownloaderContext context, ThumbnailCache thumbnails){
+		this.context = context;
+		this.thumbnails = thumbnails;
+	}
+
+	@Override
+	public boolean call(Workflow workflow) throws Exception {
+		try {
+			thumbnails.generate(context.getCachedImagePath());
+		} catch (IOException e){
+			e.printStackTrace();
+		}
+		return true;
+	}
+
+	@Override
+	public int getTargetProgress() throws IOException {
+		return -1;
+	}
+
+	@Override
+	public String getTitle() {
+		return "Generating Thumbnails";
+	}
+}
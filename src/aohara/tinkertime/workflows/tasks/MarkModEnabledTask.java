@@ -1,6 +1,9 @@
 package aohara.tinkertime.workflows.tasks;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 
 import aohara.common.workflows.Workflow;
 import aohara.common.workflows.Workflow.WorkflowTask;
@@ -17,20 +20,29 @@ import aohara.tinkertime.models.Mod;
  */
 public class MarkModEnabledTask extends WorkflowTask {
 	
-	private final Mod mod;
+	private final Collection<Mod> mods;
 	private final ModStateManager sm;
 	private final boolean markEnabled;
 
 	public MarkModEnabledTask(Mod mod, ModStateManager sm, boolean enable) {
-		this.mod = mod;
+		this(Collections.singleton(mod), sm, enable);
+	}
+	
+	/**
+	 * Marks every given mod in a single ModStateManager update.
+	 */
+	public MarkModEnabledTask(Collection<Mod> mods, ModStateManager sm, boolean enable) {
+		this.mods = new ArrayList<Mod>(mods);
 		this.sm = sm;
 		markEnabled = enable;
 	}
 
 	@Override
 	public boolean call(Workflow workflow) throws Exception {
-		mod.setEnabled(markEnabled);
-		sm.modUpdated(mod);
+		for (Mod mod : mods){
+			mod.setEnabled(markEnabled);
+		}
+		sm.modsUpdated(mods);
 		return true;
 	}
 
@@ -41,7 +53,8 @@ public class MarkModEnabledTask extends WorkflowTask {
 
 	@Override
 	public String getTitle() {
-		return String.format("Enabling %s", mod.getName());
+		String name = mods.size() == 1 ? mods.iterator().next().getName() : mods.size() + " mods";
+		return String.format(markEnabled ? "Enabling %s" : "Disabling %s", name);
 	}
 
 }
@@ -0,0 +1,89 @@
+package aohara.tinkertime.workflows.tasks;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import aohara.common.workflows.Workflow;
+import aohara.common.workflows.Workflow.WorkflowTask;
+
+/**
+ * Workflow Task that runs a group of independent tasks with bounded parallelism.
+ * 
+ * The group succeeds only if every task in it succeeds.  The first exception
+ * thrown by a task is rethrown once the whole group has finished.
+ * 
+ * @author Andrew O'Hara
+ */
+public class ParallelTask extends WorkflowTask {
+	
+	private final String title;
+	private final List<WorkflowTask> tasks;
+	private final int maxThreads;
+
+	public ParallelTask(String title, Collection<? extends WorkflowTask> tasks, int maxThreads) {
+		this.title = title;
+		this.tasks = new ArrayList<WorkflowTask>(tasks);
+		this.maxThreads = Math.max(1, maxThreads);
+	}
+
+	@Override
+	public boolean call(final Workflow workflow) throws Exception {
+		if (tasks.isEmpty()){
+			return true;
+		}
+		
+		ExecutorService pool = Executors.newFixedThreadPool(Math.min(maxThreads, tasks.size()));
+		try {
+			List<Callable<Boolean>> callables = new ArrayList<>();
+			for (final WorkflowTask task : tasks){
+				callables.add(new Callable<Boolean>(){
+					@Override
+					public Boolean call() throws Exception {
+						return task.call(workflow);
+					}
+				});
+			}
+			
+			boolean success = true;
+			Exception error = null;
+			for (Future<Boolean> result : pool.invokeAll(callables)){
+				try {
+					success &= result.get();
+				} catch (ExecutionException e){
+					success = false;
+					if (error == null){
+						error = e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+					}
+				}
+			}
+			
+			if (error != null){
+				throw error;
+			}
+			return success;
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	@Override
+	public int getTargetProgress() throws IOException {
+		int target = 0;
+		for (WorkflowTask task : tasks){
+			target += Math.max(0, task.getTargetProgress());
+		}
+		return target > 0 ? target : -1;
+	}
+
+	@Override
+	public String getTitle() {
+		return title;
+	}
+}
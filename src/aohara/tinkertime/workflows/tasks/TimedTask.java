@@ -0,0 +1,86 @@
+package aohara.tinkertime.workflows.tasks;
+
+import java.io.IOException;
+
+import aohara.common.workflows.Workflow;
+import aohara.common.workflows.Workflow.WorkflowTask;
+import aohara.tinkertime.management.FlightEvents;
+import aohara.tinkertime.net.ConnectionFactory;
+import aohara.tinkertime.workflows.WorkflowMetrics.Outcome;
+import aohara.tinkertime.workflows.WorkflowMetrics.Recorder;
+import aohara.tinkertime.workflows.WorkflowMetrics.TaskMetric;
+
+/**
+ * Workflow Task that runs another task, and records its metrics.
+ * 
+ * The bytes are those read by the task's thread from the streams of the
+ * {@link ConnectionFactory} while the task ran.  A flight event can also be
+ * emitted for the task, when the task does not emit its own.
+ * 
+ * @author Andrew O'Hara
+ */
+public class TimedTask extends WorkflowTask {
+	
+	private final WorkflowTask task;
+	private final Recorder recorder;
+	private final String host;
+	private final int index;
+	private final FlightEvents.Type eventType;
+	private final String eventModId;
+	private final long eventBytes;
+	
+	/**
+	 * @param host the host of the mod the task works on, or null if local
+	 */
+	public TimedTask(WorkflowTask task, Recorder recorder, String host) {
+		this(task, recorder, host, null, null, 0);
+	}
+	
+	/**
+	 * @param eventType type of flight event to emit for the task, or null for none
+	 * @param eventModId id of the mod for the flight event
+	 * @param eventBytes bytes for the flight event, if known
+	 */
+	public TimedTask(WorkflowTask task, Recorder recorder, String host, FlightEvents.Type eventType, String eventModId, long eventBytes) {
+		this.task = task;
+		this.recorder = recorder;
+		this.host = host;
+		this.eventType = eventType;
+		this.eventModId = eventModId;
+		this.eventBytes = eventBytes;
+		index = recorder.taskAdded();
+	}
+	
+	@Override
+	public boolean call(Workflow workflow) throws Exception {
+		long start = System.nanoTime();
+		long queueWaitMs = recorder.taskStarted(index, task.getClass().getSimpleName(), start);
+		long startBytes = ConnectionFactory.getBytesReadOnThread();
+		Outcome outcome = Outcome.Failed;
+		FlightEvents.Event event = eventType != null ? FlightEvents.begin(eventType) : null;
+		try {
+			boolean result = task.call(workflow);
+			outcome = result ? Outcome.Succeeded : Outcome.Stopped;
+			return result;
+		} finally {
+			if (event != null){
+				event.commit(eventModId, host, eventBytes);
+			}
+			long end = System.nanoTime();
+			recorder.taskEnded(index, new TaskMetric(
+				task.getClass().getSimpleName(), task.getTitle(), host, queueWaitMs,
+				(end - start) / 1000000, ConnectionFactory.getBytesReadOnThread() - startBytes, outcome
+			), end);
+		}
+	}
+	
+	@Override
+	public int getTargetProgress() throws IOException {
+		return task.getTargetProgress();
+	}
+	
+	@Override
+	public String getTitle() {
+		return task.getTitle();
+	}
+}
@@ -0,0 +1,170 @@
+package test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import test.util.MockConfig;
+import aohara.tinkertime.content.ArchiveSearchIndex;
+import aohara.tinkertime.content.ReadmeCache;
+import aohara.tinkertime.controllers.FileWatchIndex;
+import aohara.tinkertime.models.Mod;
+
+public class TestArchiveSearchIndex {
+	
+	private Path folder;
+	private MockConfig config;
+	private ReadmeCache readmes;
+	private ArchiveSearchIndex index;
+	private Mod partMod, pluginMod;
+	private final AtomicInteger numReadmeReads = new AtomicInteger();
+	
+	@Before
+	public void setUp() throws Throwable {
+		folder = UnitTestSuite.getTempDir("archives");
+		config = new MockConfig(){
+			@Override
+			public Path getModsZipPath(){
+				return folder;
+			}
+		};
+		readmes = new ReadmeCache(folder.resolve("readmes")){
+			@Override
+			public Path getReadme(String modId, Path zipPath) throws IOException {
+				numReadmeReads.incrementAndGet();
+				return super.getReadme(modId, zipPath);
+			}
+		};
+		index = new ArchiveSearchIndex(config, new FileWatchIndex(), readmes, 2);
+		
+		partMod = createMod("PartMod", "Adds the RAPIER_Engine part.", "GameData/PartMod/Parts/rapier.cfg");
+		pluginMod = createMod("PluginMod", null, "GameData/PluginMod/Plugins/PluginMod.dll");
+	}
+	
+	@After
+	public void tearDown() throws Throwable {
+		index.shutdownAndWait(5, TimeUnit.SECONDS);
+	}
+	
+	private Mod createMod(String name, String readme, String entry) throws IOException {
+		try(ZipOutputStream zos = new ZipOutputStream(Files.newOutputStream(folder.resolve(name + ".zip")))){
+			zos.putNextEntry(new ZipEntry(entry));
+			zos.write(new byte[]{1});
+			if (readme != null){
+				zos.putNextEntry(new ZipEntry("README.txt"));
+				zos.write(readme.getBytes());
+			}
+		}
+		return new Mod(name, name, name + ".zip", null, null, null, null, null);
+	}
+	
+	private void indexAndWait(Mod... mods) throws Throwable {
+		index.indexAll(Arrays.asList(mods));
+		assertTrue(index.shutdownAndWait(5, TimeUnit.SECONDS));
+	}
+	
+	@Test
+	public void testReadmeAndPaths() throws Throwable {
+		indexAndWait(partMod, pluginMod);
+		assertEquals(2, index.size());
+		
+		List<ArchiveSearchIndex.Result> results = index.search("rapier");
+		assertEquals(1, results.size());
+		assertEquals(partMod, results.get(0).mod);
+		assertTrue(results.get(0).readmeMatches);
+		assertEquals(Collections.singletonList("GameData/PartMod/Parts/rapier.cfg"), results.get(0).matchingPaths);
+		
+		results = index.search("plugins dll");
+		assertEquals(1, results.size());
+		assertEquals(pluginMod, results.get(0).mod);
+		assertFalse(results.get(0).readmeMatches);
+	}
+	
+	@Test
+	public void testPrefixAndAllTerms() throws Throwable {
+		indexAndWait(partMod, pluginMod);
+		assertEquals(2, index.search("gamedata").size());
+		assertEquals(1, index.search("rapier_eng").size());
+		assertTrue(index.search("rapier plugins").isEmpty());
+	}
+	
+	@Test
+	public void testRemove() throws Throwable {
+		indexAndWait(partMod, pluginMod);
+		index.remove(partMod);
+		assertTrue(index.search("rapier").isEmpty());
+		assertEquals(1, index.size());
+	}
+	
+	private void awaitSize(int size) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5000;
+		while (index.size() != size && System.currentTimeMillis() < deadline){
+			Thread.sleep(10);
+		}
+		assertEquals(size, index.size());
+	}
+	
+	@Test
+	public void testUnchangedArchiveNotReindexed() throws Throwable {
+		index.indexAll(Collections.singleton(partMod));
+		awaitSize(1);
+		
+		index.indexChanged(Collections.singleton(partMod));
+		assertTrue(index.shutdownAndWait(5, TimeUnit.SECONDS));
+		assertEquals(1, numReadmeReads.get());
+	}
+	
+	@Test
+	public void testChangedArchiveReindexed() throws Throwable {
+		index.indexAll(Collections.singleton(partMod));
+		awaitSize(1);
+		
+		createMod("PartMod", "Adds the Mainsail part.", "GameData/PartMod/Parts/mainsail.cfg");
+		index.indexChanged(Collections.singleton(partMod));
+		assertTrue(index.shutdownAndWait(5, TimeUnit.SECONDS));
+		assertEquals(2, numReadmeReads.get());
+		assertEquals(1, index.search("mainsail").size());
+		assertTrue(index.search("rapier").isEmpty());
+	}
+	
+	@Test
+	public void testLargeReadme() throws Throwable {
+		StringBuilder readme = new StringBuilder("Adds the Kerbodyne part.");
+		for (int i=0; i<20000; i++){
+			readme.append(" filler text");
+		}
+		readme.append(" Ends with the Poodle engine");
+		Mod largeMod = createMod("LargeMod", readme.toString(), "GameData/LargeMod/Parts/poodle.cfg");
+		
+		indexAndWait(largeMod);
+		assertEquals(1, index.search("kerbodyne poodle engine").size());
+		assertTrue(index.search("filler").get(0).readmeMatches);
+	}
+	
+	@Test
+	public void testSharedWithConcurrentReaders() throws Throwable {
+		// The view reads from the same cache while the archives are indexed
+		index.indexAll(Arrays.asList(partMod, pluginMod));
+		for (int i=0; i<20; i++){
+			readmes.getReadme(partMod.id, partMod.getCachedZipPath(config));
+		}
+		assertTrue(index.shutdownAndWait(5, TimeUnit.SECONDS));
+		assertEquals(2, index.size());
+		assertEquals(1, index.search("rapier").size());
+	}
+}
@@ -0,0 +1,119 @@
+package test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import aohara.tinkertime.net.ConnectionFactory;
+import aohara.tinkertime.net.Response;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+public class TestConnectionFactory {
+	
+	private HttpServer server;
+	
+	@Before
+	public void setUp() throws IOException {
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.createContext("/", new HttpHandler(){
+			@Override
+			public void handle(HttpExchange exchange) throws IOException {
+				String path = exchange.getRequestURI().getPath();
+				if (path.equals("/start")){
+					exchange.getResponseHeaders().set("Set-Cookie", "session=abc; Path=/");
+					redirect(exchange, "/page");
+				} else if (path.equals("/page") && "session=abc".equals(exchange.getRequestHeaders().getFirst("Cookie"))){
+					exchange.getResponseHeaders().set("Content-Type", "text/html; charset=ISO-8859-1");
+					send(exchange, 200, "page".getBytes("UTF-8"));
+				} else if (path.equals("/gzip") && "gzip".equals(exchange.getRequestHeaders().getFirst("Accept-Encoding"))){
+					ByteArrayOutputStream body = new ByteArrayOutputStream();
+					try (OutputStream os = new GZIPOutputStream(body)){
+						os.write("compressed".getBytes("UTF-8"));
+					}
+					exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+					send(exchange, 200, body.toByteArray());
+				} else if (path.equals("/file")){
+					redirect(exchange, "file:///etc/passwd");
+				} else if (path.equals("/loop")){
+					redirect(exchange, "/loop");
+				} else {
+					send(exchange, 404, new byte[0]);
+				}
+			}
+		});
+		server.start();
+	}
+	
+	@After
+	public void tearDown(){
+		server.stop(0);
+		ConnectionFactory.STATS.reset();
+	}
+	
+	private static void redirect(HttpExchange exchange, String location) throws IOException {
+		exchange.getResponseHeaders().set("Location", location);
+		send(exchange, 302, new byte[0]);
+	}
+	
+	private static void send(HttpExchange exchange, int status, byte[] body) throws IOException {
+		exchange.sendResponseHeaders(status, body.length > 0 ? body.length : -1);
+		try (OutputStream os = exchange.getResponseBody()){
+			os.write(body);
+		}
+	}
+	
+	private URL getUrl(String path) throws IOException {
+		return new URL("http://127.0.0.1:" + server.getAddress().getPort() + path);
+	}
+	
+	@Test
+	public void testFollowsRedirectWithCookies() throws IOException {
+		try (Response response = new ConnectionFactory().openResponse(getUrl("/start"), false)){
+			assertEquals(getUrl("/page"), response.url);
+			assertEquals("ISO-8859-1", response.getCharset());
+			assertEquals("page", IOUtils.toString(response.getInputStream(), "UTF-8"));
+		}
+	}
+	
+	@Test
+	public void testDecompressesGzip() throws IOException {
+		try (Response response = new ConnectionFactory().openResponse(getUrl("/gzip"), true)){
+			assertEquals("compressed", IOUtils.toString(response.getInputStream(), "UTF-8"));
+			assertEquals(null, response.getCharset());
+		}
+	}
+	
+	@Test
+	public void testOnlyFollowsHttpRedirects() throws IOException {
+		try {
+			new ConnectionFactory().openStream(getUrl("/file")).close();
+			fail("Expected the redirect to be refused");
+		} catch (IOException e){
+			// expected
+		}
+	}
+	
+	@Test
+	public void testRedirectLoop() throws IOException {
+		try {
+			new ConnectionFactory().openStream(getUrl("/loop")).close();
+			fail("Expected too many redirects");
+		} catch (IOException e){
+			assertEquals(ConnectionFactory.MAX_REDIRECTS + 1, ConnectionFactory.STATS.getHosts().get(0).getNumRequests());
+		}
+	}
+}
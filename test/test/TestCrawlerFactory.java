@@ -61,5 +61,10 @@ public class TestCrawlerFactory {
 	public void testWwwGithibCom(){
 		test("https://www.github.com/ferram4/Ferram-Aerospace-Research", GithubCrawler.class);
 	}
+	
+	@Test(expected = UnsupportedHostException.class)
+	public void testLookalikeHost() throws Throwable {
+		factory.getCrawler(new URL("http://notcurse.com/blah"));
+	}
 
 }
@@ -0,0 +1,119 @@
+package test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.image.BufferedImage;
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import javax.imageio.ImageIO;
+import javax.swing.SwingUtilities;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import aohara.tinkertime.content.DecodedImageCache;
+import aohara.tinkertime.content.DecodedImageCache.ImageCallback;
+import aohara.tinkertime.content.ThumbnailCache;
+import aohara.tinkertime.controllers.FileWatchIndex;
+
+public class TestDecodedImageCache {
+	
+	private static final long IMAGE_BYTES = 100 * 100 * 4;
+	
+	private Path folder;
+	private volatile boolean onEdt;
+	
+	@Before
+	public void setUp() throws Throwable {
+		folder = UnitTestSuite.getTempDir("decoded");
+		for (String name : new String[]{"a.png", "b.png", "c.png"}){
+			ImageIO.write(new BufferedImage(100, 100, BufferedImage.TYPE_INT_RGB), "png", folder.resolve(name).toFile());
+		}
+	}
+	
+	private BufferedImage load(DecodedImageCache cache, Path path) throws Throwable {
+		final CountDownLatch latch = new CountDownLatch(1);
+		final BufferedImage[] result = new BufferedImage[1];
+		cache.load(path, new ImageCallback(){
+			@Override
+			public void imageLoaded(Path path, BufferedImage image) {
+				result[0] = image;
+				onEdt = SwingUtilities.isEventDispatchThread();
+				latch.countDown();
+			}
+		});
+		assertTrue(latch.await(5, TimeUnit.SECONDS));
+		return result[0];
+	}
+	
+	@Test
+	public void testDecodesOnce() throws Throwable {
+		DecodedImageCache cache = new DecodedImageCache(new FileWatchIndex());
+		Path path = folder.resolve("a.png");
+		assertNull(cache.getIfPresent(path));
+		
+		BufferedImage image = load(cache, path);
+		assertNotNull(image);
+		assertTrue(onEdt);
+		assertSame(image, cache.getIfPresent(path));
+		assertEquals(IMAGE_BYTES, cache.getUsedBytes());
+	}
+	
+	@Test
+	public void testEvictsLeastRecentlyUsed() throws Throwable {
+		DecodedImageCache cache = new DecodedImageCache(new FileWatchIndex(), 2 * IMAGE_BYTES);
+		load(cache, folder.resolve("a.png"));
+		load(cache, folder.resolve("b.png"));
+		cache.getIfPresent(folder.resolve("a.png"));
+		load(cache, folder.resolve("c.png"));
+		
+		assertNotNull(cache.getIfPresent(folder.resolve("a.png")));
+		assertNull(cache.getIfPresent(folder.resolve("b.png")));
+		assertEquals(2 * IMAGE_BYTES, cache.getUsedBytes());
+	}
+	
+	@Test
+	public void testRepeatedThumbnailLookupsHit() throws Throwable {
+		ThumbnailCache thumbnails = new ThumbnailCache(folder, Long.MAX_VALUE);
+		thumbnails.generate(folder.resolve("a.png"));
+		DecodedImageCache cache = new DecodedImageCache(new FileWatchIndex());
+		
+		for (int i=0; i<4; i++){
+			assertNotNull(cache.get(thumbnails.getNearestThumbnail(folder.resolve("a.png"), 50)));
+		}
+		assertEquals(3, cache.getStats().getHits());
+		assertEquals(1, cache.getStats().getMisses());
+	}
+	
+	@Test
+	public void testGetSharesPendingDecode() throws Throwable {
+		DecodedImageCache cache = new DecodedImageCache(new FileWatchIndex());
+		Path path = folder.resolve("a.png");
+		final CountDownLatch latch = new CountDownLatch(1);
+		final BufferedImage[] loaded = new BufferedImage[1];
+		cache.load(path, new ImageCallback(){
+			@Override
+			public void imageLoaded(Path path, BufferedImage image) {
+				loaded[0] = image;
+				latch.countDown();
+			}
+		});
+		
+		BufferedImage image = cache.get(path);
+		assertTrue(latch.await(5, TimeUnit.SECONDS));
+		assertNotNull(image);
+		assertSame(loaded[0], image);
+		assertEquals(IMAGE_BYTES, cache.getUsedBytes());
+	}
+	
+	@Test
+	public void testMissingImage() throws Throwable {
+		assertNull(load(new DecodedImageCache(new FileWatchIndex()), folder.resolve("missing.png")));
+	}
+}
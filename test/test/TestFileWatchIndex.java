@@ -0,0 +1,77 @@
+package test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import aohara.tinkertime.controllers.FileWatchIndex;
+
+public class TestFileWatchIndex {
+	
+	private static final long TIMEOUT_MS = 5000;
+	
+	private FileWatchIndex index;
+	private Path folder;
+	
+	@Before
+	public void setUp() throws Throwable {
+		folder = UnitTestSuite.getTempDir("watch");
+		Files.write(folder.resolve("existing.zip"), new byte[]{1, 2, 3});
+		
+		index = new FileWatchIndex();
+		index.watch(folder, true);
+	}
+	
+	@After
+	public void tearDown() throws Throwable {
+		index.close();
+	}
+	
+	private boolean awaitExists(Path path, boolean exists) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+		while (index.exists(path) != exists && System.currentTimeMillis() < deadline){
+			Thread.sleep(10);
+		}
+		return index.exists(path) == exists;
+	}
+	
+	@Test
+	public void testInitialScan(){
+		assertTrue(index.isWatched(folder.resolve("existing.zip")));
+		assertEquals(3, index.getInfo(folder.resolve("existing.zip")).size);
+		assertFalse(index.exists(folder.resolve("missing.zip")));
+	}
+	
+	@Test
+	public void testExternalChanges() throws Throwable {
+		Path added = folder.resolve("added.zip");
+		Files.write(added, new byte[]{1});
+		assertTrue(awaitExists(added, true));
+		
+		Files.delete(added);
+		assertTrue(awaitExists(added, false));
+	}
+	
+	@Test
+	public void testNewSubfolderWatched() throws Throwable {
+		Path file = Files.createDirectory(folder.resolve("GameData")).resolve("part.cfg");
+		assertTrue(awaitExists(folder.resolve("GameData"), true));
+		
+		Files.write(file, new byte[]{1});
+		assertTrue(awaitExists(file, true));
+	}
+	
+	@Test
+	public void testNewFileSeenBeforeWatcher() throws Throwable {
+		Path written = folder.resolve("written.zip");
+		Files.write(written, new byte[]{1, 2});
+		assertTrue(index.exists(written));
+	}
+}
@@ -0,0 +1,87 @@
+package test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import test.util.ModLoader;
+import test.util.ModStubs;
+import aohara.tinkertime.controllers.ModChangeBatch;
+import aohara.tinkertime.controllers.ModChangeBus;
+import aohara.tinkertime.controllers.ModChangeListener;
+import aohara.tinkertime.controllers.ModStatePersister;
+import aohara.tinkertime.controllers.ModStatePersister.StateSource;
+import aohara.tinkertime.management.FlightEvents;
+import aohara.tinkertime.management.FlightEvents.Type;
+import aohara.tinkertime.models.Mod;
+
+import com.google.gson.Gson;
+
+public class TestFlightEvents {
+	
+	private final List<String> committed = Collections.synchronizedList(new ArrayList<String>());
+	
+	@Before
+	public void setUp(){
+		FlightEvents.setSink(new FlightEvents.Sink(){
+			@Override
+			public FlightEvents.Event begin(final Type type) {
+				return new FlightEvents.Event(){
+					@Override
+					public void commit(String modId, String host, long bytes) {
+						committed.add(type + " " + modId + " " + host + " " + (bytes > 0));
+					}
+				};
+			}
+		});
+	}
+	
+	@After
+	public void tearDown(){
+		FlightEvents.setSink(null);
+	}
+	
+	@Test
+	public void testStateSave() throws Throwable {
+		final Set<Mod> state = new HashSet<>();
+		state.add(ModLoader.loadMod(ModStubs.Mechjeb));
+		Path path = UnitTestSuite.getTempDir("events").resolve("TinkerTime.json");
+		ModStatePersister persister = new ModStatePersister(path, new Gson(), new StateSource(){
+			@Override
+			public Set<Mod> getModsSnapshot() {
+				return state;
+			}
+		});
+		
+		persister.markDirty();
+		persister.flush();
+		assertEquals(Collections.singletonList("StateSave null null true"), committed);
+	}
+	
+	@Test
+	public void testUiUpdate() throws Throwable {
+		Mod mod = ModLoader.loadMod(ModStubs.Mechjeb);
+		ModChangeBus bus = new ModChangeBus();
+		bus.addListener(new ModChangeListener(){
+			@Override
+			public void modsChanged(ModChangeBatch batch) {
+				// No Action
+			}
+		});
+		
+		bus.modsUpdated(Collections.singleton(mod));
+		bus.flush();
+		assertEquals(1, committed.size());
+		assertTrue(committed.get(0).startsWith("UiUpdate " + mod.id + " "));
+	}
+}
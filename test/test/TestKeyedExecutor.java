@@ -0,0 +1,104 @@
+package test;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import aohara.tinkertime.controllers.KeyedExecutor;
+
+public class TestKeyedExecutor {
+	
+	private ManualExecutor backing;
+	private KeyedExecutor executor;
+	private List<String> ran;
+	
+	@Before
+	public void setUp(){
+		backing = new ManualExecutor();
+		executor = new KeyedExecutor(backing);
+		ran = new LinkedList<>();
+	}
+	
+	private void submit(final String name, String... keys){
+		executor.execute(Arrays.asList(keys), new Runnable(){
+			@Override
+			public void run() {
+				ran.add(name);
+			}
+		});
+	}
+	
+	@Test
+	public void testUnrelatedKeysRunConcurrently(){
+		submit("a", "mod:a");
+		submit("b", "mod:b");
+		
+		assertEquals(2, backing.queue.size());
+	}
+	
+	@Test
+	public void testSharedKeyRunsInOrder(){
+		submit("a1", "mod:a");
+		submit("a2", "mod:a");
+		assertEquals(1, backing.queue.size());
+		
+		backing.runNext();
+		assertEquals(1, backing.queue.size());
+		backing.runNext();
+		
+		assertEquals(Arrays.asList("a1", "a2"), ran);
+		assertEquals(0, executor.getNumPending());
+	}
+	
+	@Test
+	public void testSharedModuleOrdersDifferentMods(){
+		submit("a", "mod:a", "module:dependency/");
+		submit("b", "mod:b", "module:dependency/");
+		submit("c", "mod:c");
+		
+		assertEquals(2, backing.queue.size());  // a and c
+		backing.runAll();
+		
+		assertEquals(Arrays.asList("a", "c", "b"), ran);
+	}
+	
+	@Test
+	public void testUnkeyedTaskIsBarrier(){
+		submit("a", "mod:a");
+		submit("barrier");
+		submit("b", "mod:b");
+		
+		assertEquals(1, backing.queue.size());
+		backing.runAll();
+		
+		assertEquals(Arrays.asList("a", "barrier", "b"), ran);
+	}
+	
+	// -- Mock Objects -------------------------------------
+	
+	private static class ManualExecutor implements Executor {
+		
+		private final LinkedList<Runnable> queue = new LinkedList<>();
+
+		@Override
+		public void execute(Runnable command) {
+			queue.add(command);
+		}
+		
+		private void runNext(){
+			queue.removeFirst().run();
+		}
+		
+		private void runAll(){
+			while (!queue.isEmpty()){
+				runNext();
+			}
+		}
+	}
+}
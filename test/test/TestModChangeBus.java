@@ -0,0 +1,85 @@
+package test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import test.util.ModLoader;
+import test.util.ModStubs;
+import aohara.tinkertime.controllers.ModChangeBatch;
+import aohara.tinkertime.controllers.ModChangeBus;
+import aohara.tinkertime.controllers.ModChangeListener;
+import aohara.tinkertime.models.Mod;
+
+public class TestModChangeBus {
+	
+	private static final int NEVER_MS = 60 * 60 * 1000;
+	
+	private ModChangeBus bus;
+	private List<ModChangeBatch> batches;
+	private Mod mechjeb, engineer;
+	
+	@Before
+	public void setUp() throws Throwable {
+		mechjeb = ModLoader.loadMod(ModStubs.Mechjeb);
+		engineer = ModLoader.loadMod(ModStubs.Engineer);
+		
+		batches = new ArrayList<>();
+		bus = new ModChangeBus(NEVER_MS);
+		bus.addListener(new ModChangeListener(){
+			@Override
+			public void modsChanged(ModChangeBatch batch) {
+				batches.add(batch);
+			}
+		});
+	}
+	
+	@Test
+	public void testCoalescesIntoOneBatch(){
+		for (int i=0; i<300; i++){
+			bus.modsUpdated(Arrays.asList(mechjeb, engineer));
+		}
+		bus.flush();
+		
+		assertEquals(1, batches.size());
+		assertEquals(2, batches.get(0).getUpdated().size());
+		assertFalse(batches.get(0).isReset());
+	}
+	
+	@Test
+	public void testRemoveSupersedesUpdate(){
+		bus.modsUpdated(Arrays.asList(mechjeb, engineer));
+		bus.modRemoved(mechjeb);
+		bus.flush();
+		
+		ModChangeBatch batch = batches.get(0);
+		assertEquals(Collections.singletonList(engineer), new ArrayList<>(batch.getUpdated()));
+		assertEquals(Collections.singletonList(mechjeb), new ArrayList<>(batch.getRemoved()));
+	}
+	
+	@Test
+	public void testResetDiscardsPending(){
+		bus.modRemoved(engineer);
+		bus.reset(Arrays.asList(mechjeb));
+		bus.flush();
+		
+		ModChangeBatch batch = batches.get(0);
+		assertTrue(batch.isReset());
+		assertEquals(1, batch.getResetMods().size());
+		assertTrue(batch.getRemoved().isEmpty());
+	}
+	
+	@Test
+	public void testEmptyFlushNotDelivered(){
+		bus.flush();
+		assertTrue(batches.isEmpty());
+	}
+}
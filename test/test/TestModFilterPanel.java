@@ -0,0 +1,104 @@
+package test;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import test.util.ModLoader;
+import test.util.ModStubs;
+import aohara.common.selectorPanel.SelectorInterface;
+import aohara.tinkertime.controllers.ModChangeBus;
+import aohara.tinkertime.models.Mod;
+import aohara.tinkertime.models.ModSearchIndex;
+import aohara.tinkertime.views.ModFilterPanel;
+
+public class TestModFilterPanel {
+	
+	private static final int NEVER_MS = 60 * 60 * 1000;
+	
+	private List<Mod> mods;
+	private ModSearchIndex index;
+	private ModChangeBus bus;
+	private ModFilterPanel filter;
+	private CollectingSelector selector;
+	
+	@Before
+	public void setUp() throws Throwable {
+		mods = Arrays.<Mod>asList(
+			ModLoader.loadMod(ModStubs.Mechjeb),
+			ModLoader.loadMod(ModStubs.Engineer),
+			ModLoader.loadMod(ModStubs.KerbalAlarmClock)
+		);
+		index = new ModSearchIndex();
+		for (Mod mod : mods){
+			index.update(mod);
+		}
+		
+		filter = new ModFilterPanel(selector = new CollectingSelector());
+		bus = new ModChangeBus(NEVER_MS);
+		bus.addListener(filter);
+		bus.reset(mods);
+		bus.flush();
+	}
+	
+	private void assertQuery(String query){
+		filter.setQuery(query);
+		assertEquals(query, index.search(query), selector.elements);
+		assertEquals(query, index.search(query), new HashSet<>(filter.getShownMods()));
+	}
+	
+	@Test
+	public void testTypingNarrows(){
+		for (String query : new String[]{"", "k", "ke", "ker", "kerbal", "kerbal ", "kerbal a", "kerbal al"}){
+			assertQuery(query);
+		}
+	}
+	
+	@Test
+	public void testDeletingWidens(){
+		for (String query : new String[]{"mechjeb", "mech", "m", ""}){
+			assertQuery(query);
+		}
+	}
+	
+	@Test
+	public void testReplacingQuery(){
+		assertQuery("mechjeb");
+		assertQuery("alarm");
+		assertQuery("curse");
+	}
+	
+	@Test
+	public void testResetKeepsQuery(){
+		assertQuery("alarm");
+		bus.reset(mods);
+		bus.flush();
+		assertEquals(index.search("alarm"), selector.elements);
+	}
+	
+	private static class CollectingSelector implements SelectorInterface<Mod> {
+		
+		private final Set<Mod> elements = new HashSet<>();
+		
+		@Override
+		public void clear() {
+			elements.clear();
+		}
+		
+		@Override
+		public void addElement(Mod element) {
+			elements.add(element);
+		}
+		
+		@Override
+		public void removeElement(Mod element) {
+			elements.remove(element);
+		}
+	}
+}
@@ -1,21 +1,33 @@
 package test;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.reset;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
 
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.LinkedHashSet;
+import java.util.Set;
 import java.util.concurrent.Executor;
 
+import org.junit.After;
 import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 
 import test.util.MockConfig;
 import test.util.ModLoader;
@@ -25,17 +37,21 @@ import aohara.common.workflows.ConflictResolver.Resolution;
 import aohara.common.workflows.ProgressPanel;
 import aohara.common.workflows.Workflow;
 import aohara.tinkertime.TinkerConfig;
+import aohara.tinkertime.content.ThumbnailCache;
 import aohara.tinkertime.controllers.ModManager;
 import aohara.tinkertime.controllers.ModManager.ModAlreadyDisabledError;
 import aohara.tinkertime.controllers.ModManager.ModAlreadyEnabledError;
 import aohara.tinkertime.controllers.ModManager.ModUpdateFailedError;
 import aohara.tinkertime.controllers.ModStateManager;
 import aohara.tinkertime.models.Mod;
+import aohara.tinkertime.workflows.ModWorkflowBuilder;
+import aohara.tinkertime.workflows.ModWorkflowBuilder.ExtractionPlan;
 
 public class TestModManager {
 	
 	private static TinkerConfig config;
 	private ModManager manager;
+	private ModStateManager sm;
 	private static ModLoader.MockMod mod, testMod1, testMod2;
 	private MockCR cr;
 	private Executor downloedExecutor, enablerExecutor;
@@ -54,9 +70,19 @@ public class TestModManager {
 	
 	@Before
 	public void setUp() throws Throwable {
+		sm = mock(ModStateManager.class);
+		when(sm.isDownloaded(any(Mod.class))).thenAnswer(new Answer<Boolean>(){
+			@Override
+			public Boolean answer(InvocationOnMock invocation) {
+				Path zipPath = ((Mod) invocation.getArguments()[0]).getCachedZipPath(config);
+				return zipPath != null && Files.isRegularFile(zipPath);
+			}
+		});
+		
 		manager = new ModManager(
-			mock(ModStateManager.class),
+			sm,
 			config,
+			mock(ThumbnailCache.class),
 			mock(ProgressPanel.class),
 			cr = spy(new MockCR()),
 			downloedExecutor = mock(Executor.class),
@@ -68,6 +94,35 @@ public class TestModManager {
 		testMod2.setEnabled(false);	
 	}
 	
+	@After
+	public void tearDown(){
+		reset(config);
+	}
+	
+	/**
+	 * Returns a mod for one of the test archives, with its own id.
+	 */
+	private static ModLoader.MockMod archiveMod(String id, String zipName, boolean downloaded){
+		ModLoader.MockMod mod = new ModLoader.MockMod(new Mod(id, zipName, zipName + ".zip", null, null, null, new Date(), null));
+		mod.setDownloaded(downloaded);
+		return mod;
+	}
+	
+	private static Set<String> set(String... names){
+		return new LinkedHashSet<String>(Arrays.asList(names));
+	}
+	
+	/**
+	 * Runs the workflow submitted to the enabler executor, extracting to a
+	 * temporary GameData folder.
+	 */
+	private void runEnablerWorkflow(){
+		doReturn(UnitTestSuite.getTempDir("gameData")).when(config).getGameDataPath();
+		ArgumentCaptor<Runnable> workflow = ArgumentCaptor.forClass(Runnable.class);
+		verify(enablerExecutor, times(1)).execute(workflow.capture());
+		workflow.getValue().run();
+	}
+	
 	// -- Tests -----------------------------------------------
 	
 	@Test
@@ -80,7 +135,7 @@ public class TestModManager {
 	
 	private void enableMod(Mod mod) throws Throwable {
 			reset(downloedExecutor);
-			assertTrue(mod.isDownloaded(config));
+			assertTrue(sm.isDownloaded(mod));
 			
 			manager.enableMod(mod);
 			
@@ -122,6 +177,110 @@ public class TestModManager {
 		manager.enableMod(testMod2);
 	}
 	
+	// -- Batch Tests ---------------------------------
+	
+	@Test
+	public void testEnableMods() throws Throwable {
+		cr.res = Resolution.Overwrite;
+		
+		manager.enableMods(Arrays.<Mod>asList(testMod1, testMod2));
+		verify(enablerExecutor, times(1)).execute(any(Workflow.class));
+	}
+	
+	@Test
+	public void testEnableModsSkipsEnabled() throws Throwable {
+		testMod1.setEnabled(true);
+		testMod2.setEnabled(true);
+		
+		manager.enableMods(Arrays.<Mod>asList(testMod1, testMod2));
+		verifyZeroInteractions(enablerExecutor);
+	}
+	
+	@Test
+	public void testDisableMods() throws Throwable {
+		testMod1.setEnabled(true);
+		testMod2.setEnabled(true);
+		
+		manager.disableMods(Arrays.<Mod>asList(testMod1, testMod2));
+		verify(enablerExecutor, times(1)).execute(any(Workflow.class));
+	}
+	
+	@Test
+	public void testEnableAllMods() throws Throwable {
+		Mod enabled = archiveMod("enabled", "TestMod1", true);
+		Mod disabled = archiveMod("disabled", "TestMod2", true);
+		Mod notDownloaded = archiveMod("notDownloaded", "TestMod1", false);
+		enabled.setEnabled(true);
+		when(sm.getMods()).thenReturn(new LinkedHashSet<Mod>(Arrays.asList(enabled, disabled, notDownloaded)));
+		
+		manager.enableAllMods();
+		runEnablerWorkflow();
+		verify(sm).modsUpdated(Arrays.asList(disabled));
+		assertTrue(disabled.isEnabled());
+	}
+	
+	@Test
+	public void testDisableAllMods() throws Throwable {
+		Mod enabled = archiveMod("enabled", "TestMod1", true);
+		Mod disabled = archiveMod("disabled", "TestMod2", true);
+		enabled.setEnabled(true);
+		when(sm.getMods()).thenReturn(new LinkedHashSet<Mod>(Arrays.asList(enabled, disabled)));
+		
+		manager.disableAllMods();
+		runEnablerWorkflow();
+		verify(sm).modsUpdated(Arrays.asList(enabled));
+		assertFalse(enabled.isEnabled());
+	}
+	
+	// -- Plan Tests ----------------------------------
+	
+	private ExtractionPlan planExtraction(Mod... mods) throws Throwable {
+		return new ModWorkflowBuilder("Enabling").planExtraction(Arrays.asList(mods), config, sm);
+	}
+	
+	private Set<String> planDeletion(Mod... mods) throws Throwable {
+		return new ModWorkflowBuilder("Disabling").planDeletion(Arrays.asList(mods), config, sm);
+	}
+	
+	@Test
+	public void testPlanExtractsSharedModuleOnce() throws Throwable {
+		// Both mods ship the same Dependency module
+		ExtractionPlan plan = planExtraction(archiveMod("a", "TestMod1", true), archiveMod("b", "TestMod1", true));
+		assertEquals(set("Dependency/", "TestMod1/"), plan.getModuleNames());
+		assertTrue(plan.getFileNames().isEmpty());
+		assertTrue(plan.getConflictingModuleNames().isEmpty());
+	}
+	
+	@Test
+	public void testPlanReportsModuleConflicts() throws Throwable {
+		// Each mod ships a different version of the Dependency module
+		ExtractionPlan plan = planExtraction(archiveMod("a", "TestMod1", true), archiveMod("b", "TestMod2", true));
+		assertEquals(set("Dependency/", "TestMod1/", "TestMod2/"), plan.getModuleNames());
+		assertEquals(Arrays.asList("Dependency/"), plan.getConflictingModuleNames());
+	}
+	
+	@Test
+	public void testPlanDeletesEachModuleOnce() throws Throwable {
+		Mod a = archiveMod("a", "TestMod1", true);
+		Mod b = archiveMod("b", "TestMod2", true);
+		a.setEnabled(true);
+		b.setEnabled(true);
+		when(sm.getMods()).thenReturn(new LinkedHashSet<Mod>(Arrays.asList(a, b)));
+		
+		assertEquals(set("Dependency/", "TestMod1/", "TestMod2/"), planDeletion(a, b));
+	}
+	
+	@Test
+	public void testPlanKeepsModulesOfEnabledMods() throws Throwable {
+		Mod a = archiveMod("a", "TestMod1", true);
+		Mod b = archiveMod("b", "TestMod2", true);
+		a.setEnabled(true);
+		b.setEnabled(true);
+		when(sm.getMods()).thenReturn(new LinkedHashSet<Mod>(Arrays.asList(a, b)));
+		
+		assertEquals(set("TestMod1/"), planDeletion(a));
+	}
+	
 	// -- Disable Tests -------------------------------
 	
 	@Test
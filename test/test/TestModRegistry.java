@@ -0,0 +1,59 @@
+package test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.net.URL;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import test.util.ModLoader;
+import test.util.ModStubs;
+import aohara.tinkertime.models.Mod;
+import aohara.tinkertime.models.ModRegistry;
+
+public class TestModRegistry {
+	
+	private Mod mechjeb, engineer, alarmClock;
+	
+	@Before
+	public void setUp() throws Throwable {
+		mechjeb = ModLoader.loadMod(ModStubs.Mechjeb);
+		engineer = ModLoader.loadMod(ModStubs.Engineer);
+		alarmClock = ModLoader.loadMod(ModStubs.KerbalAlarmClock);
+	}
+	
+	@Test
+	public void testIndexes() throws Throwable {
+		ModRegistry registry = ModRegistry.EMPTY.with(Arrays.asList(mechjeb, engineer, alarmClock));
+		
+		assertEquals(3, registry.size());
+		assertSame(mechjeb, registry.getById(mechjeb.id));
+		assertSame(engineer, registry.getByPageUrl(new URL("http://WWW.curse.com/ksp-mods/kerbal/220285-kerbal-engineer-redux/")));
+		assertEquals(2, registry.getByHost("www.curse.com").size());
+		assertEquals(Collections.singleton(alarmClock), registry.getByHost("github.com"));
+	}
+	
+	@Test
+	public void testWithoutIsCopyOnWrite(){
+		ModRegistry before = ModRegistry.EMPTY.with(Arrays.asList(mechjeb, engineer));
+		ModRegistry after = before.without(mechjeb);
+		
+		assertEquals(2, before.size());
+		assertEquals(1, after.size());
+		assertTrue(after.getVersion() > before.getVersion());
+		assertNull(after.getById(mechjeb.id));
+		assertNull(after.getByPageUrl(mechjeb.getPageUrl()));
+		assertEquals(Collections.singleton(engineer), after.getByHost("www.curse.com"));
+	}
+	
+	@Test(expected = UnsupportedOperationException.class)
+	public void testModsUnmodifiable(){
+		ModRegistry.EMPTY.with(Arrays.asList(mechjeb)).getMods().clear();
+	}
+}
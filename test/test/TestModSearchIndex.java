@@ -0,0 +1,84 @@
+package test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import test.util.ModLoader;
+import test.util.ModStubs;
+import aohara.tinkertime.models.Mod;
+import aohara.tinkertime.models.ModSearchIndex;
+
+public class TestModSearchIndex {
+	
+	private ModSearchIndex index;
+	private Mod mechjeb, engineer, alarmClock;
+	
+	@Before
+	public void setUp() throws Throwable {
+		mechjeb = ModLoader.loadMod(ModStubs.Mechjeb);
+		engineer = ModLoader.loadMod(ModStubs.Engineer);
+		alarmClock = ModLoader.loadMod(ModStubs.KerbalAlarmClock);
+		
+		index = new ModSearchIndex();
+		index.update(mechjeb);
+		index.update(engineer);
+		index.update(alarmClock);
+	}
+	
+	private static Set<Mod> set(Mod... mods){
+		Set<Mod> set = new HashSet<>();
+		Collections.addAll(set, mods);
+		return set;
+	}
+	
+	@Test
+	public void testEmptyQueryMatchesAll(){
+		assertEquals(3, index.search("  ").size());
+	}
+	
+	@Test
+	public void testSubstringOfName(){
+		assertEquals(set(mechjeb), index.search("CHJ"));
+		assertEquals(set(mechjeb), index.search("mechjeb"));
+		assertEquals(set(engineer), index.search("engineer"));
+	}
+	
+	@Test
+	public void testHost(){
+		assertEquals(set(alarmClock), index.search("github"));
+		assertEquals(set(mechjeb, engineer), index.search("curse.com"));
+	}
+	
+	@Test
+	public void testAllTermsMustMatch(){
+		assertEquals(set(engineer), index.search("curse engineer"));
+		assertTrue(index.search("mechjeb github").isEmpty());
+	}
+	
+	@Test
+	public void testTermsDoNotSpanFields(){
+		String name = mechjeb.getName().toLowerCase(), creator = mechjeb.getCreator().toLowerCase();
+		String spanning = name.substring(name.length() - 2) + creator.substring(0, 2);
+		assertFalse(index.matches(mechjeb, spanning));
+	}
+	
+	@Test
+	public void testUpdateAndRemove(){
+		index.remove(mechjeb);
+		assertTrue(index.search("mechjeb").isEmpty());
+		assertEquals(2, index.size());
+		
+		index.update(mechjeb);
+		index.update(mechjeb);
+		assertEquals(set(mechjeb), index.search("mechjeb"));
+		assertEquals(3, index.size());
+	}
+}
@@ -0,0 +1,160 @@
+package test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import test.util.ModLoader;
+import test.util.ModStubs;
+import aohara.tinkertime.controllers.ModStateJournal;
+import aohara.tinkertime.controllers.ModStatePersister;
+import aohara.tinkertime.controllers.ModStatePersister.StateSource;
+import aohara.tinkertime.models.Mod;
+
+import com.google.gson.Gson;
+
+public class TestModStateJournal {
+	
+	private Path statePath;
+	private Set<Mod> state;
+	private Mod mod1, mod2;
+	
+	@Before
+	public void setUp() throws Throwable {
+		statePath = UnitTestSuite.getTempDir("journal").resolve("TinkerTime.json");
+		state = new HashSet<>();
+		mod1 = ModLoader.loadMod(ModStubs.Mechjeb);
+		mod2 = ModLoader.loadMod(ModStubs.Engineer);
+	}
+	
+	private ModStateJournal createJournal(int compactAfterRecords){
+		return new ModStateJournal(statePath, new Gson(), new StateSource(){
+			@Override
+			public Set<Mod> getModsSnapshot() {
+				return new HashSet<>(state);
+			}
+		}, compactAfterRecords);
+	}
+	
+	private void update(ModStatePersister journal, Mod mod, boolean deleted){
+		if (deleted){
+			state.remove(mod);
+			journal.modDeleted(mod);
+		} else {
+			state.add(mod);
+			journal.modUpdated(mod);
+		}
+	}
+	
+	@Test
+	public void testReplay(){
+		ModStateJournal journal = createJournal(100);
+		update(journal, mod1, false);
+		update(journal, mod2, false);
+		update(journal, mod1, true);
+		journal.flush();
+		
+		assertFalse(statePath.toFile().exists());
+		
+		Set<Mod> loaded = createJournal(100).load();
+		assertEquals(1, loaded.size());
+		assertTrue(loaded.contains(mod2));
+	}
+	
+	@Test
+	public void testReplayKeepsLatestState(){
+		ModStateJournal journal = createJournal(100);
+		mod1.setEnabled(true);
+		update(journal, mod1, false);
+		mod1.setEnabled(false);
+		update(journal, mod1, false);
+		journal.flush();
+		
+		Set<Mod> loaded = createJournal(100).load();
+		assertFalse(loaded.iterator().next().isEnabled());
+	}
+	
+	@Test
+	public void testTornRecord() throws IOException {
+		ModStateJournal journal = createJournal(100);
+		update(journal, mod1, false);
+		journal.flush();
+		
+		Path journalPath = ModStateJournal.getJournalPath(statePath);
+		long goodLength = journalPath.toFile().length();
+		try(OutputStream os = Files.newOutputStream(journalPath, StandardOpenOption.APPEND)){
+			os.write("1234abcd {\"op\":\"put\",\"mod\":{\"id\":\"tor".getBytes("UTF-8"));
+		}
+		
+		Set<Mod> loaded = createJournal(100).load();
+		assertEquals(1, loaded.size());
+		assertTrue(loaded.contains(mod1));
+		assertEquals(goodLength, journalPath.toFile().length());
+	}
+	
+	@Test
+	public void testUnreadableStateSetAside() throws IOException {
+		Files.write(statePath, "[{\"id\": \"mechjeb\"".getBytes("UTF-8"));
+		
+		ModStateJournal journal = createJournal(1);
+		assertTrue(journal.load().isEmpty());
+		Path unreadable = statePath.resolveSibling(statePath.getFileName() + ".unreadable");
+		assertTrue(unreadable.toFile().exists());
+		
+		// Saving the empty list must not overwrite the unreadable mods
+		journal.flush();
+		assertEquals("[{\"id\": \"mechjeb\"", new String(Files.readAllBytes(unreadable), "UTF-8"));
+	}
+	
+	@Test
+	public void testCompaction(){
+		ModStateJournal journal = createJournal(2);
+		update(journal, mod1, false);
+		update(journal, mod2, false);
+		journal.flush();
+		
+		assertTrue(statePath.toFile().exists());
+		assertEquals(2, createJournal(2).load().size());
+		
+		update(journal, mod2, true);
+		journal.flush();
+		
+		Set<Mod> loaded = createJournal(2).load();
+		assertEquals(1, loaded.size());
+		assertTrue(loaded.contains(mod1));
+	}
+	
+	@Test
+	public void testCountsSaves() throws IOException {
+		ModStateJournal journal = createJournal(100);
+		journal.flush();
+		assertEquals(0, journal.getNumSaves());
+		
+		update(journal, mod1, false);
+		journal.flush();
+		assertEquals(1, journal.getNumSaves());
+		assertEquals(Files.size(ModStateJournal.getJournalPath(statePath)), journal.getBytesWritten());
+		
+		ModStatePersister persister = new ModStatePersister(statePath, new Gson(), new StateSource(){
+			@Override
+			public Set<Mod> getModsSnapshot() {
+				return state;
+			}
+		});
+		persister.markDirty();
+		persister.flush();
+		assertEquals(1, persister.getNumSaves());
+		assertEquals(Files.size(statePath), persister.getBytesWritten());
+	}
+}
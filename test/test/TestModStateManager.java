@@ -4,8 +4,14 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -19,6 +25,7 @@ import aohara.tinkertime.models.Mod;
 public class TestModStateManager {
 
 	private Mod mod1, mod2;
+	private MockConfig config;
 	private ModStateManager stateManager;
 	private List<Mod> mods;
 	
@@ -50,7 +57,7 @@ public class TestModStateManager {
 		mod1 = ModLoader.loadMod(ModStubs.Mechjeb);
 		mod2 = ModLoader.loadMod(ModStubs.Engineer);
 
-		stateManager = new ModStateManager(new MockConfig());
+		stateManager = new ModStateManager(config = new MockConfig());
 	}
 
 	@Test
@@ -130,4 +137,59 @@ public class TestModStateManager {
 		assertTrue(mods.contains(mod2));
 	}
 
+	
+	@Test
+	public void testStatePersisted(){
+		update(mod1, false);
+		update(mod2, false);
+		update(mod1, true);
+		stateManager.flush();
+		
+		Set<Mod> loaded = new ModStateManager(config).getMods();
+		assertFalse(loaded.contains(mod1));
+		assertTrue(loaded.contains(mod2));
+	}
+
+	@Test
+	public void testGameDataChangesUpdateEnabled() throws Throwable {
+		Path folder = UnitTestSuite.getTempDir("gameDataState");
+		final Path gameData = Files.createDirectories(folder.resolve("GameData"));
+		final Path zips = Files.createDirectories(folder.resolve("mods"));
+		try(ZipOutputStream zos = new ZipOutputStream(Files.newOutputStream(zips.resolve("PartMod.zip")))){
+			zos.putNextEntry(new ZipEntry("GameData/PartMod/part.cfg"));
+			zos.closeEntry();
+		}
+		
+		stateManager = new ModStateManager(new MockConfig(){
+			@Override
+			public Path getGameDataPath(){
+				return gameData;
+			}
+			
+			@Override
+			public Path getModsZipPath(){
+				return zips;
+			}
+		});
+		Mod mod = new Mod("partmod", "PartMod", "PartMod.zip", null, null, null, new Date(), null);
+		update(mod, false);
+		
+		// Modules added by hand enable the mod
+		Path module = Files.createDirectory(gameData.resolve("PartMod"));
+		stateManager.fileChanged(module.toAbsolutePath().normalize(), null);
+		assertTrue(mod.isEnabled());
+		
+		// Changes elsewhere in GameData are ignored
+		mod.setEnabled(false);
+		stateManager.fileChanged(gameData.resolve("Other").toAbsolutePath().normalize(), null);
+		assertFalse(mod.isEnabled());
+		
+		// Changes made while closed are found when reconciling
+		stateManager.reconcileEnabled();
+		assertTrue(mod.isEnabled());
+		
+		Files.delete(module);
+		stateManager.fileChanged(module.toAbsolutePath().normalize(), null);
+		assertFalse(mod.isEnabled());
+	}
 }
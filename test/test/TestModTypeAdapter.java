@@ -0,0 +1,98 @@
+package test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.text.DateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.Set;
+
+import org.junit.Test;
+
+import test.util.ModLoader;
+import test.util.ModStubs;
+import aohara.tinkertime.models.Mod;
+import aohara.tinkertime.models.ModTypeAdapter;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+
+public class TestModTypeAdapter {
+	
+	private final Gson gson = ModTypeAdapter.gsonBuilder().create();
+	
+	@Test
+	public void testRoundTrip() throws Throwable {
+		Mod mod = ModLoader.loadMod(ModStubs.Mechjeb);
+		mod.setEnabled(true);
+		
+		String json = gson.toJson(mod, Mod.class);
+		assertFalse(json.contains("\n"));
+		
+		Mod read = gson.fromJson(json, Mod.class);
+		assertEquals(mod, read);
+		assertEquals(mod.getName(), read.getName());
+		assertEquals(mod.getCreator(), read.getCreator());
+		assertEquals(mod.getNewestFileName(), read.getNewestFileName());
+		assertEquals(mod.getSupportedVersion(), read.getSupportedVersion());
+		assertEquals(mod.getPageUrl().toString(), read.getPageUrl().toString());
+		assertEquals(mod.getUpdatedOn(), read.getUpdatedOn());
+		assertTrue(read.isEnabled());
+	}
+	
+	@Test
+	public void testLegacyFormat() throws Throwable {
+		Date date = new Date(1420470245000L);
+		String legacyDate = DateFormat.getDateTimeInstance(DateFormat.DEFAULT, DateFormat.DEFAULT, Locale.US).format(date);
+		Mod read = gson.fromJson(
+			"{\"id\": \"mechjeb\", \"updatedOn\": \"" + legacyDate + "\", \"name\": \"MechJeb\", \"enabled\": true, "
+			+ "\"updateAvailable\": true, \"unknown\": {\"nested\": [1, 2]}, \"imageUrl\": \"not a url\", \"creator\": null}",
+			Mod.class
+		);
+		
+		assertEquals("mechjeb", read.id);
+		assertEquals("MechJeb", read.getName());
+		assertEquals(date, read.getUpdatedOn());
+		assertTrue(read.isEnabled());
+		assertNull(read.getImageUrl());
+		assertNull(read.getCreator());
+	}
+	
+	@Test
+	public void testMissingFields(){
+		Mod read = gson.fromJson("{\"id\": \"local\"}", Mod.class);
+		assertNotNull(read);
+		assertNull(read.getUpdatedOn());
+		assertFalse(read.isEnabled());
+	}
+	
+	@Test
+	public void testBadEntriesSkipped(){
+		Set<Mod> mods = gson.fromJson(
+			"[{\"name\": \"No Id\"}, \"not a mod\", "
+			+ "{\"id\": \"mechjeb\", \"name\": {\"nested\": true}, \"enabled\": [1], \"updatedOn\": \"soon\", \"creator\": \"r4m0n\"}, "
+			+ "{\"id\": \"engineer\", \"pageUrl\": 42, \"updatedOn\": {}, \"enabled\": true}]",
+			new TypeToken<Set<Mod>>(){}.getType()
+		);
+		mods.remove(null);
+		assertEquals(2, mods.size());
+		
+		for (Mod mod : mods){
+			if (mod.id.equals("mechjeb")){
+				assertNull(mod.getName());
+				assertEquals("r4m0n", mod.getCreator());
+				assertFalse(mod.isEnabled());
+				assertNull(mod.getUpdatedOn());
+			} else {
+				assertEquals("engineer", mod.id);
+				assertNull(mod.getPageUrl());
+				assertNull(mod.getUpdatedOn());
+				assertTrue(mod.isEnabled());
+			}
+		}
+	}
+}
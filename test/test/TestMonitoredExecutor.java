@@ -0,0 +1,96 @@
+package test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import javax.management.ObjectName;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import aohara.tinkertime.management.Management;
+import aohara.tinkertime.management.MonitoredExecutor;
+
+public class TestMonitoredExecutor {
+	
+	private LinkedList<Runnable> queue;
+	private boolean reject;
+	private MonitoredExecutor executor;
+	
+	@Before
+	public void setUp(){
+		queue = new LinkedList<>();
+		reject = false;
+		executor = new MonitoredExecutor(new Executor(){
+			@Override
+			public void execute(Runnable command) {
+				if (reject){
+					throw new RejectedExecutionException();
+				}
+				queue.add(command);
+			}
+		});
+	}
+	
+	private static Runnable noop(){
+		return new Runnable(){
+			@Override
+			public void run() {}
+		};
+	}
+	
+	@Test
+	public void testCountsQueuedAndCompleted(){
+		executor.execute(noop());
+		executor.execute(noop());
+		assertEquals(2, executor.getQueueDepth());
+		assertEquals(2, executor.getSubmittedCount());
+		
+		queue.removeFirst().run();
+		assertEquals(1, executor.getQueueDepth());
+		assertEquals(1, executor.getCompletedCount());
+		assertEquals(0, executor.getActiveCount());
+	}
+	
+	@Test
+	public void testCountsActive(){
+		executor.execute(new Runnable(){
+			@Override
+			public void run() {
+				assertEquals(1, executor.getActiveCount());
+				assertEquals(0, executor.getQueueDepth());
+			}
+		});
+		queue.removeFirst().run();
+		assertEquals(0, executor.getActiveCount());
+	}
+	
+	@Test
+	public void testCountsRejected(){
+		reject = true;
+		try {
+			executor.execute(noop());
+			fail("Task should have been rejected");
+		} catch (RejectedExecutionException e){
+			// Expected
+		}
+		assertEquals(1, executor.getRejectedCount());
+		assertEquals(0, executor.getQueueDepth());
+		assertEquals(0, executor.getSubmittedCount());
+	}
+	
+	@Test
+	public void testRegisteredWithPlatformServer() throws Exception {
+		executor.execute(noop());
+		Management.register("type=Executor,name=test", executor);
+		
+		Object depth = ManagementFactory.getPlatformMBeanServer().getAttribute(
+			new ObjectName(Management.DOMAIN + ":type=Executor,name=test"), "QueueDepth");
+		assertEquals(1, depth);
+	}
+}
@@ -0,0 +1,150 @@
+package test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import aohara.tinkertime.content.ReadmeCache;
+
+public class TestReadmeCache {
+	
+	private Path folder;
+	private ReadmeCache cache;
+	
+	@Before
+	public void setUp(){
+		folder = UnitTestSuite.getTempDir("readme");
+		cache = new ReadmeCache(folder.resolve("cache"));
+	}
+	
+	private Path createZip(String name, String readme) throws IOException {
+		Path zipPath = folder.resolve(name);
+		try(ZipOutputStream zos = new ZipOutputStream(Files.newOutputStream(zipPath))){
+			zos.putNextEntry(new ZipEntry("GameData/Mod/Mod.dll"));
+			zos.write(new byte[]{1, 2, 3});
+			if (readme != null){
+				zos.putNextEntry(new ZipEntry("Mod-README.txt"));
+				zos.write(readme.getBytes());
+			}
+		}
+		return zipPath;
+	}
+	
+	@Test
+	public void testExtractsOnce() throws Throwable {
+		Path zipPath = createZip("mod.zip", "Read me!");
+		Path readme = cache.getReadme("mod", zipPath);
+		assertEquals("Read me!", ReadmeCache.readPage(readme, 0, ReadmeCache.PAGE_CHARS).text);
+		
+		// Cached copy is used, rather than extracting again
+		try(OutputStream os = Files.newOutputStream(readme)){
+			os.write("Cached".getBytes());
+		}
+		assertEquals("Cached", ReadmeCache.readPage(cache.getReadme("mod", zipPath), 0, ReadmeCache.PAGE_CHARS).text);
+	}
+	
+	@Test
+	public void testNoReadme() throws Throwable {
+		Path zipPath = createZip("noreadme.zip", null);
+		assertNull(cache.getReadme("mod", zipPath));
+		assertNull(cache.getReadme("mod", zipPath));
+	}
+	
+	@Test
+	public void testPages() throws Throwable {
+		Path readme = cache.getReadme("mod", createZip("paged.zip", "abcdefghij"));
+		
+		ReadmeCache.Page page = ReadmeCache.readPage(readme, 0, 4);
+		assertEquals("abcd", page.text);
+		assertTrue(page.hasMore);
+		
+		page = ReadmeCache.readPage(readme, page.end, 4);
+		assertEquals("efgh", page.text);
+		
+		page = ReadmeCache.readPage(readme, page.end, 4);
+		assertEquals("ij", page.text);
+		assertFalse(page.hasMore);
+	}
+	
+	@Test
+	public void testNewVersionReplacesEntry() throws Throwable {
+		Path zipPath = createZip("mod.zip", null);
+		assertNull(cache.getReadme("mod", zipPath));
+		
+		createZip("mod.zip", "New readme");
+		assertEquals("New readme", ReadmeCache.readPage(cache.getReadme("mod", zipPath), 0, ReadmeCache.PAGE_CHARS).text);
+		assertEquals(1, ReadmeCache.getModFolder(folder.resolve("cache"), "mod").toFile().list().length);
+	}
+	
+	@Test
+	public void testNewArchiveReplacesEntry() throws Throwable {
+		Path readme = cache.getReadme("mod", createZip("mod-1.0.zip", "Old readme"));
+		assertEquals(ReadmeCache.getModFolder(folder.resolve("cache"), "mod"), readme.getParent());
+		
+		cache.getReadme("mod", createZip("mod-1.1.zip", "New readme"));
+		assertFalse(Files.exists(readme));
+		assertEquals(1, readme.getParent().toFile().list().length);
+	}
+	
+	@Test
+	public void testConcurrentExtraction() throws Throwable {
+		final Path withReadme = createZip("mod.zip", "Read me!"), withoutReadme = createZip("noreadme.zip", null);
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<Path>> results = new ArrayList<>();
+			for (int i=0; i<32; i++){
+				final boolean readme = i % 2 == 0;
+				results.add(executor.submit(new Callable<Path>(){
+					@Override
+					public Path call() throws IOException {
+						return readme ? cache.getReadme("mod", withReadme) : cache.getReadme("noreadme", withoutReadme);
+					}
+				}));
+			}
+			for (int i=0; i<results.size(); i++){
+				Path readme = results.get(i).get();
+				if (i % 2 == 0){
+					assertEquals("Read me!", ReadmeCache.readPage(readme, 0, ReadmeCache.PAGE_CHARS).text);
+				} else {
+					assertNull(readme);
+				}
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+	
+	@Test
+	public void testPagesOfMultibyteText() throws Throwable {
+		StringBuilder text = new StringBuilder();
+		for (int i=0; i<1000; i++){
+			text.append("caf\u00e9 \u00fcber ");
+		}
+		Path readme = cache.getReadme("mod", createZip("multibyte.zip", text.toString()));
+		
+		StringBuilder read = new StringBuilder();
+		ReadmeCache.Page page = null;
+		do {
+			page = ReadmeCache.readPage(readme, page != null ? page.end : 0, 7);
+			read.append(page.text);
+		} while (page.hasMore);
+		assertEquals(new String(text.toString().getBytes()), read.toString());
+	}
+}
@@ -0,0 +1,51 @@
+package test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.net.URL;
+
+import org.junit.Test;
+
+import aohara.tinkertime.models.ResourceKey;
+
+public class TestResourceKey {
+	
+	private static ResourceKey key(String url) throws Throwable {
+		return ResourceKey.of(new URL(url));
+	}
+	
+	@Test
+	public void testHostCaseAndWww() throws Throwable {
+		ResourceKey expected = key("http://curse.com/ksp-mods/kerbal/220221-mechjeb");
+		assertEquals(expected, key("http://WWW.Curse.com/ksp-mods/kerbal/220221-mechjeb"));
+		assertEquals(expected.hashCode(), key("http://www.curse.com/ksp-mods/kerbal/220221-mechjeb").hashCode());
+	}
+	
+	@Test
+	public void testPathCanonicalized() throws Throwable {
+		assertEquals(key("http://curse.com/ksp-mods/kerbal/220221-mechjeb"), key("http://curse.com//ksp-mods/kerbal//220221-mechjeb/"));
+		assertEquals(key("https://github.com/TriggerAu/KerbalAlarmClock"), key("https://github.com/TriggerAu/KerbalAlarmClock/releases/"));
+	}
+	
+	@Test
+	public void testDefaultPortDropped() throws Throwable {
+		assertEquals(key("http://curse.com/a"), key("http://curse.com:80/a"));
+		assertNotEquals(key("http://curse.com/a"), key("http://curse.com:8080/a"));
+	}
+	
+	@Test
+	public void testQueryAndSchemeSignificant() throws Throwable {
+		assertNotEquals(key("http://curse.com/a?page=1"), key("http://curse.com/a?page=2"));
+		assertNotEquals(key("http://curse.com/a"), key("https://curse.com/a"));
+	}
+	
+	@Test
+	public void testIsOnHost() throws Throwable {
+		assertTrue(key("https://beta.kerbalstuff.com/mod/239").isOnHost("kerbalstuff.com"));
+		assertTrue(key("http://www.curse.com/a").isOnHost("curse.com"));
+		assertFalse(key("http://notcurse.com/a").isOnHost("curse.com"));
+	}
+}
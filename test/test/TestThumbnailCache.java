@@ -0,0 +1,109 @@
+package test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.image.BufferedImage;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import javax.imageio.ImageIO;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import aohara.tinkertime.content.ThumbnailCache;
+
+public class TestThumbnailCache {
+	
+	private Path folder, imagePath;
+	
+	@Before
+	public void setUp() throws Throwable {
+		folder = UnitTestSuite.getTempDir("thumbnails");
+		imagePath = folder.resolve("mechjeb.jpg");
+		ImageIO.write(new BufferedImage(400, 200, BufferedImage.TYPE_INT_RGB), "jpg", imagePath.toFile());
+	}
+	
+	@Test
+	public void testGenerate() throws Throwable {
+		ThumbnailCache cache = new ThumbnailCache(folder, Long.MAX_VALUE);
+		assertTrue(cache.generate(imagePath));
+		
+		BufferedImage small = ImageIO.read(ThumbnailCache.getThumbnailPath(imagePath, 128).toFile());
+		assertEquals(128, small.getWidth());
+		assertEquals(64, small.getHeight());
+		
+		// Images are not scaled up past their own size
+		assertEquals(400, ImageIO.read(ThumbnailCache.getThumbnailPath(imagePath, 512).toFile()).getWidth());
+	}
+	
+	@Test
+	public void testNearest() throws Throwable {
+		ThumbnailCache cache = new ThumbnailCache(folder, Long.MAX_VALUE);
+		assertNull(cache.getNearestThumbnail(imagePath, 200));
+		
+		cache.generate(imagePath);
+		assertEquals(ThumbnailCache.getThumbnailPath(imagePath, 256), cache.getNearestThumbnail(imagePath, 200));
+		assertEquals(ThumbnailCache.getThumbnailPath(imagePath, 128), cache.getNearestThumbnail(imagePath, 50));
+		assertEquals(ThumbnailCache.getThumbnailPath(imagePath, 512), cache.getNearestThumbnail(imagePath, 2000));
+	}
+	
+	@Test
+	public void testBudget() throws Throwable {
+		Path old = ThumbnailCache.getThumbnailPath(folder.resolve("old.jpg"), 128);
+		Files.write(old, new byte[1024]);
+		old.toFile().setLastModified(0);
+		
+		ThumbnailCache cache = new ThumbnailCache(folder, Long.MAX_VALUE);
+		cache.generate(imagePath);
+		long thumbnailBytes = 0;
+		for (int size : ThumbnailCache.SIZES){
+			thumbnailBytes += ThumbnailCache.getThumbnailPath(imagePath, size).toFile().length();
+		}
+		
+		new ThumbnailCache(folder, thumbnailBytes).enforceBudget();
+		assertFalse(Files.exists(old));
+		assertTrue(Files.exists(ThumbnailCache.getThumbnailPath(imagePath, 128)));
+	}
+	
+	@Test
+	public void testBudgetKeepsOriginalImages() throws Throwable {
+		Path original = folder.resolve("original.jpg");
+		Files.write(original, new byte[4096]);
+		original.toFile().setLastModified(0);
+		imagePath.toFile().setLastModified(0);
+		
+		ThumbnailCache cache = new ThumbnailCache(folder, 0);
+		cache.generate(imagePath);
+		
+		assertTrue(Files.exists(original));
+		assertTrue(Files.exists(imagePath));
+		assertNull(cache.getNearestThumbnail(imagePath, 128));
+	}
+	
+	@Test
+	public void testBudgetKeepsRecentlyUsed() throws Throwable {
+		Path used = ThumbnailCache.getThumbnailPath(folder.resolve("used.jpg"), 128);
+		Path unused = ThumbnailCache.getThumbnailPath(folder.resolve("unused.jpg"), 128);
+		Files.write(used, new byte[1024]);
+		Files.write(unused, new byte[1024]);
+		used.toFile().setLastModified(1000);
+		unused.toFile().setLastModified(2000);
+		
+		ThumbnailCache cache = new ThumbnailCache(folder, 1024);
+		assertEquals(used, cache.getNearestThumbnail(folder.resolve("used.jpg"), 128));
+		cache.enforceBudget();
+		
+		assertTrue(Files.exists(used));
+		assertFalse(Files.exists(unused));
+		assertEquals(1000, used.toFile().lastModified());
+	}
+	
+	@Test
+	public void testUnreadableImage() throws Throwable {
+		assertFalse(new ThumbnailCache(folder, Long.MAX_VALUE).generate(folder.resolve("missing.jpg")));
+	}
+}
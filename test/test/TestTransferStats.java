@@ -0,0 +1,140 @@
+package test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import aohara.tinkertime.net.ConnectionFactory;
+import aohara.tinkertime.net.Histogram;
+import aohara.tinkertime.net.HostStats;
+import aohara.tinkertime.net.HostStats.Phase;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+public class TestTransferStats {
+	
+	private static final byte[] BODY = new byte[5000];
+	
+	private HttpServer server;
+	
+	@Before
+	public void setUp() throws IOException {
+		ConnectionFactory.STATS.reset();
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.createContext("/", new HttpHandler(){
+			@Override
+			public void handle(HttpExchange exchange) throws IOException {
+				boolean found = exchange.getRequestURI().getPath().equals("/found");
+				exchange.sendResponseHeaders(found ? 200 : 404, found ? BODY.length : -1);
+				try (OutputStream os = exchange.getResponseBody()){
+					if (found){
+						os.write(BODY);
+					}
+				}
+			}
+		});
+		server.start();
+	}
+	
+	@After
+	public void tearDown(){
+		server.stop(0);
+		ConnectionFactory.STATS.reset();
+	}
+	
+	private URL getUrl(String path) throws IOException {
+		return new URL("http://127.0.0.1:" + server.getAddress().getPort() + path);
+	}
+	
+	private HostStats getStats(){
+		assertEquals(1, ConnectionFactory.STATS.getHosts().size());
+		return ConnectionFactory.STATS.getHosts().get(0);
+	}
+	
+	@Test
+	public void testRecordsRequest() throws IOException {
+		try (InputStream is = new ConnectionFactory().openStream(getUrl("/found"))){
+			assertEquals(BODY.length, IOUtils.toByteArray(is).length);
+		}
+		
+		HostStats stats = getStats();
+		assertEquals("127.0.0.1", stats.host);
+		assertEquals(1, stats.getNumRequests());
+		assertEquals(0, stats.getNumFailed());
+		assertEquals(Long.valueOf(1), stats.getStatuses().get(200));
+		assertEquals(BODY.length, stats.getBytes());
+		for (Phase phase : Phase.values()){
+			assertEquals(1, stats.getHistogram(phase).getCount());
+		}
+	}
+	
+	@Test
+	public void testRecordsErrorStatus() throws IOException {
+		try {
+			new ConnectionFactory().openStream(getUrl("/missing")).close();
+			fail("Expected the missing page to fail");
+		} catch (IOException e){
+			// expected
+		}
+		
+		HostStats stats = getStats();
+		assertEquals(1, stats.getNumRequests());
+		assertEquals(Long.valueOf(1), stats.getStatuses().get(404));
+	}
+	
+	@Test
+	public void testRecordsFailedConnection() throws IOException {
+		URL url = getUrl("/found");
+		server.stop(0);
+		try {
+			new ConnectionFactory().openStream(url).close();
+			fail("Expected the connection to fail");
+		} catch (IOException e){
+			// expected
+		}
+		
+		HostStats stats = getStats();
+		assertEquals(1, stats.getNumFailed());
+		assertTrue(stats.getStatuses().isEmpty());
+	}
+	
+	@Test
+	public void testRecordsHeadRequest() throws IOException {
+		new ConnectionFactory().getContentLength(getUrl("/found"));
+		
+		HostStats stats = getStats();
+		assertEquals(Long.valueOf(1), stats.getStatuses().get(200));
+		assertEquals(0, stats.getBytes());
+	}
+	
+	@Test
+	public void testHistogramPercentiles(){
+		Histogram histogram = new Histogram();
+		for (int i=0; i<90; i++){
+			histogram.record(TimeUnit.MILLISECONDS.toNanos(3));
+		}
+		for (int i=0; i<10; i++){
+			histogram.record(TimeUnit.MILLISECONDS.toNanos(300));
+		}
+		
+		assertEquals(100, histogram.getCount());
+		assertEquals(4, histogram.getPercentileMs(0.5));
+		assertEquals(300, histogram.getPercentileMs(0.95));
+		assertEquals(300, histogram.getMaxMs());
+		assertEquals(32.7, histogram.getMeanMs(), 0.01);
+	}
+}
@@ -0,0 +1,133 @@
+package test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import aohara.common.workflows.Workflow;
+import aohara.common.workflows.Workflow.WorkflowTask;
+import aohara.tinkertime.workflows.ModWorkflowBuilder;
+import aohara.tinkertime.workflows.WorkflowMetrics;
+import aohara.tinkertime.workflows.WorkflowMetrics.Outcome;
+import aohara.tinkertime.workflows.WorkflowMetrics.Recorder;
+import aohara.tinkertime.workflows.WorkflowMetrics.WorkflowSummary;
+
+public class TestWorkflowMetrics {
+	
+	private WorkflowMetrics metrics;
+	
+	@Before
+	public void setUp(){
+		metrics = new WorkflowMetrics();
+	}
+	
+	private static WorkflowTask task(final String title, final boolean result, final boolean fail){
+		return new WorkflowTask(){
+			@Override
+			public boolean call(Workflow workflow) throws Exception {
+				if (fail){
+					throw new IOException("Failed " + title);
+				}
+				return result;
+			}
+			
+			@Override
+			public int getTargetProgress() throws IOException {
+				return -1;
+			}
+			
+			@Override
+			public String getTitle() {
+				return title;
+			}
+		};
+	}
+	
+	private void run(WorkflowTask... tasks){
+		ModWorkflowBuilder builder = new ModWorkflowBuilder("Test", metrics);
+		for (WorkflowTask task : tasks){
+			builder.addTask(task);
+		}
+		builder.buildWorkflow().run();
+	}
+	
+	@Test
+	public void testRecordsEveryTask(){
+		run(task("first", true, false), task("second", true, false));
+		
+		assertEquals(1, metrics.getWorkflows().size());
+		WorkflowSummary summary = metrics.getWorkflows().get(0);
+		assertEquals("Test", summary.name);
+		assertEquals(Outcome.Succeeded, summary.outcome);
+		assertEquals(2, summary.tasks.size());
+		assertEquals("first", summary.tasks.get(0).title);
+		assertEquals("second", summary.tasks.get(1).title);
+	}
+	
+	@Test
+	public void testStoppedWorkflowIsRecorded(){
+		run(task("first", false, false), task("second", true, false));
+		
+		WorkflowSummary summary = metrics.getWorkflows().get(0);
+		assertEquals(Outcome.Stopped, summary.outcome);
+		assertEquals(1, summary.tasks.size());
+	}
+	
+	@Test
+	public void testFailedWorkflowIsRecorded(){
+		run(task("first", true, false), task("second", true, true), task("third", true, false));
+		
+		WorkflowSummary summary = metrics.getWorkflows().get(0);
+		assertEquals(Outcome.Failed, summary.outcome);
+		assertEquals(2, summary.tasks.size());
+		assertEquals(1, metrics.getTaskTotals().values().iterator().next().failures);
+	}
+	
+	@Test
+	public void testTracksInFlightWorkflow(){
+		final List<String> currentTasks = new ArrayList<>();
+		run(new WorkflowTask(){
+			@Override
+			public boolean call(Workflow workflow) throws Exception {
+				for (Recorder recorder : metrics.getInFlight()){
+					currentTasks.add(recorder.getWorkflowName() + ": " + recorder.getCurrentTask());
+				}
+				return true;
+			}
+			
+			@Override
+			public int getTargetProgress() throws IOException {
+				return -1;
+			}
+			
+			@Override
+			public String getTitle() {
+				return "inspect";
+			}
+		});
+		
+		assertEquals(1, currentTasks.size());
+		assertTrue(currentTasks.get(0).startsWith("Test: "));
+		assertTrue(metrics.getInFlight().isEmpty());
+	}
+	
+	@Test
+	public void testExportJson() throws IOException {
+		run(task("first", true, false));
+		
+		Path path = UnitTestSuite.getTempFile("metrics", ".json");
+		metrics.exportJson(path);
+		String json = new String(Files.readAllBytes(path), Charset.forName("UTF-8"));
+		assertTrue(json.contains("\"taskTotals\""));
+		assertTrue(json.contains("\"title\": \"first\""));
+	}
+}
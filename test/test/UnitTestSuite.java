@@ -20,7 +20,25 @@ import test.TestModStateManager;
    TestModStateManager.class,
    TestModuleManagerCrawler.class,
    TestGithubCrawler.class,
-   TestCrawlerFactory.class
+   TestCrawlerFactory.class,
+   TestKeyedExecutor.class,
+   TestModStateJournal.class,
+   TestModRegistry.class,
+   TestResourceKey.class,
+   TestModTypeAdapter.class,
+   TestModChangeBus.class,
+   TestFileWatchIndex.class,
+   TestReadmeCache.class,
+   TestThumbnailCache.class,
+   TestDecodedImageCache.class,
+   TestModSearchIndex.class,
+   TestModFilterPanel.class,
+   TestArchiveSearchIndex.class,
+   TestWorkflowMetrics.class,
+   TestMonitoredExecutor.class,
+   TestFlightEvents.class,
+   TestTransferStats.class,
+   TestConnectionFactory.class
 })
 
 public class UnitTestSuite {
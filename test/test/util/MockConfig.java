@@ -27,4 +27,9 @@ public class MockConfig extends TinkerConfig {
 	public Path getModsListPath(){
 		return modsListPath;
 	}
+	
+	@Override
+	public boolean journalModState(){
+		return false;
+	}
 }
\ No newline at end of file